@@ -4,27 +4,59 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.math.RoundingMode;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 public class ArbitraryNumber {
 
+    public enum EvaluationMode {
+        PER_TERM, // round every term to the scale, then sum
+        EXACT     // sum exactly over a common denominator, then divide once
+    }
+
     public static class Term {
-        public BigInteger c; // Scalar
-        public BigInteger a; // Numerator
-        public BigInteger b; // Denominator
+        public final BigInteger c; // Scalar
+        public final BigInteger a; // Numerator
+        public final BigInteger b; // Denominator
+
+        // long copies of c, a and b, only meaningful when small is set
+        final long lc;
+        final long la;
+        final long lb;
+        final boolean small;
 
         public Term(BigInteger c, BigInteger a, BigInteger b) {
             if (b.equals(BigInteger.ZERO)) throw new IllegalArgumentException("Denominator cannot be zero.");
             this.c = c;
             this.a = a;
             this.b = b;
+            this.small = c.bitLength() < Long.SIZE && a.bitLength() < Long.SIZE && b.bitLength() < Long.SIZE;
+            this.lc = small ? c.longValue() : 0;
+            this.la = small ? a.longValue() : 0;
+            this.lb = small ? b.longValue() : 0;
         }
 
         public Term(long c, long a, long b) {
-            this(BigInteger.valueOf(c), BigInteger.valueOf(a), BigInteger.valueOf(b));
+            if (b == 0) throw new IllegalArgumentException("Denominator cannot be zero.");
+            this.c = BigInteger.valueOf(c);
+            this.a = BigInteger.valueOf(a);
+            this.b = BigInteger.valueOf(b);
+            this.lc = c;
+            this.la = a;
+            this.lb = b;
+            this.small = true;
         }
 
         public BigInteger evaluateNumerator() {
+            if (small) {
+                try {
+                    return BigInteger.valueOf(Math.multiplyExact(lc, la));
+                } catch (ArithmeticException overflow) {
+                    // fall through to BigInteger
+                }
+            }
             return c.multiply(a);
         }
 
@@ -37,96 +69,197 @@ public class ArbitraryNumber {
         }
     }
 
-    private final List<Term> terms;
+    private TermSequence terms; // persistent, shared between numbers
+    private NormalizationPolicy policy;
+    private int bitLength; // largest BigInteger bit length over all terms
 
     public ArbitraryNumber() {
-        this.terms = new ArrayList<>();
+        this(NormalizationPolicy.explicit());
+    }
+
+    public ArbitraryNumber(NormalizationPolicy policy) {
+        this.terms = TermSequence.EMPTY;
+        this.policy = policy;
     }
 
     public void addTerm(long c, long a, long b) {
-        terms.add(new Term(c, a, b));
+        addTerm(new Term(c, a, b));
     }
 
     public void addTerm(BigInteger c, BigInteger a, BigInteger b) {
-        terms.add(new Term(c, a, b));
+        addTerm(new Term(c, a, b));
     }
 
     public void addTerm(Term term) {
-        terms.add(term);
+        terms = terms.append(term);
+        bitLength = Math.max(bitLength, TermNormalizer.bitLength(term));
+    }
+
+    public NormalizationPolicy getNormalizationPolicy() {
+        return policy;
+    }
+
+    // Results of add/multiply/divideBy inherit the policy of the left operand
+    public void setNormalizationPolicy(NormalizationPolicy policy) {
+        this.policy = policy;
+    }
+
+    // Merge terms sharing a denominator and reduce them by GCD, in place
+    public ArbitraryNumber normalize() {
+        terms = TermSequence.of(TermNormalizer.normalize(terms));
+        bitLength = 0;
+        for (Term t : terms) {
+            bitLength = Math.max(bitLength, TermNormalizer.bitLength(t));
+        }
+        return this;
+    }
+
+    private ArbitraryNumber withTerms(TermSequence newTerms) {
+        ArbitraryNumber result = new ArbitraryNumber(policy);
+        result.terms = newTerms;
+        for (TermBlock block : newTerms.blocks()) {
+            result.bitLength = Math.max(result.bitLength, block.bitLength());
+        }
+        return result.applyPolicy();
+    }
+
+    private ArbitraryNumber applyPolicy() {
+        if (policy.shouldNormalize(terms.size(), bitLength)) {
+            normalize();
+        }
+        return this;
     }
 
+    // Read-only view over the shared term storage
     public List<Term> getTerms() {
-        return terms;
+        return terms.asList();
     }
 
     public ArbitraryNumber add(ArbitraryNumber other) {
-        ArbitraryNumber result = new ArbitraryNumber();
-        result.terms.addAll(this.terms);
-        result.terms.addAll(other.terms);
-        return result;
+        ArbitraryNumber result = new ArbitraryNumber(policy);
+        result.terms = this.terms.concat(other.terms);
+        result.bitLength = Math.max(this.bitLength, other.bitLength);
+        return result.applyPolicy();
     }
 
     public ArbitraryNumber multiply(ArbitraryNumber other) {
-        ArbitraryNumber result = new ArbitraryNumber();
-        for (Term t1 : this.terms) {
-            for (Term t2 : other.terms) {
-                BigInteger newC = t1.c.multiply(t2.c);
-                BigInteger newA = t1.a.multiply(t2.a);
-                BigInteger newB = t1.b.multiply(t2.b);
-                result.addTerm(newC, newA, newB);
+        TermSequence.Builder products = new TermSequence.Builder();
+        for (TermBlock x : this.terms.blocks()) {
+            for (TermBlock y : other.terms.blocks()) {
+                TermBlock.multiplyInto(x, y, products);
             }
         }
-        return result;
+        return withTerms(products.build());
     }
 
     public BigDecimal evaluateToDecimal(int precision) {
         BigDecimal sum = BigDecimal.ZERO;
-        for (Term t : terms) {
-            BigDecimal numerator = new BigDecimal(t.evaluateNumerator());
-            BigDecimal denominator = new BigDecimal(t.evaluateDenominator());
-            sum = sum.add(numerator.divide(denominator, precision, RoundingMode.HALF_UP));
+        for (TermBlock block : terms.blocks()) {
+            sum = sum.add(block.sumToDecimal(precision));
         }
         return sum;
     }
 
-    public ArbitraryNumber divideBy(ArbitraryNumber other) {
-        if (other.terms.isEmpty()) {
-            throw new ArithmeticException("Cannot divide by zero (empty number).");
-        }
-        if (other.terms.size() != 1) {
-            throw new UnsupportedOperationException("Only division by single-term numbers is supported for now.");
-        }
+    // Same terms, in the same order, as multiply; the rows of this number are split across the pool
+    public ArbitraryNumber multiplyParallel(ArbitraryNumber other) {
+        return multiplyParallel(other, ForkJoinPool.commonPool());
+    }
+
+    public ArbitraryNumber multiplyParallel(ArbitraryNumber other, ForkJoinPool pool) {
+        List<TermBlock> left = ParallelTermOps.blocks(this.terms);
+        if (left.isEmpty() || other.terms.isEmpty()) return withTerms(TermSequence.EMPTY);
+        List<TermBlock> right = ParallelTermOps.blocks(other.terms);
+        return withTerms(pool.invoke(new ParallelTermOps.MultiplyTask(left, right, 0, left.size(), 0, right.size())));
+    }
 
-        Term divisor = other.terms.get(0);
-        if (divisor.a.equals(BigInteger.ZERO)) {
-            throw new ArithmeticException("Cannot divide by zero-valued term.");
+    // Identical to evaluateToDecimal(precision, mode), summed by a pairwise reduction tree
+    public BigDecimal evaluateToDecimalParallel(int precision) {
+        return evaluateToDecimalParallel(precision, EvaluationMode.PER_TERM, ForkJoinPool.commonPool());
+    }
+
+    public BigDecimal evaluateToDecimalParallel(int precision, EvaluationMode mode, ForkJoinPool pool) {
+        List<TermBlock> blocks = ParallelTermOps.blocks(terms);
+        if (mode == EvaluationMode.EXACT) {
+            Rational exact = blocks.isEmpty() ? Rational.ZERO : pool.invoke(new ParallelTermOps.ExactSumTask(blocks, 0, blocks.size()));
+            return exact.toBigDecimal(precision, RoundingMode.HALF_UP);
         }
+        if (blocks.isEmpty()) return BigDecimal.ZERO;
+        return pool.invoke(new ParallelTermOps.SumTask(blocks, precision, 0, blocks.size()));
+    }
 
-        ArbitraryNumber result = new ArbitraryNumber();
+    public BigDecimal evaluateToDecimal(int precision, EvaluationMode mode) {
+        return mode == EvaluationMode.EXACT ? evaluateToDecimalExact(precision) : evaluateToDecimal(precision);
+    }
 
-        for (Term t : this.terms) {
-            // (c1 * a1 / b1) / (c2 * a2 / b2)
-            // = (c1 * a1 * b2) / (b1 * c2 * a2)
-            BigInteger newNumerator = t.c.multiply(t.a).multiply(divisor.b);
-            BigInteger newDenominator = t.b.multiply(divisor.c).multiply(divisor.a);
+    // Single rounding step: the result is the exact value rounded HALF_UP to the scale
+    public BigDecimal evaluateToDecimalExact(int precision) {
+        return exactValue().toBigDecimal(precision, RoundingMode.HALF_UP);
+    }
 
-            if (newDenominator.equals(BigInteger.ZERO)) {
-                throw new ArithmeticException("Division by zero during term computation.");
-            }
+    Rational exactValue() {
+        return exactValue(terms.blocks());
+    }
 
-            result.addTerm(BigInteger.ONE, newNumerator, newDenominator);
+    static Rational exactValue(Iterable<TermBlock> blocks) {
+        // Terms sharing a denominator only need their numerators added
+        Map<BigInteger, BigInteger> byDenominator = new HashMap<>();
+        for (TermBlock block : blocks) {
+            for (int i = 0; i < block.size; i++) {
+                byDenominator.merge(block.denominator(i), block.numerator(i), BigInteger::add);
+            }
+        }
+        List<Rational> partials = new ArrayList<>(byDenominator.size());
+        for (Map.Entry<BigInteger, BigInteger> e : byDenominator.entrySet()) {
+            partials.add(Rational.of(e.getValue(), e.getKey()));
         }
+        return exactSum(partials, 0, partials.size());
+    }
 
-        return result;
+    // Divide and conquer keeps both halves' denominators balanced in size, instead of
+    // one ever-growing running denominator multiplied by each small term in turn
+    static Rational exactSum(List<Rational> values, int from, int to) {
+        int count = to - from;
+        if (count == 0) return Rational.ZERO;
+        if (count == 1) return values.get(from);
+        int mid = (from + to) >>> 1;
+        return exactSum(values, from, mid).add(exactSum(values, mid, to));
     }
 
+    public ArbitraryNumber divideBy(ArbitraryNumber other) {
+        if (other.terms.isEmpty()) {
+            throw new ArithmeticException("Cannot divide by zero (empty number).");
+        }
+
+        Term divisor;
+        if (other.terms.size() == 1) {
+            divisor = other.terms.get(0);
+            if (divisor.a.equals(BigInteger.ZERO)) {
+                throw new ArithmeticException("Cannot divide by zero-valued term.");
+            }
+        } else {
+            // Collapse the divisor to one reduced fraction p/q (its denominators are
+            // combined by the balanced merge tree of exactValue), so the quotient keeps
+            // one term per dividend term instead of expanding to n*m terms
+            Rational value = other.exactValue();
+            if (value.signum() == 0) {
+                throw new ArithmeticException("Cannot divide by a number whose terms sum to zero.");
+            }
+            divisor = new Term(BigInteger.ONE, value.num, value.den);
+        }
+
+        TermSequence.Builder quotients = new TermSequence.Builder();
+        for (TermBlock block : this.terms.blocks()) {
+            TermBlock.divideInto(block, divisor, quotients);
+        }
+        return withTerms(quotients.build());
+    }
 
     public String toString() {
         if (terms.isEmpty()) return "0";
         StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < terms.size(); i++) {
-            if (i > 0) sb.append(" + ");
-            sb.append(terms.get(i));
+        for (Term t : terms) {
+            if (sb.length() > 0) sb.append(" + ");
+            sb.append(t);
         }
         return sb.toString();
     }
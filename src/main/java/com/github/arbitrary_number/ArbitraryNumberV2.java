@@ -1,34 +1,171 @@
 package com.github.arbitrary_number;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.math.MathContext;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
 
-public class ArbitraryNumberV2 {
+public class ArbitraryNumberV2 implements ExpressionNode<ArbitraryNumberV2> {
     enum Operation {
         TERM, ADD, SUBTRACT, MULTIPLY, DIVIDE, POWER, LOG
     }
 
-    Operation op;
-    List<ArbitraryNumberV2> children = new ArrayList<>();
-    BigInteger coefficient = BigInteger.ONE;
-    BigInteger numerator = BigInteger.ONE;
-    BigInteger denominator = BigInteger.ONE;
+    final Operation op;
+    final List<ArbitraryNumberV2> children;
+    final BigInteger coefficient;
+    final BigInteger numerator;
+    final BigInteger denominator;
     String variableName;
 
+    // Cached structural hash, 0 until first computed
+    private int hash;
+    // Canonical node from the intern table; every descendant is canonical too
+    private boolean interned;
+
+    private static volatile boolean interning;
+    private static final NodeInterner<ArbitraryNumberV2> INTERNER = new NodeInterner<>(ArbitraryNumberV2::sameShape);
+
+    private static final ConstantFolding<ArbitraryNumberV2> FOLDING = new ConstantFolding<>() {
+        @Override
+        Rational constantValue(ArbitraryNumberV2 n) {
+            return ArbitraryNumberV2.constantValue(n);
+        }
+
+        @Override
+        ArbitraryNumberV2 constant(Rational value) {
+            return ArbitraryNumberV2.constant(value);
+        }
+
+        @Override
+        boolean isSum(ArbitraryNumberV2 n) {
+            return n.op == Operation.ADD;
+        }
+
+        @Override
+        boolean isProduct(ArbitraryNumberV2 n) {
+            return n.op == Operation.MULTIPLY;
+        }
+
+        @Override
+        ArbitraryNumberV2 withOperands(ArbitraryNumberV2 like, ArbitraryNumberV2 left, ArbitraryNumberV2 right) {
+            return node(like.op, left, right);
+        }
+
+        @Override
+        ArbitraryNumberV2 add(ArbitraryNumberV2 a, ArbitraryNumberV2 b) {
+            return ArbitraryNumberV2.add(a, b);
+        }
+
+        @Override
+        ArbitraryNumberV2 sum(List<ArbitraryNumberV2> operands) {
+            return ArbitraryNumberV2.sum(operands);
+        }
+
+        @Override
+        ArbitraryNumberV2 subtract(ArbitraryNumberV2 a, ArbitraryNumberV2 b) {
+            return ArbitraryNumberV2.subtract(a, b);
+        }
+
+        @Override
+        ArbitraryNumberV2 multiply(ArbitraryNumberV2 a, ArbitraryNumberV2 b) {
+            return ArbitraryNumberV2.multiply(a, b);
+        }
+
+        @Override
+        ArbitraryNumberV2 product(List<ArbitraryNumberV2> operands) {
+            return ArbitraryNumberV2.product(operands);
+        }
+
+        @Override
+        ArbitraryNumberV2 divide(ArbitraryNumberV2 a, ArbitraryNumberV2 b) {
+            return ArbitraryNumberV2.divide(a, b);
+        }
+
+        @Override
+        ArbitraryNumberV2 power(ArbitraryNumberV2 base, ArbitraryNumberV2 exp) {
+            return ArbitraryNumberV2.power(base, exp);
+        }
+
+        @Override
+        ArbitraryNumberV2 log(ArbitraryNumberV2 arg) {
+            return ArbitraryNumberV2.log(arg);
+        }
+    };
+
+    /**
+     * Enables or disables hash-consing. While enabled the factory methods return
+     * one shared node per distinct subtree, held weakly, so structurally equal
+     * expressions are the same object and compare in O(1). Canonical nodes are
+     * shared and must not be mutated.
+     */
+    public static void setInterning(boolean enabled) {
+        interning = enabled;
+    }
+
+    public ArbitraryNumberV2() {
+        this(null, new ArrayList<>(), BigInteger.ONE, BigInteger.ONE, BigInteger.ONE);
+    }
+
+    // Every field a node is hashed and compared on is final and set here, so
+    // a node is safely published however it reaches another thread
+    private ArbitraryNumberV2(Operation op, List<ArbitraryNumberV2> children, BigInteger coefficient,
+                              BigInteger numerator, BigInteger denominator) {
+        this.op = op;
+        this.children = children;
+        this.coefficient = coefficient;
+        this.numerator = numerator;
+        this.denominator = denominator;
+    }
+
+    private ArbitraryNumberV2(Operation op, List<ArbitraryNumberV2> children) {
+        this(op, children, BigInteger.ONE, BigInteger.ONE, BigInteger.ONE);
+    }
+
+    public static boolean isInterning() {
+        return interning;
+    }
+
+    static int internedNodeCount() {
+        return INTERNER.size();
+    }
+
+    // Every factory ends here: the hash is computed from the children's cached
+    // hashes, and the node is swapped for its canonical copy when interning
+    private static ArbitraryNumberV2 finish(ArbitraryNumberV2 n) {
+        int h = n.hashCode();
+        if (!interning) return n;
+        for (ArbitraryNumberV2 c : n.children) {
+            if (!c.interned) return n;
+        }
+        // Marked before the table publishes it, so a thread that finds the
+        // node there also sees the flag
+        n.interned = true;
+        return INTERNER.intern(n, h);
+    }
+
     // Factory methods
     public static ArbitraryNumberV2 term(BigInteger coef, BigInteger num, BigInteger denom) {
-        ArbitraryNumberV2 n = new ArbitraryNumberV2();
-        n.op = Operation.TERM;
-        n.coefficient = coef;
-        n.numerator = num;
-        n.denominator = denom;
-        return n;
+        return finish(new ArbitraryNumberV2(Operation.TERM, new ArrayList<>(), coef, num, denom));
     }
 
     public static ArbitraryNumberV2 add(ArbitraryNumberV2 a, ArbitraryNumberV2 b) {
@@ -51,20 +188,40 @@ public class ArbitraryNumberV2 {
         return node(Operation.POWER, base, exp);
     }
 
+    // n-ary sum; operands that are sums themselves are inlined, so a whole
+    // dense-layer row is one node instead of a chain of nested pairs
+    public static ArbitraryNumberV2 sum(List<ArbitraryNumberV2> operands) {
+        return flattened(Operation.ADD, operands, BigInteger.ZERO);
+    }
+
+    // n-ary product, flattened the same way
+    public static ArbitraryNumberV2 product(List<ArbitraryNumberV2> operands) {
+        return flattened(Operation.MULTIPLY, operands, BigInteger.ONE);
+    }
+
+    private static ArbitraryNumberV2 flattened(Operation op, List<ArbitraryNumberV2> operands, BigInteger identity) {
+        List<ArbitraryNumberV2> children = new ArrayList<>();
+        for (ArbitraryNumberV2 c : operands) {
+            if (c.op == op) children.addAll(c.children);
+            else children.add(c);
+        }
+        if (children.isEmpty()) return term(identity, BigInteger.ONE, BigInteger.ONE);
+        if (children.size() == 1) return children.get(0);
+        return finish(new ArbitraryNumberV2(op, children));
+    }
+
     public static ArbitraryNumberV2 log(ArbitraryNumberV2 arg) {
-        ArbitraryNumberV2 n = new ArbitraryNumberV2();
-        n.op = Operation.LOG;
-        n.children.add(arg);
-        return n;
+        List<ArbitraryNumberV2> children = new ArrayList<>();
+        children.add(arg);
+        return finish(new ArbitraryNumberV2(Operation.LOG, children));
     }
 
     public static ArbitraryNumberV2 node(Operation op, ArbitraryNumberV2... nodes) {
-        ArbitraryNumberV2 n = new ArbitraryNumberV2();
-        n.op = op;
+        List<ArbitraryNumberV2> children = new ArrayList<>();
         for (ArbitraryNumberV2 c : nodes) {
-            n.children.add(c);
+            children.add(c);
         }
-        return n;
+        return finish(new ArbitraryNumberV2(op, children));
     }
 
     public static ArbitraryNumberV2 negate(ArbitraryNumberV2 number) {
@@ -90,8 +247,91 @@ public class ArbitraryNumberV2 {
         return log(base, arg);
     }
 
-    // Evaluate to a BigDecimal (approximate)
+    // Evaluate to a BigDecimal (approximate); iterative, each distinct node once
     public BigDecimal evaluate(int precision) {
+        return ExpressionTraversal.evaluate(this, precision);
+    }
+
+    // Memoized evaluation; shared subexpressions are computed once per context
+    public BigDecimal evaluate(int precision, EvaluationContext context) {
+        return context.evaluate(this, precision);
+    }
+
+    // Independent subtrees evaluated on the common pool; the result equals evaluate(int)
+    public BigDecimal evaluateParallel(int precision) {
+        return evaluateParallel(precision, ForkJoinPool.commonPool());
+    }
+
+    public BigDecimal evaluateParallel(int precision, ForkJoinPool pool) {
+        return ParallelEvaluator.evaluate(this, precision, pool);
+    }
+
+    // Enclosure of the value with both ends rounded outward to precision digits
+    public Interval bound(int precision) {
+        return CertifiedComparison.boundOf(this, precision);
+    }
+
+    // Certified sign and ordering: bounds are refined only while they overlap
+    public int signum() {
+        return CertifiedComparison.signumOf(this);
+    }
+
+    public int compareTo(ArbitraryNumberV2 other) {
+        return CertifiedComparison.compareOf(this, other);
+    }
+
+    // Index of the largest value, the first one on a tie
+    public static int argmax(List<ArbitraryNumberV2> values) {
+        return CertifiedComparison.argmaxOf(values);
+    }
+
+    public static ArbitraryNumberV2 max(List<ArbitraryNumberV2> values) {
+        return values.get(CertifiedComparison.argmaxOf(values));
+    }
+
+    @Override
+    public int arity() {
+        return children.size();
+    }
+
+    @Override
+    public ArbitraryNumberV2 child(int index) {
+        return children.get(index);
+    }
+
+    // ln and non-integer powers cost dozens of multiplications; n-ary nodes grow with their arity
+    @Override
+    public int costEstimate() {
+        if (op == null) return ParallelEvaluator.FORK_THRESHOLD;
+        switch (op) {
+            case ADD, SUBTRACT -> {
+                return children.size();
+            }
+            case MULTIPLY -> {
+                return 2 * children.size();
+            }
+            case DIVIDE -> {
+                return 4;
+            }
+            case POWER -> {
+                Rational exponent = constantValue(children.get(1));
+                return exponent != null && exponent.isInteger() ? 8 : 64;
+            }
+            case LOG -> {
+                return 64;
+            }
+            default -> {
+                return 1;
+            }
+        }
+    }
+
+    @Override
+    public BigDecimal evaluateNode(int precision, BigDecimal[] args) {
+        if (op == null) {
+            // Subclasses without an op carry their own evaluate
+            return evaluate(precision);
+        }
         MathContext mc = new MathContext(precision);
         switch (op) {
             case TERM -> {
@@ -100,198 +340,206 @@ public class ArbitraryNumberV2 {
             }
             case ADD -> {
                 BigDecimal sum = BigDecimal.ZERO;
-                for (ArbitraryNumberV2 c : children) sum = sum.add(c.evaluate(precision), mc);
+                for (BigDecimal v : args) sum = sum.add(v, mc);
                 return sum;
             }
             case SUBTRACT -> {
-                return children.get(0).evaluate(precision).subtract(children.get(1).evaluate(precision), mc);
+                return args[0].subtract(args[1], mc);
             }
             case MULTIPLY -> {
                 BigDecimal prod = BigDecimal.ONE;
-                for (ArbitraryNumberV2 c : children) prod = prod.multiply(c.evaluate(precision), mc);
+                for (BigDecimal v : args) prod = prod.multiply(v, mc);
                 return prod;
             }
             case DIVIDE -> {
-                return children.get(0).evaluate(precision).divide(children.get(1).evaluate(precision), mc);
+                return args[0].divide(args[1], mc);
             }
             case POWER -> {
-                BigDecimal base = children.get(0).evaluate(precision);
-                BigDecimal exp = children.get(1).evaluate(precision);
-                return new BigDecimal(Math.pow(base.doubleValue(), exp.doubleValue()), mc);
+                // A constant raised to an integer: exact num^k/den^k, rounded once
+                Rational base = constantValue(children.get(0));
+                Rational exponent = constantValue(children.get(1));
+                if (base != null && exponent != null) {
+                    Rational exact = base.pow(exponent, ConstantFolding.MAX_FOLDED_BITS);
+                    if (exact != null) return exact.toBigDecimal(mc);
+                }
+                return BigDecimalMath.pow(args[0], args[1], mc);
             }
             case LOG -> {
-                BigDecimal arg = children.get(0).evaluate(precision);
-                return new BigDecimal(Math.log(arg.doubleValue()), mc);
+                return BigDecimalMath.ln(args[0], mc);
             }
             default -> throw new UnsupportedOperationException("Unknown op: " + op);
         }
     }
 
-    public ArbitraryNumberV2 simplify() {
+    @Override
+    public Rational evaluateExact(Rational[] args) {
+        if (op == null) return null;
         switch (op) {
             case TERM:
+                return constantValue(this);
             case ADD: {
-                ArbitraryNumberV2 left = children.get(0).simplify();
-                ArbitraryNumberV2 right = children.get(1).simplify();
-                // if left == 0 return right
-                if (isZero(left)) return right;
-                // if right == 0 return left
-                if (isZero(right)) return left;
-                // if both terms are TERM, combine coefficients if possible (optional)
-                return add(left, right);
-            }
-            case SUBTRACT: {
-                ArbitraryNumberV2 left = children.get(0).simplify();
-                ArbitraryNumberV2 right = children.get(1).simplify();
-                if (isZero(right)) return left;
-                return subtract(left, right);
+                Rational sum = Rational.ZERO;
+                for (Rational v : args) sum = sum.add(v);
+                return sum;
             }
+            case SUBTRACT:
+                return args[0].subtract(args[1]);
             case MULTIPLY: {
-                ArbitraryNumberV2 left = children.get(0).simplify();
-                ArbitraryNumberV2 right = children.get(1).simplify();
-                if (isZero(left) || isZero(right)) return term(BigInteger.ZERO, BigInteger.ONE, BigInteger.ONE);
-                if (isOne(left)) return right;
-                if (isOne(right)) return left;
-                return multiply(left, right);
-            }
-            case DIVIDE: {
-                ArbitraryNumberV2 left = children.get(0).simplify();
-                ArbitraryNumberV2 right = children.get(1).simplify();
-                if (isZero(left)) return term(BigInteger.ZERO, BigInteger.ONE, BigInteger.ONE);
-                if (isOne(right)) return left;
-                return divide(left, right);
-            }
-            case POWER: {
-                ArbitraryNumberV2 base = children.get(0).simplify();
-                ArbitraryNumberV2 exp = children.get(1).simplify();
-                if (isZero(exp)) return term(BigInteger.ONE, BigInteger.ONE, BigInteger.ONE);
-                if (isOne(exp)) return base;
-                return power(base, exp);
-            }
-            case LOG: {
-                ArbitraryNumberV2 arg = children.get(0).simplify();
-                return log(arg);
+                Rational product = Rational.ONE;
+                for (Rational v : args) product = product.multiply(v);
+                return product;
             }
+            case DIVIDE:
+                return args[1].signum() == 0 ? null : args[0].divide(args[1]);
+            case POWER:
+                return args[0].pow(args[1], ConstantFolding.MAX_FOLDED_BITS);
             default:
-                return this;
+                return null;
         }
     }
 
-    private boolean isZero(ArbitraryNumberV2 n) {
-        return n.op == Operation.TERM && n.coefficient.equals(BigInteger.ZERO);
-    }
-
-    private boolean isOne(ArbitraryNumberV2 n) {
-        return n.op == Operation.TERM && n.coefficient.equals(BigInteger.ONE) &&
-               n.numerator.equals(BigInteger.ONE) && n.denominator.equals(BigInteger.ONE);
-    }
-
-
-    public ArbitraryNumberV2 differentiate(String variableName) {
+    @Override
+    public Interval boundNode(int precision, Interval[] args) {
+        if (op == null) {
+            // Subclasses without an op are bounded around their own evaluate
+            return Interval.around(evaluate(precision + 2), precision);
+        }
         switch (op) {
             case TERM -> {
-                // Constants have zero derivative
-                return term(BigInteger.ZERO, BigInteger.ONE, BigInteger.ONE);
+                return Interval.of(Rational.of(coefficient, numerator, denominator), precision);
             }
             case ADD -> {
-                return add(children.get(0).differentiate(variableName), children.get(1).differentiate(variableName));
+                Interval sum = Interval.point(BigDecimal.ZERO);
+                for (Interval v : args) sum = sum.add(v, precision);
+                return sum;
             }
             case SUBTRACT -> {
-                return subtract(children.get(0).differentiate(variableName), children.get(1).differentiate(variableName));
+                return args[0].subtract(args[1], precision);
             }
             case MULTIPLY -> {
-                // Product rule: u'v + uv'
-                ArbitraryNumberV2 u = children.get(0);
-                ArbitraryNumberV2 v = children.get(1);
-                return add(
-                        multiply(u.differentiate(variableName), v),
-                        multiply(u, v.differentiate(variableName))
-                );
+                Interval product = Interval.point(BigDecimal.ONE);
+                for (Interval v : args) product = product.multiply(v, precision);
+                return product;
             }
             case DIVIDE -> {
-                // Quotient rule: (u'v - uv') / v²
-                ArbitraryNumberV2 u = children.get(0);
-                ArbitraryNumberV2 v = children.get(1);
-                return divide(
-                        subtract(
-                                multiply(u.differentiate(variableName), v),
-                                multiply(u, v.differentiate(variableName))
-                        ),
-                        power(v, term(BigInteger.valueOf(2), BigInteger.ONE, BigInteger.ONE))
-                );
+                return args[0].divide(args[1], precision);
             }
             case POWER -> {
-                // Assume exponent is constant for now
-                ArbitraryNumberV2 base = children.get(0);
-                ArbitraryNumberV2 exp = children.get(1);
-
-                ArbitraryNumberV2 one = term(BigInteger.ONE, BigInteger.ONE, BigInteger.ONE);
-                ArbitraryNumberV2 expMinusOne = subtract(exp, one);
-                return multiply(
-                        multiply(exp, power(base, expMinusOne)),
-                        base.differentiate(variableName)
-                );
+                return args[0].pow(args[1], precision);
             }
             case LOG -> {
-                ArbitraryNumberV2 u = children.get(0);
-                return divide(u.differentiate(variableName), u);
+                return args[0].ln(precision);
             }
-            default -> throw new UnsupportedOperationException("Differentiation not implemented for op: " + op);
+            default -> throw new UnsupportedOperationException("Unknown op: " + op);
+        }
+    }
+
+    // A logarithm continues from its previous value instead of starting over
+    @Override
+    public BigDecimal refineNode(int precision, BigDecimal[] args, BigDecimal previous, int previousPrecision) {
+        if (op == Operation.LOG) return BigDecimalMath.ln(args[0], new MathContext(precision), previous, previousPrecision);
+        return evaluateNode(precision, args);
+    }
+
+    // One bottom-up pass over the DAG. Any subtree of TERMs joined by
+    // ADD/SUBTRACT/MULTIPLY/DIVIDE or an integer POWER collapses into one
+    // reduced TERM c*(1/d); constant operands of a sum or product are merged
+    // into one, nested sums and products are flattened, and additive zeros
+    // and multiplicative ones are dropped
+    public ArbitraryNumberV2 simplify() {
+        Map<ArbitraryNumberV2, ArbitraryNumberV2> simplified = new IdentityHashMap<>();
+        for (ArbitraryNumberV2 n : ExpressionTraversal.postOrder(this)) {
+            simplified.put(n, n.simplifyNode(simplified));
         }
+        return simplified.get(this);
+    }
+
+    // This node rebuilt over the already simplified children s
+    private ArbitraryNumberV2 simplifyNode(Map<ArbitraryNumberV2, ArbitraryNumberV2> s) {
+        if (op == null) return this;
+        return switch (op) {
+            case ADD, MULTIPLY -> FOLDING.foldNary(this, s);
+            case SUBTRACT -> FOLDING.foldDifference(this, s.get(children.get(0)), s.get(children.get(1)));
+            case DIVIDE -> FOLDING.foldQuotient(this, s.get(children.get(0)), s.get(children.get(1)));
+            case POWER -> FOLDING.foldPower(this, s.get(children.get(0)), s.get(children.get(1)));
+            case LOG -> FOLDING.foldLog(this, s.get(children.get(0)));
+            default -> this;
+        };
+    }
+
+    // Exact value of a TERM, null for any other node
+    private static Rational constantValue(ArbitraryNumberV2 n) {
+        if (n.op != Operation.TERM || n.denominator.signum() == 0) return null;
+        return Rational.of(n.coefficient, n.numerator, n.denominator);
+    }
+
+    private static ArbitraryNumberV2 constant(Rational value) {
+        return term(value.num, BigInteger.ONE, value.den);
+    }
+
+
+    // Derivatives are built children first with an explicit stack; a shared
+    // subexpression is differentiated once and its derivative is shared too,
+    // so the result grows linearly with the size of the DAG
+    public ArbitraryNumberV2 differentiate(String variableName) {
+        return derivative(n -> false);
     }
 
+    // Derivative with respect to inputVar; every node equal to it has derivative 1
     public ArbitraryNumberV2 symbolicGrad(ArbitraryNumberV2 inputVar) {
+        return derivative(inputVar::equals);
+    }
+
+    private ArbitraryNumberV2 derivative(Predicate<ArbitraryNumberV2> isVariable) {
+        Map<ArbitraryNumberV2, ArbitraryNumberV2> derivatives = new IdentityHashMap<>();
+        for (ArbitraryNumberV2 n : ExpressionTraversal.postOrder(this)) {
+            derivatives.put(n, isVariable.test(n) ? constant(Rational.ONE) : n.differentiateNode(derivatives));
+        }
+        return derivatives.get(this);
+    }
+
+    // Derivative of this node given the derivatives d of its children, built
+    // with constructors that fold constants and drop zero terms and unit factors
+    private ArbitraryNumberV2 differentiateNode(Map<ArbitraryNumberV2, ArbitraryNumberV2> d) {
         switch (op) {
             case TERM -> {
-                // Gradient is 1 if this term == inputVar else 0
-                return this.equals(inputVar) ? term(BigInteger.ONE, BigInteger.ONE, BigInteger.ONE)
-                                            : term(BigInteger.ZERO, BigInteger.ONE, BigInteger.ONE);
+                // Constants have zero derivative
+                return constant(Rational.ZERO);
             }
-
             case ADD -> {
-                return add(children.get(0).symbolicGrad(inputVar), children.get(1).symbolicGrad(inputVar));
+                List<ArbitraryNumberV2> terms = new ArrayList<>();
+                for (ArbitraryNumberV2 c : children) terms.add(d.get(c));
+                return FOLDING.plus(terms);
             }
             case SUBTRACT -> {
-                return subtract(children.get(0).symbolicGrad(inputVar), children.get(1).symbolicGrad(inputVar));
+                return FOLDING.minus(d.get(children.get(0)), d.get(children.get(1)));
             }
             case MULTIPLY -> {
-                ArbitraryNumberV2 left = children.get(0);
-                ArbitraryNumberV2 right = children.get(1);
-                ArbitraryNumberV2 leftGrad = left.symbolicGrad(inputVar);
-                ArbitraryNumberV2 rightGrad = right.symbolicGrad(inputVar);
-                return add(multiply(leftGrad, right), multiply(left, rightGrad));
+                return FOLDING.productRule(children, d);
             }
             case DIVIDE -> {
-                ArbitraryNumberV2 left = children.get(0);
-                ArbitraryNumberV2 right = children.get(1);
-                ArbitraryNumberV2 leftGrad = left.symbolicGrad(inputVar);
-                ArbitraryNumberV2 rightGrad = right.symbolicGrad(inputVar);
-                ArbitraryNumberV2 numerator = subtract(multiply(leftGrad, right), multiply(left, rightGrad));
-                ArbitraryNumberV2 denominator = power(right, term(BigInteger.TWO, BigInteger.ONE, BigInteger.ONE));
-                return divide(numerator, denominator);
+                // Quotient rule as (u' - (u/v) v') / v, reusing this quotient
+                ArbitraryNumberV2 u = children.get(0);
+                ArbitraryNumberV2 v = children.get(1);
+                return FOLDING.over(FOLDING.minus(d.get(u), FOLDING.times(this, d.get(v))), v);
             }
             case POWER -> {
                 ArbitraryNumberV2 base = children.get(0);
                 ArbitraryNumberV2 exp = children.get(1);
-                ArbitraryNumberV2 baseGrad = base.symbolicGrad(inputVar);
-                ArbitraryNumberV2 expGrad = exp.symbolicGrad(inputVar);
-
+                ArbitraryNumberV2 baseGrad = d.get(base);
+                ArbitraryNumberV2 expGrad = d.get(exp);
+                if (FOLDING.isZero(expGrad)) {
+                    // g * f^(g-1) * f'
+                    return FOLDING.times(FOLDING.times(exp, FOLDING.raised(base, FOLDING.minus(exp, constant(Rational.ONE)))), baseGrad);
+                }
                 // f^g * (g' * ln(f) + g * f'/f)
-                ArbitraryNumberV2 lnBase = log(base);
-                ArbitraryNumberV2 term1 = multiply(expGrad, lnBase);
-                ArbitraryNumberV2 term2 = multiply(exp, divide(baseGrad, base));
-                ArbitraryNumberV2 inside = add(term1, term2);
-
-                return multiply(this, inside); // this = f^g
+                return FOLDING.times(this, FOLDING.plus(List.of(FOLDING.times(expGrad, log(base)), FOLDING.times(exp, FOLDING.over(baseGrad, base)))));
             }
             case LOG -> {
-                ArbitraryNumberV2 arg = children.get(0);
-                ArbitraryNumberV2 argGrad = arg.symbolicGrad(inputVar);
-                return divide(argGrad, arg);
-            }
-            default -> {
-                throw new UnsupportedOperationException("Grad not supported for op: " + op);
+                ArbitraryNumberV2 u = children.get(0);
+                return FOLDING.over(d.get(u), u);
             }
+            default -> throw new UnsupportedOperationException("Differentiation not implemented for op: " + op);
         }
     }
 
@@ -299,23 +547,56 @@ public class ArbitraryNumberV2 {
     public boolean equals(Object obj) {
         if (this == obj) return true;
         if (obj == null || getClass() != obj.getClass()) return false;
+        return ExpressionTraversal.structurallyEqual(this, (ArbitraryNumberV2) obj, ArbitraryNumberV2::sameLabel);
+    }
 
-        ArbitraryNumberV2 other = (ArbitraryNumberV2) obj;
+    // One pair of nodes, children aside. Two distinct canonical nodes are never
+    // structurally equal, and a hash mismatch rules out equality early.
+    private static boolean sameLabel(ArbitraryNumberV2 x, ArbitraryNumberV2 y) {
+        if (x.getClass() != y.getClass()) return false;
+        if (x.interned && y.interned) return false;
+        if (x.op == null || x.op != y.op) return false;
+        if (x.hashCode() != y.hashCode()) return false;
+        if (x.op == Operation.TERM) {
+            return x.coefficient.equals(y.coefficient) &&
+                   x.numerator.equals(y.numerator) &&
+                   x.denominator.equals(y.denominator);
+        }
+        return x.children.size() == y.children.size();
+    }
 
-        if (this.op != other.op) return false;
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            if (op == null) {
+                // Subclasses without an op only ever equal themselves
+                h = System.identityHashCode(this);
+            } else if (op == Operation.TERM) {
+                h = 31 * (31 * (31 * op.ordinal() + coefficient.hashCode()) + numerator.hashCode()) + denominator.hashCode();
+            } else {
+                h = op.ordinal();
+                for (ArbitraryNumberV2 c : children) h = 31 * h + c.hashCode();
+            }
+            if (h == 0) h = 1;
+            hash = h;
+        }
+        return h;
+    }
 
-        switch (this.op) {
-            case TERM:
-                return this.coefficient.equals(other.coefficient) &&
-                       this.numerator.equals(other.numerator) &&
-                       this.denominator.equals(other.denominator);
-            default:
-                if (this.children.size() != other.children.size()) return false;
-                for (int i = 0; i < this.children.size(); i++) {
-                    if (!this.children.get(i).equals(other.children.get(i))) return false;
-                }
-                return true;
+    // Intern table key comparison: leaf values, and children by identity
+    private static boolean sameShape(ArbitraryNumberV2 x, ArbitraryNumberV2 y) {
+        if (x.op != y.op || x.getClass() != y.getClass()) return false;
+        if (x.op == Operation.TERM) {
+            return x.coefficient.equals(y.coefficient) &&
+                   x.numerator.equals(y.numerator) &&
+                   x.denominator.equals(y.denominator);
+        }
+        if (x.children.size() != y.children.size()) return false;
+        for (int i = 0; i < x.children.size(); i++) {
+            if (x.children.get(i) != y.children.get(i)) return false;
         }
+        return true;
     }
 
     public static ArbitraryNumberV2 exp(ArbitraryNumberV2 exponent) {
@@ -327,40 +608,138 @@ public class ArbitraryNumberV2 {
     }
 
 
-    // ✅ Recursively convert full AST to JSON
+    // Convert full AST to JSON, children first; a shared node maps to one JSONObject
+    // JSONObject.toString recurses per level; writeNestedJson writes deep trees
     public JSONObject toJson() {
-        JSONObject json = new JSONObject();
-
-        json.put("op", op.toString());
-
-        switch (op) {
-            case TERM -> {
-                json.put("coefficient", coefficient.toString());
-                json.put("numerator", numerator.toString());
-                json.put("denominator", denominator.toString());
-            }
-            default -> {
-                JSONArray args = new JSONArray();
-                for (ArbitraryNumberV2 c : children) {
-                    args.put(c.toJson()); // recursive call
+        Map<ArbitraryNumberV2, JSONObject> converted = new IdentityHashMap<>();
+        for (ArbitraryNumberV2 n : ExpressionTraversal.postOrder(this)) {
+            JSONObject json = new JSONObject();
+            json.put("op", n.op.toString());
+
+            switch (n.op) {
+                case TERM -> {
+                    json.put("coefficient", n.coefficient.toString());
+                    json.put("numerator", n.numerator.toString());
+                    json.put("denominator", n.denominator.toString());
+                }
+                default -> {
+                    JSONArray args = new JSONArray();
+                    for (ArbitraryNumberV2 c : n.children) {
+                        args.put(converted.get(c));
+                    }
+                    json.put("args", args);
                 }
-                json.put("args", args);
             }
+            converted.put(n, json);
         }
+        return converted.get(this);
+    }
+
+    /**
+     * Streams the expression as JSON without building a JSONObject tree; every
+     * distinct node is written once and children are referenced by id (see
+     * {@link ExpressionJsonStream}). The writer is flushed, not closed, and is
+     * written in small pieces, so pass a buffered one.
+     */
+    public void writeJson(Writer out) throws IOException {
+        ExpressionJsonStream.write(this, out, "args", ArbitraryNumberV2::writeJsonFields);
+    }
+
+    /**
+     * Streams the same nested document toJson builds, without building it and
+     * without recursing, so it works at any depth where toJson().toString()
+     * overflows the stack. A shared node is written at every use.
+     */
+    public void writeNestedJson(Writer out) throws IOException {
+        ExpressionJsonStream.writeNested(this, out, "args", ArbitraryNumberV2::writeJsonFields);
+    }
+
+    private static void writeJsonFields(ArbitraryNumberV2 n, StringBuilder w) {
+        if (n.op == null) throw new UnsupportedOperationException("No JSON form for " + n.getClass().getName());
+        ExpressionJsonStream.field(w, "op", n.op.name());
+        if (n.op == Operation.TERM) {
+            ExpressionJsonStream.field(w, "coefficient", n.coefficient.toString());
+            ExpressionJsonStream.field(w, "numerator", n.numerator.toString());
+            ExpressionJsonStream.field(w, "denominator", n.denominator.toString());
+        }
+    }
+
+    // UTF-8, buffered; the stream is flushed, not closed
+    public void writeJson(OutputStream out) throws IOException {
+        writeJson(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+    }
 
-        return json;
+    // Reads what writeJson wrote; malformed input throws JSONException
+    public static ArbitraryNumberV2 readJson(Reader in) {
+        return ExpressionJsonStream.read(in, "args", (fields, children) -> {
+            Operation op = Operation.valueOf(ExpressionJsonStream.required(fields, "op"));
+            ExpressionJsonStream.checkArity(op.name(), children.size());
+            if (op == Operation.TERM) {
+                return term(new BigInteger(ExpressionJsonStream.required(fields, "coefficient")),
+                        new BigInteger(ExpressionJsonStream.required(fields, "numerator")),
+                        new BigInteger(ExpressionJsonStream.required(fields, "denominator")));
+            }
+            return node(op, children.toArray(new ArbitraryNumberV2[0]));
+        });
     }
 
+    public static ArbitraryNumberV2 readJson(InputStream in) {
+        return readJson(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+    }
+
+    // Compact binary form; read it back with ExpressionArchive.open or wrap
+    public void writeBinary(OutputStream out) throws IOException {
+        ExpressionArchive.write(this, out);
+    }
+
+    // Appends into one builder from an explicit stack of nodes and literal tokens
     @Override
     public String toString() {
+        StringBuilder sb = new StringBuilder();
+        Deque<Object> pending = new ArrayDeque<>();
+        pending.push(this);
+        while (!pending.isEmpty()) {
+            Object item = pending.pop();
+            if (item instanceof String) {
+                sb.append((String) item);
+                continue;
+            }
+            ArbitraryNumberV2 n = (ArbitraryNumberV2) item;
+            if (n.op == null) {
+                // Subclasses without an op print themselves
+                sb.append(n);
+                continue;
+            }
+            switch (n.op) {
+                case TERM -> sb.append(n.coefficient).append("*(").append(n.numerator).append('/').append(n.denominator).append(')');
+                case LOG -> {
+                    sb.append("log(");
+                    pending.push(")");
+                    pending.push(n.children.get(0));
+                }
+                default -> {
+                    // "(a op b op c)", children pushed last to first
+                    sb.append('(');
+                    pending.push(")");
+                    for (int i = n.children.size() - 1; i > 0; i--) {
+                        pending.push(n.children.get(i));
+                        pending.push(symbol(n.op));
+                    }
+                    pending.push(n.children.get(0));
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String symbol(Operation op) {
         return switch (op) {
-            case TERM -> coefficient + "*(" + numerator + "/" + denominator + ")";
-            case ADD -> "(" + children.get(0) + " + " + children.get(1) + ")";
-            case SUBTRACT -> "(" + children.get(0) + " - " + children.get(1) + ")";
-            case MULTIPLY -> "(" + children.get(0) + " * " + children.get(1) + ")";
-            case DIVIDE -> "(" + children.get(0) + " / " + children.get(1) + ")";
-            case POWER -> "(" + children.get(0) + " ^ " + children.get(1) + ")";
-            case LOG -> "log(" + children.get(0) + ")";
+            case ADD -> " + ";
+            case SUBTRACT -> " - ";
+            case MULTIPLY -> " * ";
+            case DIVIDE -> " / ";
+            case POWER -> " ^ ";
+            default -> throw new IllegalStateException("Not a binary operation: " + op);
         };
     }
 }
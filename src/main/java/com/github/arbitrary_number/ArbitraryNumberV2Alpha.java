@@ -114,8 +114,7 @@ public abstract class ArbitraryNumberV2Alpha {
                         return base.pow(exponent.intValueExact(), mc);
                     } else {
                         // For fractional exponents, use exp(log(base)*exponent)
-                        double val = Math.exp(Math.log(base.doubleValue()) * exponent.doubleValue());
-                        return new BigDecimal(val, mc);
+                        return BigDecimalMath.pow(base, exponent, mc);
                     }
 
                 case LOG:
@@ -125,10 +124,8 @@ public abstract class ArbitraryNumberV2Alpha {
                     if (arg.compareTo(BigDecimal.ZERO) <= 0 || baseLog.compareTo(BigDecimal.ZERO) <= 0) {
                         throw new ArithmeticException("Logarithm of non-positive number");
                     }
-                    double logArg = Math.log(arg.doubleValue());
-                    double logBase = Math.log(baseLog.doubleValue());
-                    double logResult = logArg / logBase;
-                    return new BigDecimal(logResult, mc);
+                    MathContext wide = new MathContext(precision + 10, RoundingMode.HALF_UP);
+                    return BigDecimalMath.ln(arg, wide).divide(BigDecimalMath.ln(baseLog, wide), mc);
 
                 default:
                     throw new IllegalStateException("Unknown operation: " + op);
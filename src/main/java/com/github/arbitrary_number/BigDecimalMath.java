@@ -0,0 +1,257 @@
+package com.github.arbitrary_number;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * exp, ln and real pow on BigDecimal to a requested number of significant
+ * digits. exp reduces its argument by multiples of ln 2 and sums the rest as a
+ * product of short Taylor series over successively longer bit chunks (bit-burst),
+ * each series evaluated by binary splitting, so the cost follows BigInteger
+ * multiplication rather than growing quadratically in the digit count. ln runs
+ * Halley's iteration on exp with the working precision tripled every step.
+ *
+ * ln 2 and e are cached at the highest precision computed so far and rounded
+ * down for smaller requests.
+ */
+final class BigDecimalMath {
+
+    // Digits carried beyond the requested precision through intermediate steps
+    private static final int GUARD_DIGITS = 10;
+    // Width of the first bit-burst chunk; each later chunk is twice as wide
+    private static final int FIRST_CHUNK_BITS = 16;
+    private static final double LOG2_10 = 3.321928094887362;
+    private static final double LN2 = 0.6931471805599453;
+
+    private static volatile CachedConstant ln2;
+    private static volatile CachedConstant e;
+
+    private static final class CachedConstant {
+        final int precision;
+        final BigDecimal value;
+
+        CachedConstant(int precision, BigDecimal value) {
+            this.precision = precision;
+            this.value = value;
+        }
+    }
+
+    private BigDecimalMath() {
+    }
+
+    static BigDecimal exp(BigDecimal x, MathContext mc) {
+        int p = precisionOf(mc);
+        if (x.signum() == 0) return BigDecimal.ONE;
+
+        // Integral arguments come straight from the cached e
+        if (isInteger(x) && x.abs().compareTo(BigDecimal.valueOf(1000)) <= 0) {
+            int n = x.intValueExact();
+            MathContext wmc = new MathContext(p + GUARD_DIGITS + 4);
+            return e(wmc).pow(n, wmc).round(mc);
+        }
+
+        // x = k ln 2 + r with |r| <= ln 2 / 2, so exp(x) = 2^k exp(r)
+        double approx = x.doubleValue() / LN2;
+        if (Double.isNaN(approx) || Math.abs(approx) > Integer.MAX_VALUE / 4) {
+            throw new ArithmeticException("exp argument out of range: " + x);
+        }
+        int k = (int) Math.round(approx);
+        int kDigits = Integer.toString(Math.abs(k)).length();
+        MathContext wmc = new MathContext(p + GUARD_DIGITS + kDigits);
+        BigDecimal r = x.subtract(ln2(wmc).multiply(BigDecimal.valueOf(k)), wmc);
+
+        BigDecimal result = expReduced(r.abs(), wmc);
+        if (r.signum() < 0) result = BigDecimal.ONE.divide(result, wmc);
+        if (k != 0) result = result.multiply(BigDecimal.valueOf(2).pow(k, wmc), wmc);
+        return result.round(mc);
+    }
+
+    static BigDecimal ln(BigDecimal x, MathContext mc) {
+        return ln(x, mc, null, 0);
+    }
+
+    // ln x, continuing the iteration from an approximation of ln x good to about
+    // knownDigits significant digits, so a refinement only pays for the new ones
+    static BigDecimal ln(BigDecimal x, MathContext mc, BigDecimal approximation, int knownDigits) {
+        int p = precisionOf(mc);
+        if (x.signum() <= 0) throw new ArithmeticException("Logarithm of non-positive number: " + x);
+        if (x.compareTo(BigDecimal.ONE) == 0) return BigDecimal.ZERO;
+
+        // x = 2^k y with y near 1, so ln x = ln y + k ln 2
+        BigInteger unscaled = x.unscaledValue();
+        int shift = Math.max(0, unscaled.bitLength() - 60);
+        double log2 = Math.log(unscaled.shiftRight(shift).doubleValue()) / LN2 + shift - x.scale() * LOG2_10;
+        int k = (int) Math.round(log2);
+        BigDecimal y = k >= 0
+                ? x.divide(new BigDecimal(BigInteger.ONE.shiftLeft(k)))
+                : x.multiply(new BigDecimal(BigInteger.ONE.shiftLeft(-k)));
+
+        // ln y is about y - 1; when that is tiny, its leading zeros need digits too
+        int wp = p + GUARD_DIGITS;
+        BigDecimal distance = y.subtract(BigDecimal.ONE);
+        if (distance.signum() != 0) wp += Math.max(0, -(distance.precision() - distance.scale()));
+        y = y.round(new MathContext(wp));
+
+        int kDigits = Integer.toString(Math.abs(k)).length();
+        BigDecimal z = new BigDecimal(Math.log(y.doubleValue()));
+        int digits = 15;
+        if (approximation != null && knownDigits - kDigits - 1 > digits) {
+            // ln y = ln x - k ln 2, good to the digits ln x had less those of k
+            digits = knownDigits - kDigits - 1;
+            MathContext known = new MathContext(knownDigits + kDigits);
+            z = k == 0 ? approximation : approximation.subtract(ln2(known).multiply(BigDecimal.valueOf(k)), known);
+        }
+        while (digits < wp) {
+            digits = Math.min(wp, digits * 3);
+            MathContext step = new MathContext(digits + GUARD_DIGITS);
+            // Halley: z += 2 (y - e^z) / (y + e^z)
+            BigDecimal ez = exp(z, step);
+            z = z.add(BigDecimal.valueOf(2).multiply(y.subtract(ez)).divide(y.add(ez), step), step);
+        }
+        if (k == 0) return z.round(mc);
+        MathContext wmc = new MathContext(wp + kDigits);
+        return z.add(ln2(wmc).multiply(BigDecimal.valueOf(k)), wmc).round(mc);
+    }
+
+    // x^y for real y; exact repeated squaring for integer y, exp(y ln x) otherwise
+    static BigDecimal pow(BigDecimal x, BigDecimal y, MathContext mc) {
+        int p = precisionOf(mc);
+        if (y.signum() == 0) return BigDecimal.ONE;
+        boolean integral = isInteger(y);
+        if (x.signum() == 0) {
+            if (y.signum() < 0) throw new ArithmeticException("Zero raised to a negative power");
+            return BigDecimal.ZERO;
+        }
+        if (integral && y.abs().compareTo(BigDecimal.valueOf(999_999_999)) <= 0) {
+            return x.pow(y.intValueExact(), new MathContext(p + GUARD_DIGITS)).round(mc);
+        }
+        if (x.signum() < 0) {
+            if (!integral) throw new ArithmeticException("Negative base with a non-integer exponent: " + x + "^" + y);
+            BigDecimal magnitude = pow(x.negate(), y, mc);
+            return y.toBigInteger().testBit(0) ? magnitude.negate() : magnitude;
+        }
+        // y ln x has to be right to p digits after its own integer digits
+        BigDecimal estimate = y.multiply(ln(x, MathContext.DECIMAL64));
+        int integerDigits = Math.max(0, estimate.precision() - estimate.scale());
+        MathContext wmc = new MathContext(p + GUARD_DIGITS + integerDigits);
+        return exp(y.multiply(ln(x, wmc), wmc), wmc).round(mc);
+    }
+
+    // Variants rounded HALF_UP to a number of digits after the point, for the
+    // evaluators whose precision is a scale
+    static BigDecimal pow(BigDecimal x, BigDecimal y, int scale) {
+        return atScale(mc -> pow(x, y, mc), scale);
+    }
+
+    static BigDecimal ln(BigDecimal x, int scale) {
+        return atScale(mc -> ln(x, mc), scale);
+    }
+
+    private static BigDecimal atScale(Function<MathContext, BigDecimal> f, int scale) {
+        BigDecimal estimate = f.apply(MathContext.DECIMAL64);
+        if (estimate.signum() == 0) return estimate.setScale(scale, RoundingMode.HALF_UP);
+        int integerDigits = Math.max(0, estimate.precision() - estimate.scale());
+        return f.apply(new MathContext(Math.max(1, scale + integerDigits + 2))).setScale(scale, RoundingMode.HALF_UP);
+    }
+
+    static BigDecimal ln2(MathContext mc) {
+        CachedConstant cached = ln2;
+        if (cached == null || cached.precision < mc.getPrecision()) {
+            int p = precisionOf(mc) + GUARD_DIGITS;
+            // ln 2 = 2 atanh(1/3) = (2/3) sum 1/((2n + 1) 9^n)
+            int terms = (int) (p / Math.log10(9)) + 2;
+            BigInteger nine = BigInteger.valueOf(9);
+            BigInteger[] s = split(n -> BigInteger.valueOf(2L * n - 1), n -> BigInteger.valueOf(2L * n + 1).multiply(nine), 1, terms);
+            MathContext wmc = new MathContext(p);
+            BigDecimal sum = BigDecimal.ONE.add(new BigDecimal(s[2]).divide(new BigDecimal(s[1]), wmc));
+            cached = new CachedConstant(p, sum.multiply(BigDecimal.valueOf(2)).divide(BigDecimal.valueOf(3), wmc));
+            ln2 = cached;
+        }
+        return cached.value.round(mc);
+    }
+
+    static BigDecimal e(MathContext mc) {
+        CachedConstant cached = e;
+        if (cached == null || cached.precision < mc.getPrecision()) {
+            int p = precisionOf(mc) + GUARD_DIGITS;
+            // e = 1 + sum 1/n!
+            int terms = termsFor(0, p * LOG2_10);
+            BigInteger[] s = split(n -> BigInteger.ONE, BigInteger::valueOf, 1, terms + 1);
+            MathContext wmc = new MathContext(p);
+            cached = new CachedConstant(p, BigDecimal.ONE.add(new BigDecimal(s[2]).divide(new BigDecimal(s[1]), wmc)));
+            e = cached;
+        }
+        return cached.value.round(mc);
+    }
+
+    // exp(r) for 0 <= r < 1: r is split into bit chunks r = a1/2^h1 + a2/2^h2 + ...
+    // with chunk widths 16, 16, 32, 64, ... bits; each exp(aj/2^hj) has a short
+    // numerator and few terms because aj/2^hj < 2^-(hj - width)
+    private static BigDecimal expReduced(BigDecimal r, MathContext wmc) {
+        int bits = (int) Math.ceil(wmc.getPrecision() * LOG2_10) + 16;
+        BigInteger fixed = r.multiply(new BigDecimal(BigInteger.ONE.shiftLeft(bits)))
+                .setScale(0, RoundingMode.HALF_EVEN).toBigIntegerExact();
+        BigDecimal result = BigDecimal.ONE;
+        int lo = 0;
+        int hi = FIRST_CHUNK_BITS;
+        while (lo < bits) {
+            hi = Math.min(hi, bits);
+            BigInteger a = fixed.shiftRight(bits - hi).subtract(fixed.shiftRight(bits - lo).shiftLeft(hi - lo));
+            if (a.signum() != 0) {
+                // exp(a / 2^hi) - 1 = sum over n >= 1 of prod_{k <= n} a / (k 2^hi)
+                int shift = hi;
+                int terms = termsFor(a.bitLength() - hi, bits);
+                BigInteger[] s = split(n -> a, n -> BigInteger.valueOf(n).shiftLeft(shift), 1, terms + 1);
+                BigDecimal factor = BigDecimal.ONE.add(new BigDecimal(s[2]).divide(new BigDecimal(s[1]), wmc));
+                result = result.multiply(factor, wmc);
+            }
+            lo = hi;
+            hi *= 2;
+        }
+        return result;
+    }
+
+    // Terms n of sum v^n/n! until the next one is below 2^-bits, where v < 2^log2v
+    private static int termsFor(int log2v, double bits) {
+        double log2Term = 0;
+        int n = 0;
+        while (log2Term > -bits) {
+            n++;
+            log2Term += log2v - Math.log(n) / LN2;
+        }
+        return Math.max(n, 1);
+    }
+
+    /**
+     * Binary splitting of sum_{n1 <= n < n2} prod_{n1 <= k <= n} p(k)/q(k).
+     * Returns {P, Q, T} with P and Q the products of p and q over the range and
+     * T/Q the sum, so the whole series costs a few balanced big multiplications.
+     */
+    private static BigInteger[] split(IntFunction<BigInteger> p, IntFunction<BigInteger> q, int n1, int n2) {
+        if (n2 - n1 == 1) {
+            BigInteger pk = p.apply(n1);
+            return new BigInteger[] {pk, q.apply(n1), pk};
+        }
+        int m = (n1 + n2) >>> 1;
+        BigInteger[] l = split(p, q, n1, m);
+        BigInteger[] r = split(p, q, m, n2);
+        return new BigInteger[] {
+                l[0].multiply(r[0]),
+                l[1].multiply(r[1]),
+                l[2].multiply(r[1]).add(l[0].multiply(r[2]))
+        };
+    }
+
+    private static boolean isInteger(BigDecimal x) {
+        return x.signum() == 0 || x.scale() <= 0 || x.stripTrailingZeros().scale() <= 0;
+    }
+
+    private static int precisionOf(MathContext mc) {
+        if (mc.getPrecision() == 0) throw new ArithmeticException("Unlimited precision is not supported for transcendental functions");
+        return mc.getPrecision();
+    }
+}
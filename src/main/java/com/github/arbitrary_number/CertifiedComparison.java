@@ -0,0 +1,154 @@
+package com.github.arbitrary_number;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Comparisons of expressions decided from interval bounds. Every candidate is
+ * first bounded at {@value #INITIAL_PRECISION} digits; the precision doubles
+ * only while the intervals still overlap, and in argmax only the candidates
+ * that can still win are bounded again. A comparison is certified: the answer
+ * follows from enclosures of the true values, not from rounded estimates.
+ *
+ * Two rational expressions whose bounds overlap are compared exactly. The same
+ * node compares equal at once; with interning enabled that covers any
+ * expression built twice.
+ * Irrational values that still cannot be told apart at {@value #MAX_PRECISION}
+ * digits are reported as equal.
+ */
+final class CertifiedComparison {
+
+    static final int INITIAL_PRECISION = 16;
+    static final int MAX_PRECISION = 1024;
+
+    private CertifiedComparison() {
+    }
+
+    static <N extends ExpressionNode<N>> Interval boundOf(N root, int precision) {
+        Map<N, Interval> bounds = new IdentityHashMap<>();
+        for (N n : ExpressionTraversal.postOrder(root)) {
+            Interval[] args = new Interval[n.arity()];
+            for (int i = 0; i < args.length; i++) args[i] = bounds.get(n.child(i));
+            bounds.put(n, n.boundNode(precision, args));
+        }
+        return bounds.get(root);
+    }
+
+    static <N extends ExpressionNode<N>> int signumOf(N x) {
+        for (int p = INITIAL_PRECISION; ; p *= 2) {
+            Interval b = boundOf(x, p);
+            if (b.isBounded()) {
+                if (b.lower().signum() > 0) return 1;
+                if (b.upper().signum() < 0) return -1;
+                if (b.isPoint()) return 0;
+            }
+            if (p == INITIAL_PRECISION) {
+                Rational exact = exactValue(x);
+                if (exact != null) return exact.signum();
+            }
+            if (p >= MAX_PRECISION) return unresolved(b);
+        }
+    }
+
+    static <N extends ExpressionNode<N>> int compareOf(N a, N b) {
+        if (a == b) return 0;
+        for (int p = INITIAL_PRECISION; ; p *= 2) {
+            Interval x = boundOf(a, p);
+            Interval y = boundOf(b, p);
+            if (x.isBelow(y)) return -1;
+            if (y.isBelow(x)) return 1;
+            if (x.isPoint() && y.isPoint()) return 0;
+            if (p == INITIAL_PRECISION) {
+                Rational ea = exactValue(a);
+                Rational eb = ea == null ? null : exactValue(b);
+                if (eb != null) return ea.subtract(eb).signum();
+            }
+            if (p >= MAX_PRECISION) return unresolved(x) + unresolved(y);
+        }
+    }
+
+    static <N extends ExpressionNode<N>> int argmaxOf(List<N> values) {
+        if (values.isEmpty()) throw new IllegalArgumentException("No values to compare.");
+        // A repeated node cannot beat its first occurrence
+        Map<N, Boolean> seen = new IdentityHashMap<>();
+        List<Integer> contenders = new ArrayList<>();
+        for (int i = 0; i < values.size(); i++) {
+            if (seen.put(values.get(i), Boolean.TRUE) == null) contenders.add(i);
+        }
+        Interval[] bounds = new Interval[values.size()];
+        for (int p = INITIAL_PRECISION; contenders.size() > 1; p *= 2) {
+            BigDecimal best = null;
+            for (int i : contenders) {
+                bounds[i] = boundOf(values.get(i), p);
+                if (bounds[i].isBounded() && (best == null || bounds[i].lower().compareTo(best) > 0)) {
+                    best = bounds[i].lower();
+                }
+            }
+            // Keep whatever could still reach the best lower bound
+            List<Integer> remaining = new ArrayList<>();
+            for (int i : contenders) {
+                if (best == null || !bounds[i].isBounded() || bounds[i].upper().compareTo(best) >= 0) remaining.add(i);
+            }
+            contenders = remaining;
+            if (contenders.size() <= 1 || allPoints(bounds, contenders)) break;
+            if (p == INITIAL_PRECISION) {
+                int exact = exactArgmax(values, contenders);
+                if (exact >= 0) return exact;
+            }
+            if (p >= MAX_PRECISION) {
+                for (int i : contenders) unresolved(bounds[i]);
+                break;
+            }
+        }
+        // Point bounds left over are equal exact values
+        return contenders.get(0);
+    }
+
+    private static boolean allPoints(Interval[] bounds, List<Integer> indexes) {
+        for (int i : indexes) {
+            if (!bounds[i].isPoint()) return false;
+        }
+        return true;
+    }
+
+    // Index of the largest contender when all of them are rational, else -1
+    private static <N extends ExpressionNode<N>> int exactArgmax(List<N> values, List<Integer> contenders) {
+        int winner = -1;
+        Rational best = null;
+        for (int i : contenders) {
+            Rational v = exactValue(values.get(i));
+            if (v == null) return -1;
+            if (best == null || v.subtract(best).signum() > 0) {
+                best = v;
+                winner = i;
+            }
+        }
+        return winner;
+    }
+
+    // Exact value of a rational expression, null when any node is irrational
+    private static <N extends ExpressionNode<N>> Rational exactValue(N root) {
+        Map<N, Rational> exact = new IdentityHashMap<>();
+        for (N n : ExpressionTraversal.postOrder(root)) {
+            Rational[] args = new Rational[n.arity()];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = exact.get(n.child(i));
+                if (args[i] == null) return null;
+            }
+            Rational v = n.evaluateExact(args);
+            if (v == null) return null;
+            exact.put(n, v);
+        }
+        return exact.get(root);
+    }
+
+    // Bounds that still overlap at MAX_PRECISION count as equal, unless one of
+    // them could not be bounded at all
+    private static int unresolved(Interval bound) {
+        if (!bound.isBounded()) throw new ArithmeticException("Cannot bound the value at " + MAX_PRECISION + " digits.");
+        return 0;
+    }
+}
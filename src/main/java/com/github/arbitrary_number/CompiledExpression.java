@@ -0,0 +1,465 @@
+package com.github.arbitrary_number;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link SymbolicExpression} lowered to a flat register program. Every
+ * distinct DAG node gets one register, laid out as constants first, then one
+ * slot per distinct variable name, then one register per instruction in
+ * post-order. Evaluation is a single loop over int arrays, with no tree walk
+ * and no per-node map lookup.
+ *
+ * The double mode matches {@link SymbolicExpression#evaluate(Map)}; the
+ * BigDecimal mode matches {@link SymbolicNode#evaluateSymbolicExpression}.
+ * A program is immutable and may be shared between threads.
+ *
+ * A POWER whose exponent is a TERM with a small integer value becomes
+ * POWER_INT: square-and-multiply in double, exact in BigDecimal.
+ *
+ * Double evaluation is tiered: the first calls run the interpreter loop, and
+ * once a program has been called more than the JIT threshold it is translated
+ * to a hidden class by {@link ExpressionJit} and runs as straight-line bytecode.
+ */
+public final class CompiledExpression {
+
+    static final int ADD = 0;
+    static final int SUBTRACT = 1;
+    static final int MULTIPLY = 2;
+    static final int DIVIDE = 3;
+    static final int POWER = 4;
+    static final int LOG = 5;
+    // x^k for a small integer constant k; its second operand is k itself, not a register
+    static final int POWER_INT = 6;
+
+    // Largest |k| compiled to POWER_INT; the error of square-and-multiply in
+    // double grows with k, so larger exponents stay with Math.pow
+    static final int MAX_INLINE_EXPONENT = 16;
+
+    public static final int DEFAULT_JIT_THRESHOLD = 2000;
+
+    private static volatile int jitThreshold = DEFAULT_JIT_THRESHOLD;
+
+    // Constant registers [0, constantCount): c, n and d of each TERM
+    final BigInteger[] constantNumerators; // c * n
+    final BigInteger[] constantDenominators;
+    final double[] constants;
+
+    // Variable registers [constantCount, constantCount + variables.length)
+    final String[] variables;
+
+    // Instruction i writes register firstResult + i, reading
+    // operands[operandStart[i]] .. operands[operandStart[i + 1] - 1]
+    final int[] opcodes;
+    final int[] operandStart;
+    final int[] operands;
+    final int firstResult;
+    final int resultRegister;
+
+    // Double-mode call count; unsynchronized, it only decides when to promote
+    private int calls;
+    private volatile ExpressionJit.DoubleEvaluator jitted;
+    private volatile boolean jitUnavailable;
+
+    // BigDecimal constants for the most recent precision, computed on demand
+    private volatile DecimalConstants decimalConstants;
+
+    private static final class DecimalConstants {
+        final int precision;
+        final BigDecimal[] values;
+
+        DecimalConstants(int precision, BigDecimal[] values) {
+            this.precision = precision;
+            this.values = values;
+        }
+    }
+
+    private CompiledExpression(BigInteger[] constantNumerators, BigInteger[] constantDenominators, double[] constants,
+                               String[] variables, int[] opcodes, int[] operandStart, int[] operands, int resultRegister) {
+        this.constantNumerators = constantNumerators;
+        this.constantDenominators = constantDenominators;
+        this.constants = constants;
+        this.variables = variables;
+        this.opcodes = opcodes;
+        this.operandStart = operandStart;
+        this.operands = operands;
+        this.firstResult = constants.length + variables.length;
+        this.resultRegister = resultRegister;
+    }
+
+    static CompiledExpression compile(SymbolicExpression root) {
+        List<SymbolicExpression> order = ExpressionTraversal.postOrder(root);
+
+        List<SymbolicExpression> terms = new ArrayList<>();
+        Map<String, Integer> variableSlots = new LinkedHashMap<>();
+        List<SymbolicExpression> operations = new ArrayList<>();
+        for (SymbolicExpression n : order) {
+            switch (n.op) {
+                case TERM -> terms.add(n);
+                case VARIABLE -> variableSlots.putIfAbsent(n.variableName, variableSlots.size());
+                default -> operations.add(n);
+            }
+        }
+
+        int constantCount = terms.size();
+        int firstResult = constantCount + variableSlots.size();
+        Map<SymbolicExpression, Integer> registers = new IdentityHashMap<>();
+        BigInteger[] numerators = new BigInteger[constantCount];
+        BigInteger[] denominators = new BigInteger[constantCount];
+        double[] constants = new double[constantCount];
+        for (int i = 0; i < constantCount; i++) {
+            SymbolicExpression t = terms.get(i);
+            numerators[i] = t.coefficient.multiply(t.numerator);
+            denominators[i] = t.denominator;
+            constants[i] = t.coefficient.doubleValue() * (t.numerator.doubleValue() / t.denominator.doubleValue());
+            registers.put(t, i);
+        }
+        for (SymbolicExpression n : order) {
+            if (n.op == SymbolicExpression.Operation.VARIABLE) registers.put(n, constantCount + variableSlots.get(n.variableName));
+        }
+
+        int[] opcodes = new int[operations.size()];
+        int[] operandStart = new int[operations.size() + 1];
+        int operandCount = 0;
+        for (SymbolicExpression n : operations) operandCount += n.children.size();
+        int[] operands = new int[operandCount];
+        int next = 0;
+        for (int i = 0; i < operations.size(); i++) {
+            SymbolicExpression n = operations.get(i);
+            operandStart[i] = next;
+            Integer k = n.op == SymbolicExpression.Operation.POWER ? smallIntegerExponent(n.children.get(1)) : null;
+            if (k != null) {
+                opcodes[i] = POWER_INT;
+                operands[next++] = registers.get(n.children.get(0));
+                operands[next++] = k;
+            } else {
+                opcodes[i] = opcode(n.op);
+                for (SymbolicExpression c : n.children) operands[next++] = registers.get(c);
+            }
+            registers.put(n, firstResult + i);
+        }
+        operandStart[operations.size()] = next;
+
+        return new CompiledExpression(numerators, denominators, constants,
+                variableSlots.keySet().toArray(new String[0]), opcodes, operandStart, operands, registers.get(root));
+    }
+
+    // k when the exponent is a TERM equal to an integer with |k| <= MAX_INLINE_EXPONENT
+    private static Integer smallIntegerExponent(SymbolicExpression exponent) {
+        if (exponent.op != SymbolicExpression.Operation.TERM || exponent.denominator.signum() == 0) return null;
+        BigInteger[] qr = exponent.coefficient.multiply(exponent.numerator).divideAndRemainder(exponent.denominator);
+        if (qr[1].signum() != 0 || qr[0].abs().compareTo(BigInteger.valueOf(MAX_INLINE_EXPONENT)) > 0) return null;
+        return qr[0].intValue();
+    }
+
+    // x^k by square-and-multiply from the top bit down; ExpressionJit emits the
+    // same multiplications in the same order, so both tiers agree bit for bit
+    static double powInt(double x, int k) {
+        if (k == 0) return 1.0;
+        int n = Math.abs(k);
+        double acc = x;
+        for (int bit = Integer.highestOneBit(n) >>> 1; bit != 0; bit >>>= 1) {
+            acc *= acc;
+            if ((n & bit) != 0) acc *= x;
+        }
+        return k < 0 ? 1.0 / acc : acc;
+    }
+
+    private static int opcode(SymbolicExpression.Operation op) {
+        return switch (op) {
+            case ADD -> ADD;
+            case SUBTRACT -> SUBTRACT;
+            case MULTIPLY -> MULTIPLY;
+            case DIVIDE -> DIVIDE;
+            case POWER -> POWER;
+            case LOG -> LOG;
+            default -> throw new UnsupportedOperationException("Unknown operation: " + op);
+        };
+    }
+
+    // Calls through the double mode before a program is compiled to bytecode;
+    // 0 compiles on the first call and a negative value disables the tier
+    public static void setJitThreshold(int calls) {
+        jitThreshold = calls;
+    }
+
+    public static int getJitThreshold() {
+        return jitThreshold;
+    }
+
+    public boolean isJitCompiled() {
+        return jitted != null;
+    }
+
+    ExpressionJit.DoubleEvaluator jitted() {
+        return jitted;
+    }
+
+    // Variable names in slot order
+    public List<String> variables() {
+        return Collections.unmodifiableList(Arrays.asList(variables));
+    }
+
+    public int slotOf(String variableName) {
+        for (int i = 0; i < variables.length; i++) {
+            if (variables[i].equals(variableName)) return i;
+        }
+        return -1;
+    }
+
+    public int instructionCount() {
+        return opcodes.length;
+    }
+
+    public int registerCount() {
+        return firstResult + opcodes.length;
+    }
+
+    public double evaluate(Map<String, Double> variableValues) {
+        return evaluate(slotValues(variableValues));
+    }
+
+    // Values in slot order; every variable of the program must be present
+    double[] slotValues(Map<String, Double> variableValues) {
+        double[] slots = new double[variables.length];
+        for (int i = 0; i < slots.length; i++) {
+            Double v = variableValues.get(variables[i]);
+            if (v == null) throw new IllegalArgumentException("Variable " + variables[i] + " not found in evaluation map.");
+            slots[i] = v;
+        }
+        return slots;
+    }
+
+    BigDecimal[] decimalSlotValues(Map<String, BigDecimal> variableValues) {
+        BigDecimal[] slots = new BigDecimal[variables.length];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = variableValues.get(variables[i]);
+            if (slots[i] == null) throw new IllegalArgumentException("Variable " + variables[i] + " not provided.");
+        }
+        return slots;
+    }
+
+    // slotValues[i] is the value of variables().get(i)
+    public double evaluate(double[] slotValues) {
+        if (slotValues.length != variables.length) {
+            throw new IllegalArgumentException("Expected " + variables.length + " variable values, got " + slotValues.length);
+        }
+        ExpressionJit.DoubleEvaluator fast = jitted;
+        if (fast != null) return fast.eval(slotValues);
+        if (opcodes.length > 0 && !jitUnavailable) {
+            int threshold = jitThreshold;
+            if (threshold >= 0 && ++calls > threshold && (fast = promote()) != null) return fast.eval(slotValues);
+        }
+        return interpret(slotValues);
+    }
+
+    private synchronized ExpressionJit.DoubleEvaluator promote() {
+        if (jitted == null && !jitUnavailable) {
+            ExpressionJit.DoubleEvaluator generated = ExpressionJit.generate(this);
+            if (generated == null) jitUnavailable = true;
+            else jitted = generated;
+        }
+        return jitted;
+    }
+
+    double interpret(double[] slotValues) {
+        return registers(slotValues)[resultRegister];
+    }
+
+    // Every register after one forward pass; the tape of the reverse sweep
+    double[] registers(double[] slotValues) {
+        double[] r = new double[firstResult + opcodes.length];
+        System.arraycopy(constants, 0, r, 0, constants.length);
+        System.arraycopy(slotValues, 0, r, constants.length, slotValues.length);
+        int[] opcodes = this.opcodes;
+        int[] start = this.operandStart;
+        int[] operands = this.operands;
+        for (int i = 0, out = firstResult; i < opcodes.length; i++, out++) {
+            int s = start[i];
+            switch (opcodes[i]) {
+                case ADD -> {
+                    double sum = r[operands[s]];
+                    for (int k = s + 1; k < start[i + 1]; k++) sum += r[operands[k]];
+                    r[out] = sum;
+                }
+                case SUBTRACT -> r[out] = r[operands[s]] - r[operands[s + 1]];
+                case MULTIPLY -> {
+                    double prod = r[operands[s]];
+                    for (int k = s + 1; k < start[i + 1]; k++) prod *= r[operands[k]];
+                    r[out] = prod;
+                }
+                case DIVIDE -> r[out] = r[operands[s]] / r[operands[s + 1]];
+                case POWER -> r[out] = Math.pow(r[operands[s]], r[operands[s + 1]]);
+                case LOG -> r[out] = Math.log(r[operands[s]]);
+                case POWER_INT -> r[out] = powInt(r[operands[s]], operands[s + 1]);
+                default -> throw new IllegalStateException("Bad opcode: " + opcodes[i]);
+            }
+        }
+        return r;
+    }
+
+    public BigDecimal evaluate(Map<String, BigDecimal> variableValues, int precision) {
+        return evaluate(decimalSlotValues(variableValues), precision);
+    }
+
+    // Constants, quotients, powers and logarithms are rounded HALF_UP to the
+    // scale precision; sums, differences, products and non-negative integer
+    // powers are exact
+    public BigDecimal evaluate(BigDecimal[] slotValues, int precision) {
+        return registers(slotValues, precision)[resultRegister];
+    }
+
+    BigDecimal[] registers(BigDecimal[] slotValues, int precision) {
+        if (slotValues.length != variables.length) {
+            throw new IllegalArgumentException("Expected " + variables.length + " variable values, got " + slotValues.length);
+        }
+        BigDecimal[] r = new BigDecimal[firstResult + opcodes.length];
+        BigDecimal[] constantValues = decimalConstants(precision);
+        System.arraycopy(constantValues, 0, r, 0, constantValues.length);
+        System.arraycopy(slotValues, 0, r, constantValues.length, slotValues.length);
+        for (int i = 0, out = firstResult; i < opcodes.length; i++, out++) {
+            int s = operandStart[i];
+            switch (opcodes[i]) {
+                case ADD -> {
+                    BigDecimal sum = BigDecimal.ZERO;
+                    for (int k = s; k < operandStart[i + 1]; k++) sum = sum.add(r[operands[k]]);
+                    r[out] = sum;
+                }
+                case SUBTRACT -> r[out] = r[operands[s]].subtract(r[operands[s + 1]]);
+                case MULTIPLY -> {
+                    BigDecimal prod = BigDecimal.ONE;
+                    for (int k = s; k < operandStart[i + 1]; k++) prod = prod.multiply(r[operands[k]]);
+                    r[out] = prod;
+                }
+                case DIVIDE -> r[out] = r[operands[s]].divide(r[operands[s + 1]], precision, RoundingMode.HALF_UP);
+                case POWER -> r[out] = BigDecimalMath.pow(r[operands[s]], r[operands[s + 1]], precision);
+                case LOG -> r[out] = BigDecimalMath.ln(r[operands[s]], precision);
+                case POWER_INT -> {
+                    int k = operands[s + 1];
+                    BigDecimal power = r[operands[s]].pow(Math.abs(k));
+                    r[out] = k >= 0 ? power : BigDecimal.ONE.divide(power, precision, RoundingMode.HALF_UP);
+                }
+                default -> throw new IllegalStateException("Bad opcode: " + opcodes[i]);
+            }
+        }
+        return r;
+    }
+
+    /**
+     * Value and every partial derivative in one forward and one reverse pass:
+     * partials[i] receives d value / d variables().get(i). Derivatives follow
+     * the same double arithmetic as {@link #evaluate(double[])}.
+     */
+    public double gradient(double[] slotValues, double[] partials) {
+        if (slotValues.length != variables.length || partials.length != variables.length) {
+            throw new IllegalArgumentException("Expected " + variables.length + " variable values and partials");
+        }
+        return ReverseModeGradient.gradient(this, slotValues, partials);
+    }
+
+    // Partial derivatives by variable name, in slot order
+    public Map<String, Double> gradient(Map<String, Double> variableValues) {
+        double[] slots = slotValues(variableValues);
+        double[] partials = new double[variables.length];
+        gradient(slots, partials);
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (int i = 0; i < variables.length; i++) result.put(variables[i], partials[i]);
+        return result;
+    }
+
+    // BigDecimal partials, rounded like evaluate(BigDecimal[], int): quotients,
+    // powers and logarithms HALF_UP to the scale precision, the rest exact
+    public BigDecimal[] gradient(BigDecimal[] slotValues, int precision) {
+        return ReverseModeGradient.gradient(this, slotValues, precision);
+    }
+
+    public Map<String, BigDecimal> gradient(Map<String, BigDecimal> variableValues, int precision) {
+        BigDecimal[] partials = gradient(decimalSlotValues(variableValues), precision);
+        Map<String, BigDecimal> result = new LinkedHashMap<>();
+        for (int i = 0; i < variables.length; i++) result.put(variables[i], partials[i]);
+        return result;
+    }
+
+    /**
+     * Value and directional derivative in one forward pass over dual numbers:
+     * returns {value, sum over i of d value / d variables().get(i) * direction[i]}.
+     * No derivative expression is built.
+     */
+    public double[] derivative(double[] slotValues, double[] direction) {
+        double[] derivative = new double[1];
+        double value = derivatives(slotValues, new double[][] {direction}, derivative);
+        return new double[] {value, derivative[0]};
+    }
+
+    // Several directional derivatives in the same pass: derivatives[j] receives
+    // the derivative along directions[j]; returns the value
+    public double derivatives(double[] slotValues, double[][] directions, double[] derivatives) {
+        if (slotValues.length != variables.length || derivatives.length != directions.length) {
+            throw new IllegalArgumentException("Expected " + variables.length + " variable values and one derivative per direction");
+        }
+        int k = directions.length;
+        double[] seeds = new double[variables.length * k];
+        for (int j = 0; j < k; j++) {
+            if (directions[j].length != variables.length) {
+                throw new IllegalArgumentException("Expected " + variables.length + " components in direction " + j);
+            }
+            for (int i = 0; i < variables.length; i++) seeds[i * k + j] = directions[j][i];
+        }
+        return ForwardModeDerivative.evaluate(this, slotValues, seeds, k, derivatives);
+    }
+
+    // {value, directional derivative}, rounded like evaluate(BigDecimal[], int)
+    public BigDecimal[] derivative(BigDecimal[] slotValues, BigDecimal[] direction, int precision) {
+        if (slotValues.length != variables.length || direction.length != variables.length) {
+            throw new IllegalArgumentException("Expected " + variables.length + " variable values and direction components");
+        }
+        return ForwardModeDerivative.evaluate(this, slotValues, direction, precision);
+    }
+
+    /**
+     * Gradient and Hessian-vector product in one forward-over-reverse pass:
+     * gradient[i] receives d value / d variables().get(i) and hv[i] the i-th
+     * component of H direction. Returns the value.
+     */
+    public double hessianVectorProduct(double[] slotValues, double[] direction, double[] gradient, double[] hv) {
+        if (slotValues.length != variables.length || direction.length != variables.length
+                || gradient.length != variables.length || hv.length != variables.length) {
+            throw new IllegalArgumentException("Expected " + variables.length + " components in every argument");
+        }
+        return HessianVectorProduct.evaluate(this, slotValues, direction, gradient, hv);
+    }
+
+    // Derivatives of s -> f(x + s direction) at s = 0, of order 0 through order
+    public double[] higherDerivatives(double[] slotValues, double[] direction, int order) {
+        if (slotValues.length != variables.length || direction.length != variables.length) {
+            throw new IllegalArgumentException("Expected " + variables.length + " variable values and direction components");
+        }
+        if (order < 0) throw new IllegalArgumentException("Negative derivative order: " + order);
+        double[] derivatives = TaylorDerivatives.coefficients(this, slotValues, direction, order);
+        double factorial = 1.0;
+        for (int m = 2; m <= order; m++) {
+            factorial *= m;
+            derivatives[m] *= factorial;
+        }
+        return derivatives;
+    }
+
+    BigDecimal[] decimalConstants(int precision) {
+        DecimalConstants cached = decimalConstants;
+        if (cached != null && cached.precision == precision) return cached.values;
+        BigDecimal[] values = new BigDecimal[constantNumerators.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = new BigDecimal(constantNumerators[i]).divide(new BigDecimal(constantDenominators[i]), precision, RoundingMode.HALF_UP);
+        }
+        decimalConstants = new DecimalConstants(precision, values);
+        return values;
+    }
+}
@@ -0,0 +1,217 @@
+package com.github.arbitrary_number;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exact constant folding shared by {@link ArbitraryNumberV2} and
+ * {@link SymbolicExpression}. The rules look only at the Rational values of
+ * TERM operands; each node type says how to read a TERM and how to build its
+ * nodes. A rule returns the node it was given when nothing changes, so an
+ * unchanged subtree keeps its identity. The smart constructors used by
+ * differentiation fold the same way as they build.
+ */
+abstract class ConstantFolding<N extends ExpressionNode<N>> {
+
+    // Integer powers of constants are folded only up to this result size
+    static final int MAX_FOLDED_BITS = 1 << 16;
+
+    // Exact value of a TERM, null for any other node
+    abstract Rational constantValue(N n);
+
+    abstract N constant(Rational value);
+
+    abstract boolean isSum(N n);
+
+    abstract boolean isProduct(N n);
+
+    // A node with the operation of like over new operands
+    abstract N withOperands(N like, N left, N right);
+
+    abstract N add(N a, N b);
+
+    abstract N sum(List<N> operands);
+
+    abstract N subtract(N a, N b);
+
+    abstract N multiply(N a, N b);
+
+    abstract N product(List<N> operands);
+
+    abstract N divide(N a, N b);
+
+    abstract N power(N base, N exp);
+
+    abstract N log(N arg);
+
+    N foldDifference(N node, N left, N right) {
+        Rational a = constantValue(left);
+        Rational b = constantValue(right);
+        if (a != null && b != null) return constant(a.subtract(b));
+        if (b != null && b.signum() == 0) return left;
+        return rebuilt(node, left, right);
+    }
+
+    N foldQuotient(N node, N left, N right) {
+        Rational a = constantValue(left);
+        Rational b = constantValue(right);
+        // A constant zero divisor is left for evaluation to report
+        if (b != null && b.signum() == 0) return rebuilt(node, left, right);
+        if (a != null && b != null) return constant(a.divide(b));
+        if (a != null && a.signum() == 0) return constant(Rational.ZERO);
+        if (b != null && b.equals(Rational.ONE)) return left;
+        return rebuilt(node, left, right);
+    }
+
+    N foldPower(N node, N base, N exp) {
+        Rational a = constantValue(base);
+        Rational b = constantValue(exp);
+        if (b != null && b.signum() == 0) return constant(Rational.ONE);
+        if (b != null && b.equals(Rational.ONE)) return base;
+        if (a != null && b != null) {
+            Rational folded = a.pow(b, MAX_FOLDED_BITS);
+            if (folded != null) return constant(folded);
+        }
+        return rebuilt(node, base, exp);
+    }
+
+    N foldLog(N node, N arg) {
+        Rational a = constantValue(arg);
+        if (a != null && a.equals(Rational.ONE)) return constant(Rational.ZERO);
+        return arg == node.child(0) ? node : log(arg);
+    }
+
+    // ADD or MULTIPLY over the simplified children s: flatten, merge the
+    // constant operands into one at the position of the first, and drop it
+    // when it is the identity
+    N foldNary(N node, Map<N, N> s) {
+        boolean sum = isSum(node);
+        Rational identity = sum ? Rational.ZERO : Rational.ONE;
+        List<N> operands = new ArrayList<>();
+        Rational folded = identity;
+        N onlyConstant = null;
+        int constants = 0;
+        int constantAt = -1;
+        boolean changed = false;
+        for (int i = 0; i < node.arity(); i++) {
+            N c = node.child(i);
+            N sc = s.get(c);
+            changed |= sc != c;
+            boolean flatten = sum ? isSum(sc) : isProduct(sc);
+            changed |= flatten;
+            int parts = flatten ? sc.arity() : 1;
+            for (int j = 0; j < parts; j++) {
+                N part = flatten ? sc.child(j) : sc;
+                Rational value = constantValue(part);
+                if (value == null) {
+                    operands.add(part);
+                    continue;
+                }
+                if (constants++ == 0) {
+                    constantAt = operands.size();
+                    onlyConstant = part;
+                }
+                folded = sum ? folded.add(value) : folded.multiply(value);
+            }
+        }
+        if (!sum && constants > 0 && folded.signum() == 0) return constant(Rational.ZERO);
+        if (operands.isEmpty()) return constants == 1 ? onlyConstant : constant(folded);
+        if (constants > 0 && !folded.equals(identity)) {
+            operands.add(constantAt, constants == 1 ? onlyConstant : constant(folded));
+        }
+        if (!changed && operands.size() == node.arity()) return node;
+        if (operands.size() == 1) return operands.get(0);
+        if (operands.size() == 2) {
+            return sum ? add(operands.get(0), operands.get(1)) : multiply(operands.get(0), operands.get(1));
+        }
+        return sum ? sum(operands) : product(operands);
+    }
+
+    // The same binary operation over new operands, or node if they are unchanged
+    private N rebuilt(N node, N left, N right) {
+        if (left == node.child(0) && right == node.child(1)) return node;
+        return withOperands(node, left, right);
+    }
+
+    // (f1 * ... * fn)' = sum over i of (f1 ... f(i-1)) * fi' * (f(i+1) ... fn), with
+    // the prefix and suffix products shared between the terms
+    N productRule(List<N> factors, Map<N, N> d) {
+        int n = factors.size();
+        boolean constant = true;
+        for (N f : factors) constant &= isZero(d.get(f));
+        if (constant) return constant(Rational.ZERO);
+
+        List<N> suffix = new ArrayList<>(Collections.nCopies(n + 1, (N) null));
+        suffix.set(n, constant(Rational.ONE));
+        for (int i = n - 1; i > 0; i--) suffix.set(i, times(factors.get(i), suffix.get(i + 1)));
+        List<N> terms = new ArrayList<>();
+        N prefix = constant(Rational.ONE);
+        for (int i = 0; i < n; i++) {
+            N derivative = d.get(factors.get(i));
+            if (!isZero(derivative)) terms.add(times(times(prefix, derivative), suffix.get(i + 1)));
+            if (i < n - 1) prefix = times(prefix, factors.get(i));
+        }
+        return plus(terms);
+    }
+
+    boolean isZero(N n) {
+        Rational value = constantValue(n);
+        return value != null && value.signum() == 0;
+    }
+
+    // Sum without zero terms; all-constant sums are folded
+    N plus(List<N> terms) {
+        List<N> kept = new ArrayList<>();
+        Rational folded = Rational.ZERO;
+        boolean allConstant = true;
+        for (N t : terms) {
+            if (isZero(t)) continue;
+            kept.add(t);
+            Rational value = constantValue(t);
+            if (value == null) allConstant = false;
+            else if (allConstant) folded = folded.add(value);
+        }
+        if (kept.size() == 1) return kept.get(0);
+        if (allConstant) return constant(folded);
+        return kept.size() == 2 ? add(kept.get(0), kept.get(1)) : sum(kept);
+    }
+
+    N minus(N a, N b) {
+        Rational x = constantValue(a);
+        Rational y = constantValue(b);
+        if (x != null && y != null) return constant(x.subtract(y));
+        if (y != null && y.signum() == 0) return a;
+        if (x != null && x.signum() == 0) return times(constant(Rational.ONE.negate()), b);
+        return subtract(a, b);
+    }
+
+    N times(N a, N b) {
+        Rational x = constantValue(a);
+        Rational y = constantValue(b);
+        if (x != null && y != null) return constant(x.multiply(y));
+        if (x != null && x.signum() == 0 || y != null && y.signum() == 0) return constant(Rational.ZERO);
+        if (x != null && x.equals(Rational.ONE)) return b;
+        if (y != null && y.equals(Rational.ONE)) return a;
+        return multiply(a, b);
+    }
+
+    // A constant zero divisor is kept for evaluation to report
+    N over(N a, N b) {
+        Rational x = constantValue(a);
+        Rational y = constantValue(b);
+        if (y != null && y.signum() == 0) return divide(a, b);
+        if (x != null && y != null) return constant(x.divide(y));
+        if (x != null && x.signum() == 0) return constant(Rational.ZERO);
+        if (y != null && y.equals(Rational.ONE)) return a;
+        return divide(a, b);
+    }
+
+    N raised(N base, N exp) {
+        Rational y = constantValue(exp);
+        if (y != null && y.signum() == 0) return constant(Rational.ONE);
+        if (y != null && y.equals(Rational.ONE)) return base;
+        return power(base, exp);
+    }
+}
@@ -0,0 +1,163 @@
+package com.github.arbitrary_number;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded memo table for {@link ArbitraryNumberV2#evaluate(int, EvaluationContext)}
+ * and {@link SymbolicExpression#evaluate(int, EvaluationContext)}.
+ *
+ * Results are keyed by node identity (with interning enabled, equal subtrees are
+ * one node) and remember the highest precision they were computed at. A request
+ * at a lower precision is answered by rounding the cached value, so it may be
+ * more accurate in the last digit than a fresh evaluate(int). Least recently used
+ * nodes are evicted once maxEntries is reached. A context can be shared by
+ * concurrent callers.
+ */
+public final class EvaluationContext {
+
+    public static final int DEFAULT_MAX_ENTRIES = 4096;
+
+    private static final class Entry {
+        final int precision;
+        final BigDecimal value;
+
+        Entry(int precision, BigDecimal value) {
+            this.precision = precision;
+            this.value = value;
+        }
+    }
+
+    // Wraps a node so the map compares by identity, not by structural equals
+    private static final class NodeKey {
+        final Object node;
+
+        NodeKey(Object node) {
+            this.node = node;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof NodeKey && ((NodeKey) obj).node == node;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(node);
+        }
+    }
+
+    private final int maxEntries;
+    private final Map<NodeKey, Entry> cache;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public EvaluationContext() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    public EvaluationContext(int maxEntries) {
+        if (maxEntries <= 0) throw new IllegalArgumentException("maxEntries must be positive.");
+        this.maxEntries = maxEntries;
+        this.cache = new LinkedHashMap<NodeKey, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<NodeKey, Entry> eldest) {
+                return size() > EvaluationContext.this.maxEntries;
+            }
+        };
+    }
+
+    public BigDecimal evaluate(ArbitraryNumberV2 node, int precision) {
+        return evaluateNode(node, precision);
+    }
+
+    public BigDecimal evaluate(SymbolicExpression node, int precision) {
+        return evaluateNode(node, precision);
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    public synchronized void clear() {
+        cache.clear();
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    // Post-order walk with an explicit stack. Values of this walk are also kept
+    // locally, so an entry evicted mid-walk is not recomputed.
+    private <N extends ExpressionNode<N>> BigDecimal evaluateNode(N root, int precision) {
+        if (precision <= 0) throw new IllegalArgumentException("Precision must be positive.");
+        BigDecimal cached = lookup(root, precision);
+        if (cached != null) return cached;
+
+        Map<N, BigDecimal> values = new IdentityHashMap<>();
+        Map<N, Boolean> expanded = new IdentityHashMap<>();
+        Deque<N> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            N node = stack.peek();
+            if (values.containsKey(node)) {
+                stack.pop();
+                continue;
+            }
+            if (expanded.put(node, Boolean.TRUE) == null) {
+                BigDecimal hit = node == root ? null : lookup(node, precision);
+                if (hit != null) {
+                    values.put(node, hit);
+                    stack.pop();
+                    continue;
+                }
+                boolean ready = true;
+                for (int i = node.arity() - 1; i >= 0; i--) {
+                    N c = node.child(i);
+                    if (!values.containsKey(c)) {
+                        stack.push(c);
+                        ready = false;
+                    }
+                }
+                if (!ready) continue;
+            }
+            stack.pop();
+            BigDecimal[] args = new BigDecimal[node.arity()];
+            for (int i = 0; i < args.length; i++) args[i] = values.get(node.child(i));
+            BigDecimal value = node.evaluateNode(precision, args);
+            values.put(node, value);
+            store(node, precision, value);
+        }
+        return values.get(root);
+    }
+
+    private synchronized BigDecimal lookup(Object node, int precision) {
+        Entry e = cache.get(new NodeKey(node));
+        if (e == null || e.precision < precision) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return e.precision == precision ? e.value : e.value.round(new MathContext(precision));
+    }
+
+    private synchronized void store(Object node, int precision, BigDecimal value) {
+        NodeKey key = new NodeKey(node);
+        Entry e = cache.get(key);
+        if (e == null || e.precision < precision) cache.put(key, new Entry(precision, value));
+    }
+}
@@ -0,0 +1,427 @@
+package com.github.arbitrary_number;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Versioned binary archive of one {@link ArbitraryNumberV2} or
+ * {@link SymbolicExpression} DAG, read lazily from a (usually memory-mapped)
+ * buffer. Layout, big-endian:
+ *
+ * <pre>
+ * 0   magic "ANXB", version byte, kind byte, two reserved bytes
+ * 8   string count, node count, string data length (int32 each)
+ * 20  string offsets, then node offsets (int32 each, relative to their data)
+ *     string data: varint UTF-8 length, bytes
+ *     node data:   op byte, then
+ *                  TERM      coefficient, numerator, denominator as varint BigIntegers
+ *                  VARIABLE  varint index into the string table
+ *                  otherwise varint arity, one varint (id - child id) per child
+ * </pre>
+ *
+ * Nodes are stored once each, children before parents, and refer to their
+ * children by id, so shared subexpressions are written once; the root is the
+ * last node. A BigInteger below 2^61 in magnitude is a zig-zag varint shifted
+ * left one bit; a larger one is a varint (byte length * 2 + 1) followed by its
+ * two's-complement bytes.
+ *
+ * Opening reads only the header. Operations, arities and children can be
+ * inspected without building nodes, and asking for a node builds just its
+ * subtree, keeping what was built for later requests.
+ */
+public final class ExpressionArchive {
+
+    public static final int VERSION = 1;
+
+    private static final byte[] MAGIC = {'A', 'N', 'X', 'B'};
+    private static final int HEADER_BYTES = 20;
+    private static final byte ARBITRARY_NUMBER = 1;
+    private static final byte SYMBOLIC = 2;
+    // Op byte values; fixed by the format, independent of enum order
+    private static final String[] OPERATIONS = {"TERM", "ADD", "SUBTRACT", "MULTIPLY", "DIVIDE", "POWER", "LOG", "VARIABLE"};
+    private static final Map<String, Integer> OPERATION_CODES = new HashMap<>();
+    private static final int TERM = 0;
+    private static final int VARIABLE = 7;
+
+    static {
+        for (int i = 0; i < OPERATIONS.length; i++) OPERATION_CODES.put(OPERATIONS[i], i);
+    }
+
+    private final ByteBuffer buffer;
+    private final byte kind;
+    private final int stringCount;
+    private final int nodeCount;
+    private final int stringOffsets;
+    private final int nodeOffsets;
+    private final int stringData;
+    private final int nodeData;
+
+    // Built nodes by id, allocated on first use
+    private Object[] built;
+    private int builtCount;
+
+    private ExpressionArchive(ByteBuffer bytes) {
+        buffer = bytes.duplicate();
+        if (buffer.limit() < HEADER_BYTES) throw new IllegalArgumentException("Not an expression archive: too short");
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (buffer.get(i) != MAGIC[i]) throw new IllegalArgumentException("Not an expression archive");
+        }
+        if (buffer.get(4) != VERSION) throw new IllegalArgumentException("Unsupported archive version " + buffer.get(4));
+        kind = buffer.get(5);
+        if (kind != ARBITRARY_NUMBER && kind != SYMBOLIC) throw new IllegalArgumentException("Unknown archive kind " + kind);
+        stringCount = buffer.getInt(8);
+        nodeCount = buffer.getInt(12);
+        int stringBytes = buffer.getInt(16);
+        // In long arithmetic so that huge counts cannot wrap around into range
+        long tables = HEADER_BYTES + 4L * stringCount + 4L * nodeCount;
+        if (stringCount < 0 || nodeCount <= 0 || stringBytes < 0 || tables + stringBytes >= buffer.limit()) {
+            throw new IllegalArgumentException("Corrupt archive header");
+        }
+        stringOffsets = HEADER_BYTES;
+        nodeOffsets = stringOffsets + 4 * stringCount;
+        stringData = nodeOffsets + 4 * nodeCount;
+        nodeData = stringData + stringBytes;
+    }
+
+    // Maps the file read-only; the mapping stays valid after the channel is closed
+    public static ExpressionArchive open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new ExpressionArchive(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public static ExpressionArchive wrap(ByteBuffer bytes) {
+        return new ExpressionArchive(bytes);
+    }
+
+    public static void write(ArbitraryNumberV2 root, OutputStream out) throws IOException {
+        write(root, ARBITRARY_NUMBER, out);
+    }
+
+    public static void write(SymbolicExpression root, OutputStream out) throws IOException {
+        write(root, SYMBOLIC, out);
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    public boolean isSymbolic() {
+        return kind == SYMBOLIC;
+    }
+
+    // Id of the root, the last node
+    public int root() {
+        return nodeCount - 1;
+    }
+
+    // Nodes built so far by arbitraryNumber or symbolic
+    public synchronized int builtCount() {
+        return builtCount;
+    }
+
+    public String operation(int id) {
+        return OPERATIONS[opcode(id)];
+    }
+
+    public int arity(int id) {
+        int op = opcode(id);
+        if (op == TERM || op == VARIABLE) return 0;
+        return new Cursor(nodeOffset(id) + 1).length();
+    }
+
+    public int child(int id, int index) {
+        int arity = arity(id);
+        if (index < 0 || index >= arity) throw new IndexOutOfBoundsException("Child " + index + " of " + arity);
+        Cursor cursor = new Cursor(nodeOffset(id) + 1);
+        cursor.varint();
+        for (int i = 0; i < index; i++) cursor.varint();
+        return childId(id, cursor.varint());
+    }
+
+    public ArbitraryNumberV2 arbitraryNumber() {
+        return arbitraryNumber(root());
+    }
+
+    public synchronized ArbitraryNumberV2 arbitraryNumber(int id) {
+        if (kind != ARBITRARY_NUMBER) throw new IllegalStateException("Archive holds a SymbolicExpression");
+        return build(id, new Builder<ArbitraryNumberV2>() {
+            @Override
+            public ArbitraryNumberV2 term(BigInteger c, BigInteger a, BigInteger b) {
+                return ArbitraryNumberV2.term(c, a, b);
+            }
+
+            @Override
+            public ArbitraryNumberV2 variable(String name) {
+                throw new IllegalArgumentException("ArbitraryNumberV2 has no variables");
+            }
+
+            @Override
+            public ArbitraryNumberV2 node(String op, List<ArbitraryNumberV2> children) {
+                return ArbitraryNumberV2.node(ArbitraryNumberV2.Operation.valueOf(op), children.toArray(new ArbitraryNumberV2[0]));
+            }
+        });
+    }
+
+    public SymbolicExpression symbolic() {
+        return symbolic(root());
+    }
+
+    public synchronized SymbolicExpression symbolic(int id) {
+        if (kind != SYMBOLIC) throw new IllegalStateException("Archive holds an ArbitraryNumberV2");
+        return build(id, new Builder<SymbolicExpression>() {
+            @Override
+            public SymbolicExpression term(BigInteger c, BigInteger a, BigInteger b) {
+                return SymbolicExpression.term(c, a, b);
+            }
+
+            @Override
+            public SymbolicExpression variable(String name) {
+                return SymbolicExpression.variable(name);
+            }
+
+            @Override
+            public SymbolicExpression node(String op, List<SymbolicExpression> children) {
+                return SymbolicExpression.node(SymbolicExpression.Operation.valueOf(op), children.toArray(new SymbolicExpression[0]));
+            }
+        });
+    }
+
+    private interface Builder<N> {
+        N term(BigInteger c, BigInteger a, BigInteger b);
+
+        N variable(String name);
+
+        N node(String op, List<N> children);
+    }
+
+    // Builds id's subtree children first with an explicit stack, skipping nodes already built
+    @SuppressWarnings("unchecked")
+    private <N> N build(int id, Builder<N> builder) {
+        checkId(id);
+        if (built == null) built = new Object[nodeCount];
+        Deque<Integer> pending = new ArrayDeque<>();
+        pending.push(id);
+        while (!pending.isEmpty()) {
+            int n = pending.peek();
+            if (built[n] != null) {
+                pending.pop();
+                continue;
+            }
+            Cursor cursor = new Cursor(nodeOffset(n));
+            int op = cursor.u8();
+            Object node;
+            if (op == TERM) {
+                node = builder.term(cursor.bigInteger(), cursor.bigInteger(), cursor.bigInteger());
+            } else if (op == VARIABLE) {
+                node = builder.variable(string(cursor.varint()));
+            } else {
+                int arity = cursor.length();
+                try {
+                    ExpressionJsonStream.checkArity(OPERATIONS[op], arity);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Node " + n + ": " + e.getMessage());
+                }
+                List<N> children = new ArrayList<>(arity);
+                boolean ready = true;
+                for (int i = 0; i < arity; i++) {
+                    int child = childId(n, cursor.varint());
+                    if (built[child] == null) {
+                        pending.push(child);
+                        ready = false;
+                    } else if (ready) {
+                        children.add((N) built[child]);
+                    }
+                }
+                if (!ready) continue;
+                node = builder.node(OPERATIONS[op], children);
+            }
+            built[n] = node;
+            builtCount++;
+            pending.pop();
+        }
+        return (N) built[id];
+    }
+
+    private String string(long index) {
+        if (index < 0 || index >= stringCount) throw new IllegalArgumentException("No string " + index);
+        int offset = buffer.getInt(stringOffsets + 4 * (int) index);
+        if (offset < 0 || offset >= nodeData - stringData) throw new IllegalArgumentException("String " + index + " is outside the string data");
+        Cursor cursor = new Cursor(stringData + offset);
+        byte[] bytes = new byte[cursor.length()];
+        buffer.get(cursor.position, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int opcode(int id) {
+        int op = buffer.get(nodeOffset(id)) & 0xff;
+        if (op >= OPERATIONS.length) throw new IllegalArgumentException("Node " + id + " has unknown op " + op);
+        return op;
+    }
+
+    private int nodeOffset(int id) {
+        checkId(id);
+        int offset = buffer.getInt(nodeOffsets + 4 * id);
+        if (offset < 0 || offset >= buffer.limit() - nodeData) throw new IllegalArgumentException("Node " + id + " is outside the node data");
+        return nodeData + offset;
+    }
+
+    // Children are stored as id - child id, which must point at an earlier node
+    private static int childId(int id, long back) {
+        if (back <= 0 || back > id) throw new IllegalArgumentException("Node " + id + " has a bad child reference");
+        return id - (int) back;
+    }
+
+    private void checkId(int id) {
+        if (id < 0 || id >= nodeCount) throw new IndexOutOfBoundsException("Node " + id + " of " + nodeCount);
+    }
+
+    // Reads varints forward from an absolute position without moving the buffer
+    private final class Cursor {
+        int position;
+
+        Cursor(int position) {
+            this.position = position;
+        }
+
+        int u8() {
+            if (position >= buffer.limit()) throw new IllegalArgumentException("Archive is truncated");
+            return buffer.get(position++) & 0xff;
+        }
+
+        // A count of the bytes or varints that follow, each at least one byte,
+        // checked against what is left before anything is allocated for it
+        int length() {
+            long length = varint();
+            if (length < 0 || length > buffer.limit() - position) throw new IllegalArgumentException("Length " + length + " runs past the end at " + position);
+            return (int) length;
+        }
+
+        long varint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = u8();
+                value |= (long) (b & 0x7f) << shift;
+                if (b < 0x80) return value;
+            }
+            throw new IllegalArgumentException("Varint too long at " + position);
+        }
+
+        BigInteger bigInteger() {
+            long header = varint();
+            if ((header & 1) == 0) {
+                long zigzag = header >>> 1;
+                return BigInteger.valueOf((zigzag >>> 1) ^ -(zigzag & 1));
+            }
+            long length = header >>> 1;
+            if (length == 0 || length > buffer.limit() - position) throw new IllegalArgumentException("Bad integer length " + length + " at " + position);
+            byte[] bytes = new byte[(int) length];
+            buffer.get(position, bytes);
+            position += bytes.length;
+            return new BigInteger(bytes);
+        }
+    }
+
+    // Node fields for the writer, so one encoder serves both node classes
+    private static String operationName(ExpressionNode<?> n) {
+        if (n instanceof SymbolicExpression) return ((SymbolicExpression) n).op.name();
+        ArbitraryNumberV2.Operation op = ((ArbitraryNumberV2) n).op;
+        if (op == null) throw new UnsupportedOperationException("No archive form for " + n.getClass().getName());
+        return op.name();
+    }
+
+    private static BigInteger[] termParts(ExpressionNode<?> n) {
+        if (n instanceof SymbolicExpression) {
+            SymbolicExpression s = (SymbolicExpression) n;
+            return new BigInteger[] {s.coefficient, s.numerator, s.denominator};
+        }
+        ArbitraryNumberV2 a = (ArbitraryNumberV2) n;
+        return new BigInteger[] {a.coefficient, a.numerator, a.denominator};
+    }
+
+    private static <N extends ExpressionNode<N>> void write(N root, byte kind, OutputStream out) throws IOException {
+        List<N> order = ExpressionTraversal.postOrder(root);
+        Map<N, Integer> ids = new IdentityHashMap<>();
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        int[] nodeOffsets = new int[order.size()];
+        Encoder nodes = new Encoder();
+        for (N n : order) {
+            int id = ids.size();
+            nodeOffsets[id] = nodes.size();
+            int code = OPERATION_CODES.get(operationName(n));
+            nodes.write(code);
+            if (code == TERM) {
+                for (BigInteger part : termParts(n)) nodes.bigInteger(part);
+            } else if (code == VARIABLE) {
+                String name = ((SymbolicExpression) n).variableName;
+                Integer index = strings.get(name);
+                if (index == null) strings.put(name, index = strings.size());
+                nodes.varint(index);
+            } else {
+                nodes.varint(n.arity());
+                for (int i = 0; i < n.arity(); i++) nodes.varint(id - ids.get(n.child(i)));
+            }
+            ids.put(n, id);
+        }
+
+        int[] stringOffsets = new int[strings.size()];
+        Encoder stringBytes = new Encoder();
+        for (String s : strings.keySet()) {
+            stringOffsets[strings.get(s)] = stringBytes.size();
+            byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+            stringBytes.varint(utf8.length);
+            stringBytes.write(utf8, 0, utf8.length);
+        }
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.write(MAGIC);
+        data.writeByte(VERSION);
+        data.writeByte(kind);
+        data.writeShort(0);
+        data.writeInt(stringOffsets.length);
+        data.writeInt(nodeOffsets.length);
+        data.writeInt(stringBytes.size());
+        for (int offset : stringOffsets) data.writeInt(offset);
+        for (int offset : nodeOffsets) data.writeInt(offset);
+        stringBytes.writeTo(data);
+        nodes.writeTo(data);
+        data.flush();
+    }
+
+    private static final class Encoder extends ByteArrayOutputStream {
+        void varint(long value) {
+            while ((value & ~0x7fL) != 0) {
+                write((int) (value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void bigInteger(BigInteger value) {
+            if (value.bitLength() <= 61) {
+                long v = value.longValue();
+                varint(((v << 1) ^ (v >> 63)) << 1);
+            } else {
+                byte[] bytes = value.toByteArray();
+                varint(((long) bytes.length << 1) | 1);
+                write(bytes, 0, bytes.length);
+            }
+        }
+    }
+}
@@ -0,0 +1,415 @@
+package com.github.arbitrary_number;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bytecode tier for {@link CompiledExpression}. A program is turned into a
+ * hidden class whose {@code eval(double[])} is straight-line arithmetic, so C2
+ * can keep every value in a register. The class is defined without
+ * ClassOption.STRONG and is referenced only by its program, so it is unloaded
+ * together with the expression.
+ *
+ * Small programs keep each value in a local variable. Programs whose method
+ * would pass HotSpot's 8000-byte huge-method limit (which would leave it
+ * interpreted) spill to a double[] and are split into several static methods.
+ */
+final class ExpressionJit {
+
+    interface DoubleEvaluator {
+        double eval(double[] vars);
+    }
+
+    private static final String CLASS_NAME = "com/github/arbitrary_number/ExpressionJit$Generated";
+    private static final String INTERFACE_NAME = "com/github/arbitrary_number/ExpressionJit$DoubleEvaluator";
+
+    // Methods at or above this many bytes are never compiled by HotSpot
+    static final int HUGE_METHOD_LIMIT = 8000;
+    private static final int CHUNK_LIMIT = 7000;
+    private static final int MAX_POOL_ENTRIES = 65000;
+
+    // Opcodes used by the generator
+    private static final int ICONST_0 = 0x03;
+    private static final int DCONST_1 = 0x0f;
+    private static final int BIPUSH = 0x10;
+    private static final int SIPUSH = 0x11;
+    private static final int LDC = 0x12;
+    private static final int LDC_W = 0x13;
+    private static final int LDC2_W = 0x14;
+    private static final int DLOAD = 0x18;
+    private static final int ALOAD_0 = 0x2a;
+    private static final int ALOAD_1 = 0x2b;
+    private static final int ALOAD_2 = 0x2c;
+    private static final int DALOAD = 0x31;
+    private static final int DUP2 = 0x5c;
+    private static final int DSTORE = 0x39;
+    private static final int ASTORE_2 = 0x4d;
+    private static final int DASTORE = 0x52;
+    private static final int DADD = 0x63;
+    private static final int DSUB = 0x67;
+    private static final int DMUL = 0x6b;
+    private static final int DDIV = 0x6f;
+    private static final int DRETURN = 0xaf;
+    private static final int RETURN = 0xb1;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int INVOKESTATIC = 0xb8;
+    private static final int NEWARRAY = 0xbc;
+    private static final int WIDE = 0xc4;
+    private static final int T_DOUBLE = 7;
+
+    private ExpressionJit() {
+    }
+
+    // Null when the program cannot be expressed within class file limits
+    static DoubleEvaluator generate(CompiledExpression program) {
+        byte[] bytes;
+        try {
+            bytes = new Generator(program).classFile();
+        } catch (IOException | IllegalStateException tooLarge) {
+            return null;
+        }
+        if (bytes == null) return null;
+        try {
+            MethodHandles.Lookup hidden = MethodHandles.lookup().defineHiddenClass(bytes, true);
+            return (DoubleEvaluator) hidden.findConstructor(hidden.lookupClass(), MethodType.methodType(void.class)).invoke();
+        } catch (Throwable rejected) {
+            return null;
+        }
+    }
+
+    private static final class Generator {
+        private final CompiledExpression p;
+        private final ConstantPool pool = new ConstantPool();
+        private final List<byte[]> methods = new ArrayList<>();
+
+        Generator(CompiledExpression program) {
+            this.p = program;
+        }
+
+        byte[] classFile() throws IOException {
+            int thisClass = pool.classRef(CLASS_NAME);
+            int superClass = pool.classRef("java/lang/Object");
+            int iface = pool.classRef(INTERFACE_NAME);
+
+            Code init = new Code();
+            init.op(ALOAD_0);
+            init.op(INVOKESPECIAL).u2(pool.methodRef("java/lang/Object", "<init>", "()V"));
+            init.op(RETURN);
+            addMethod(0x0001, "<init>", "()V", 1, 1, init);
+
+            Code eval = localsForm();
+            if (eval.size() < HUGE_METHOD_LIMIT) {
+                addMethod(0x0001, "eval", "([D)D", 6, 2 + 2 * (p.variables.length + p.opcodes.length), eval);
+            } else {
+                addMethod(0x0001, "eval", "([D)D", 3, 3, spilledForm());
+            }
+            if (pool.count() > MAX_POOL_ENTRIES) return null;
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(61);
+            pool.writeTo(out);
+            out.writeShort(0x1030); // ACC_SYNTHETIC | ACC_FINAL | ACC_SUPER
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(1);
+            out.writeShort(iface);
+            out.writeShort(0); // fields
+            out.writeShort(methods.size());
+            for (byte[] m : methods) out.write(m);
+            out.writeShort(0); // attributes
+            return bytes.toByteArray();
+        }
+
+        // Every variable and intermediate value in a double local (two slots each)
+        private Code localsForm() {
+            int constants = p.constants.length;
+            int variables = p.variables.length;
+            Code code = new Code();
+            for (int v = 0; v < variables; v++) {
+                code.op(ALOAD_1);
+                code.pushInt(v, pool);
+                code.op(DALOAD);
+                code.local(DSTORE, 2 + 2 * v);
+            }
+            for (int i = 0; i < p.opcodes.length; i++) {
+                emitOperation(code, i, register -> {
+                    if (register < constants) code.pushDouble(p.constants[register], pool);
+                    else code.local(DLOAD, 2 + 2 * (register - constants));
+                });
+                code.local(DSTORE, 2 + 2 * (variables + i));
+                if (code.size() >= HUGE_METHOD_LIMIT) return code;
+            }
+            code.local(DLOAD, 2 + 2 * (p.resultRegister - constants));
+            code.op(DRETURN);
+            return code;
+        }
+
+        // Results in a double[] filled by static chunk methods of at most CHUNK_LIMIT bytes
+        private Code spilledForm() throws IOException {
+            int constants = p.constants.length;
+            int firstResult = p.firstResult;
+            List<Integer> chunkNames = new ArrayList<>();
+            Code chunk = new Code();
+            for (int i = 0; i < p.opcodes.length; i++) {
+                Code c = chunk;
+                c.op(ALOAD_0);
+                c.pushInt(i, pool);
+                emitOperation(c, i, register -> {
+                    if (register < constants) {
+                        c.pushDouble(p.constants[register], pool);
+                    } else if (register < firstResult) {
+                        c.op(ALOAD_1);
+                        c.pushInt(register - constants, pool);
+                        c.op(DALOAD);
+                    } else {
+                        c.op(ALOAD_0);
+                        c.pushInt(register - firstResult, pool);
+                        c.op(DALOAD);
+                    }
+                });
+                c.op(DASTORE);
+                if (chunk.size() >= CHUNK_LIMIT || i == p.opcodes.length - 1) {
+                    chunk.op(RETURN);
+                    int name = chunkNames.size();
+                    addMethod(0x000a, "c" + name, "([D[D)V", 8, 2, chunk); // ACC_PRIVATE | ACC_STATIC
+                    chunkNames.add(name);
+                    chunk = new Code();
+                }
+                if (pool.count() > MAX_POOL_ENTRIES) throw new IllegalStateException("Constant pool overflow");
+            }
+
+            Code eval = new Code();
+            eval.pushInt(p.opcodes.length, pool);
+            eval.op(NEWARRAY).u1(T_DOUBLE);
+            eval.op(ASTORE_2);
+            for (int name : chunkNames) {
+                eval.op(ALOAD_2);
+                eval.op(ALOAD_1);
+                eval.op(INVOKESTATIC).u2(pool.methodRef(CLASS_NAME, "c" + name, "([D[D)V"));
+            }
+            eval.op(ALOAD_2);
+            eval.pushInt(p.resultRegister - firstResult, pool);
+            eval.op(DALOAD);
+            eval.op(DRETURN);
+            if (eval.size() > 65535) throw new IllegalStateException("Method too large");
+            return eval;
+        }
+
+        private interface OperandLoader {
+            void load(int register);
+        }
+
+        // Leaves the value of instruction i on the stack, folding n-ary operands left to right
+        private void emitOperation(Code code, int i, OperandLoader load) {
+            int s = p.operandStart[i];
+            int e = p.operandStart[i + 1];
+            switch (p.opcodes[i]) {
+                case CompiledExpression.ADD, CompiledExpression.MULTIPLY -> {
+                    int op = p.opcodes[i] == CompiledExpression.ADD ? DADD : DMUL;
+                    load.load(p.operands[s]);
+                    for (int k = s + 1; k < e; k++) {
+                        load.load(p.operands[k]);
+                        code.op(op);
+                    }
+                }
+                case CompiledExpression.SUBTRACT, CompiledExpression.DIVIDE -> {
+                    load.load(p.operands[s]);
+                    load.load(p.operands[s + 1]);
+                    code.op(p.opcodes[i] == CompiledExpression.SUBTRACT ? DSUB : DDIV);
+                }
+                case CompiledExpression.POWER -> {
+                    load.load(p.operands[s]);
+                    load.load(p.operands[s + 1]);
+                    code.op(INVOKESTATIC).u2(pool.methodRef("java/lang/Math", "pow", "(DD)D"));
+                }
+                case CompiledExpression.LOG -> {
+                    load.load(p.operands[s]);
+                    code.op(INVOKESTATIC).u2(pool.methodRef("java/lang/Math", "log", "(D)D"));
+                }
+                case CompiledExpression.POWER_INT -> {
+                    // The multiplication chain of CompiledExpression.powInt, unrolled
+                    int k = p.operands[s + 1];
+                    int n = Math.abs(k);
+                    if (k < 0 || n == 0) code.op(DCONST_1);
+                    if (n != 0) {
+                        load.load(p.operands[s]);
+                        for (int bit = Integer.highestOneBit(n) >>> 1; bit != 0; bit >>>= 1) {
+                            code.op(DUP2);
+                            code.op(DMUL);
+                            if ((n & bit) != 0) {
+                                load.load(p.operands[s]);
+                                code.op(DMUL);
+                            }
+                        }
+                        if (k < 0) code.op(DDIV);
+                    }
+                }
+                default -> throw new IllegalStateException("Bad opcode: " + p.opcodes[i]);
+            }
+        }
+
+        private void addMethod(int access, String name, String descriptor, int maxStack, int maxLocals, Code code) throws IOException {
+            if (code.size() > 65535 || maxLocals > 65535) throw new IllegalStateException("Method too large");
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeShort(access);
+            out.writeShort(pool.utf8(name));
+            out.writeShort(pool.utf8(descriptor));
+            out.writeShort(1);
+            out.writeShort(pool.utf8("Code"));
+            out.writeInt(12 + code.size());
+            out.writeShort(maxStack);
+            out.writeShort(maxLocals);
+            out.writeInt(code.size());
+            code.writeTo(out);
+            out.writeShort(0); // exception table
+            out.writeShort(0); // attributes
+            methods.add(bytes.toByteArray());
+        }
+    }
+
+    private static final class Code {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        Code op(int opcode) {
+            bytes.write(opcode);
+            return this;
+        }
+
+        Code u1(int v) {
+            bytes.write(v);
+            return this;
+        }
+
+        Code u2(int v) {
+            bytes.write(v >>> 8);
+            bytes.write(v);
+            return this;
+        }
+
+        void local(int opcode, int index) {
+            if (index < 256) {
+                op(opcode).u1(index);
+            } else {
+                op(WIDE).op(opcode).u2(index);
+            }
+        }
+
+        void pushInt(int v, ConstantPool pool) {
+            if (v >= -1 && v <= 5) {
+                op(ICONST_0 + v);
+            } else if (v >= Byte.MIN_VALUE && v <= Byte.MAX_VALUE) {
+                op(BIPUSH).u1(v);
+            } else if (v >= Short.MIN_VALUE && v <= Short.MAX_VALUE) {
+                op(SIPUSH).u2(v);
+            } else {
+                int index = pool.integer(v);
+                if (index < 256) op(LDC).u1(index);
+                else op(LDC_W).u2(index);
+            }
+        }
+
+        void pushDouble(double v, ConstantPool pool) {
+            op(LDC2_W).u2(pool.doubleConstant(v));
+        }
+
+        int size() {
+            return bytes.size();
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            bytes.writeTo(out);
+        }
+    }
+
+    private static final class ConstantPool {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private final Map<String, Integer> entries = new HashMap<>();
+        private int next = 1;
+
+        int count() {
+            return next;
+        }
+
+        int utf8(String s) {
+            return entry("U" + s, 1, () -> {
+                out.writeByte(1);
+                out.writeUTF(s);
+            });
+        }
+
+        int classRef(String internalName) {
+            int name = utf8(internalName);
+            return entry("C" + internalName, 1, () -> {
+                out.writeByte(7);
+                out.writeShort(name);
+            });
+        }
+
+        int methodRef(String owner, String name, String descriptor) {
+            int cls = classRef(owner);
+            int n = utf8(name);
+            int d = utf8(descriptor);
+            int nat = entry("N" + name + ":" + descriptor, 1, () -> {
+                out.writeByte(12);
+                out.writeShort(n);
+                out.writeShort(d);
+            });
+            return entry("M" + owner + "." + name + descriptor, 1, () -> {
+                out.writeByte(10);
+                out.writeShort(cls);
+                out.writeShort(nat);
+            });
+        }
+
+        int integer(int v) {
+            return entry("I" + v, 1, () -> {
+                out.writeByte(3);
+                out.writeInt(v);
+            });
+        }
+
+        // Keyed by raw bits, so -0.0 and each NaN pattern keep their own entry
+        int doubleConstant(double v) {
+            long bits = Double.doubleToRawLongBits(v);
+            return entry("D" + bits, 2, () -> {
+                out.writeByte(6);
+                out.writeLong(bits);
+            });
+        }
+
+        private interface Writer {
+            void write() throws IOException;
+        }
+
+        private int entry(String key, int slots, Writer writer) {
+            Integer index = entries.get(key);
+            if (index != null) return index;
+            try {
+                writer.write();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            int assigned = next;
+            next += slots;
+            entries.put(key, assigned);
+            return assigned;
+        }
+
+        void writeTo(DataOutputStream target) throws IOException {
+            target.writeShort(next);
+            bytes.writeTo(target);
+        }
+    }
+}
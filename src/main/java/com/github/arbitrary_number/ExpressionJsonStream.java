@@ -0,0 +1,337 @@
+package com.github.arbitrary_number;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Streaming JSON form of an expression DAG, written without building a
+ * JSONObject tree and read back one node at a time:
+ *
+ * <pre>
+ * {"nodes":[
+ * {"id":0,"op":"TERM","coefficient":"1","numerator":"1","denominator":"2"},
+ * {"id":1,"op":"ADD","args":[0,0]}
+ * ],"root":1}
+ * </pre>
+ *
+ * Distinct nodes are listed children first and a child is referenced by the id
+ * of an earlier entry, so a shared subexpression is written once and the
+ * document stays flat however deep the expression is. Both directions are
+ * iterative; the reader is a small pull parser for this layout rather than a
+ * general JSON parser, and keeps no more than one node's fields at a time.
+ */
+final class ExpressionJsonStream {
+
+    private static final int CHUNK_CHARS = 1 << 13;
+
+    // Appends the fields of one node after its id, each preceded by a comma
+    interface FieldWriter<N> {
+        void write(N node, StringBuilder out);
+    }
+
+    // Rebuilds one node from its string fields and its already rebuilt children
+    interface NodeFactory<N> {
+        N create(Map<String, String> fields, List<N> children);
+    }
+
+    private ExpressionJsonStream() {
+    }
+
+    static <N extends ExpressionNode<N>> void write(N root, Writer out, String childrenKey, FieldWriter<N> fields)
+            throws IOException {
+        Map<N, Integer> ids = new IdentityHashMap<>();
+        // Nodes are formatted into one builder and handed to the writer in chunks
+        StringBuilder chunk = new StringBuilder(CHUNK_CHARS + 256);
+        chunk.append("{\"nodes\":[");
+        for (N n : ExpressionTraversal.postOrder(root)) {
+            int id = ids.size();
+            chunk.append(id == 0 ? "\n{\"id\":" : ",\n{\"id\":").append(id);
+            fields.write(n, chunk);
+            if (n.arity() > 0) {
+                chunk.append(",\"").append(childrenKey).append("\":[");
+                for (int i = 0; i < n.arity(); i++) {
+                    if (i > 0) chunk.append(',');
+                    chunk.append(ids.get(n.child(i)).intValue());
+                }
+                chunk.append(']');
+            }
+            chunk.append('}');
+            ids.put(n, id);
+            if (chunk.length() >= CHUNK_CHARS) {
+                out.append(chunk);
+                chunk.setLength(0);
+            }
+        }
+        chunk.append("\n],\"root\":").append(ids.size() - 1).append("}\n");
+        out.append(chunk);
+        out.flush();
+    }
+
+    /**
+     * The nested form built by toJson: one object per node with its children
+     * inline under childrenKey. Written from an explicit stack, so unlike
+     * JSONObject.toString it does not recurse once per level; a shared node is
+     * written at every use, as toJson does.
+     */
+    static <N extends ExpressionNode<N>> void writeNested(N root, Writer out, String childrenKey, FieldWriter<N> fields)
+            throws IOException {
+        StringBuilder chunk = new StringBuilder(CHUNK_CHARS + 256);
+        List<N> path = new ArrayList<>();
+        int[] nextChild = new int[16];
+        open(root, chunk, childrenKey, fields);
+        path.add(root);
+        while (!path.isEmpty()) {
+            int top = path.size() - 1;
+            N node = path.get(top);
+            int i = nextChild[top];
+            if (i < node.arity()) {
+                if (i > 0) chunk.append(',');
+                nextChild[top] = i + 1;
+                N child = node.child(i);
+                open(child, chunk, childrenKey, fields);
+                if (path.size() == nextChild.length) nextChild = Arrays.copyOf(nextChild, nextChild.length * 2);
+                nextChild[path.size()] = 0;
+                path.add(child);
+            } else {
+                if (node.arity() > 0) chunk.append(']');
+                chunk.append('}');
+                path.remove(top);
+            }
+            if (chunk.length() >= CHUNK_CHARS) {
+                out.append(chunk);
+                chunk.setLength(0);
+            }
+        }
+        chunk.append('\n');
+        out.append(chunk);
+        out.flush();
+    }
+
+    // The fields of one node and, if it has children, the opening of their array
+    private static <N extends ExpressionNode<N>> void open(N node, StringBuilder out, String childrenKey, FieldWriter<N> fields) {
+        int start = out.length();
+        fields.write(node, out);
+        // The first field's comma becomes the opening brace
+        if (out.length() > start) out.setCharAt(start, '{');
+        else out.append('{');
+        if (node.arity() > 0) {
+            if (out.length() > start + 1) out.append(',');
+            out.append('"').append(childrenKey).append("\":[");
+        }
+    }
+
+    // Appends ,"key":"value" with the value escaped
+    static void field(StringBuilder out, String key, String value) {
+        out.append(",\"").append(key).append("\":");
+        if (isPlain(value)) out.append('"').append(value).append('"');
+        else out.append(JSONObject.quote(value));
+    }
+
+    // Printable ASCII without quotes or backslashes needs no escaping
+    private static boolean isPlain(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x20 || c > 0x7e || c == '"' || c == '\\' || c == '/') return false;
+        }
+        return true;
+    }
+
+    /**
+     * Reads a document in the form written above. Node fields are read as
+     * strings except the id and the child list; anything else, or a reference
+     * to a node not yet read, throws JSONException.
+     */
+    static <N> N read(Reader in, String childrenKey, NodeFactory<N> factory) {
+        Tokens tokens = new Tokens(in);
+        tokens.expect('{');
+        tokens.expectKey("nodes");
+        tokens.expect('[');
+
+        List<N> nodes = new ArrayList<>();
+        Map<String, String> fields = new HashMap<>();
+        List<N> children = new ArrayList<>();
+        if (tokens.peek() == ']') {
+            tokens.next();
+        } else {
+            char c;
+            do {
+                fields.clear();
+                children.clear();
+                int id = -1;
+                tokens.expect('{');
+                do {
+                    String key = tokens.string();
+                    tokens.expect(':');
+                    if (key.equals("id")) {
+                        id = tokens.integer();
+                    } else if (key.equals(childrenKey)) {
+                        tokens.expect('[');
+                        if (tokens.peek() == ']') {
+                            tokens.next();
+                        } else {
+                            do {
+                                int ref = tokens.integer();
+                                if (ref < 0 || ref >= nodes.size()) throw tokens.error("Reference to unknown node " + ref);
+                                children.add(nodes.get(ref));
+                            } while (tokens.commaOr(']'));
+                        }
+                    } else {
+                        fields.put(key, tokens.string());
+                    }
+                } while (tokens.commaOr('}'));
+                if (id != nodes.size()) throw tokens.error("Node ids must count up from 0");
+                try {
+                    nodes.add(factory.create(fields, children));
+                } catch (IllegalArgumentException e) {
+                    throw tokens.error("Bad node " + id + ": " + e.getMessage());
+                }
+            } while (tokens.commaOr(']'));
+        }
+
+        tokens.expect(',');
+        tokens.expectKey("root");
+        int root = tokens.integer();
+        tokens.expect('}');
+        if (root < 0 || root >= nodes.size()) throw tokens.error("Root is not a node id: " + root);
+        return nodes.get(root);
+    }
+
+    static String required(Map<String, String> fields, String key) {
+        String value = fields.get(key);
+        if (value == null) throw new IllegalArgumentException("missing \"" + key + "\"");
+        return value;
+    }
+
+    // Children an op takes: none for leaves, one for LOG, two or more for ADD and MULTIPLY
+    static void checkArity(String op, int arity) {
+        boolean ok = switch (op) {
+            case "TERM", "VARIABLE" -> arity == 0;
+            case "LOG" -> arity == 1;
+            case "SUBTRACT", "DIVIDE", "POWER" -> arity == 2;
+            case "ADD", "MULTIPLY" -> arity >= 2;
+            default -> throw new IllegalArgumentException("unknown op " + op);
+        };
+        if (!ok) throw new IllegalArgumentException(op + " cannot take " + arity + " children");
+    }
+
+    // Pull tokenizer over a buffered Reader for the subset of JSON written here
+    private static final class Tokens {
+        private final Reader in;
+        private final char[] buffer = new char[1 << 13];
+        private int position;
+        private int limit;
+        private long offset;
+        private final StringBuilder text = new StringBuilder();
+
+        Tokens(Reader in) {
+            this.in = in;
+        }
+
+        // Next character that is not whitespace, -1 at the end of input
+        int peek() {
+            while (true) {
+                if (position == limit && !fill()) return -1;
+                char c = buffer[position];
+                if (c != ' ' && c != '\n' && c != '\r' && c != '\t') return c;
+                position++;
+            }
+        }
+
+        int next() {
+            int c = peek();
+            if (c >= 0) position++;
+            return c;
+        }
+
+        void expect(char expected) {
+            if (next() != expected) throw error("Expected '" + expected + "'");
+        }
+
+        void expectKey(String key) {
+            if (!key.equals(string())) throw error("Expected key \"" + key + "\"");
+            expect(':');
+        }
+
+        // True after a comma, false after the closing character
+        boolean commaOr(char close) {
+            int c = next();
+            if (c == ',') return true;
+            if (c == close) return false;
+            throw error("Expected ',' or '" + close + "'");
+        }
+
+        int integer() {
+            int c = peek();
+            boolean negative = c == '-';
+            if (negative) position++;
+            long value = 0;
+            int digits = 0;
+            while ((position < limit || fill()) && buffer[position] >= '0' && buffer[position] <= '9') {
+                value = value * 10 + (buffer[position++] - '0');
+                if (value > Integer.MAX_VALUE) throw error("Integer out of range");
+                digits++;
+            }
+            if (digits == 0) throw error("Expected an integer");
+            return (int) (negative ? -value : value);
+        }
+
+        String string() {
+            expect('"');
+            text.setLength(0);
+            while (true) {
+                if (position == limit && !fill()) throw error("Unterminated string");
+                char c = buffer[position++];
+                if (c == '"') return text.toString();
+                if (c != '\\') {
+                    text.append(c);
+                    continue;
+                }
+                if (position == limit && !fill()) throw error("Unterminated string");
+                char e = buffer[position++];
+                switch (e) {
+                    case 'b' -> text.append('\b');
+                    case 't' -> text.append('\t');
+                    case 'n' -> text.append('\n');
+                    case 'f' -> text.append('\f');
+                    case 'r' -> text.append('\r');
+                    case 'u' -> {
+                        int code = 0;
+                        for (int i = 0; i < 4; i++) {
+                            if (position == limit && !fill()) throw error("Unterminated string");
+                            int digit = Character.digit(buffer[position++], 16);
+                            if (digit < 0) throw error("Bad unicode escape");
+                            code = code * 16 + digit;
+                        }
+                        text.append((char) code);
+                    }
+                    default -> text.append(e);
+                }
+            }
+        }
+
+        private boolean fill() {
+            try {
+                offset += limit;
+                position = 0;
+                limit = Math.max(0, in.read(buffer));
+                return limit > 0;
+            } catch (IOException e) {
+                throw new JSONException(e);
+            }
+        }
+
+        JSONException error(String message) {
+            return new JSONException(message + " at character " + (offset + position));
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.github.arbitrary_number;
+
+import java.math.BigDecimal;
+
+/**
+ * Shape shared by {@link ArbitraryNumberV2} and {@link SymbolicExpression}, so
+ * traversals and caches can be written once for both node types.
+ */
+interface ExpressionNode<N extends ExpressionNode<N>> {
+
+    int arity();
+
+    N child(int index);
+
+    // Rough cost of evaluateNode in multiplications, used to decide what is worth forking
+    int costEstimate();
+
+    // Value of this node alone, given the values of its children in order
+    BigDecimal evaluateNode(int precision, BigDecimal[] args);
+
+    // Exact value of this node from exact child values, null when it is not rational
+    Rational evaluateExact(Rational[] args);
+
+    // Bounds on this node from bounds on its children, rounded outward to precision digits
+    Interval boundNode(int precision, Interval[] args);
+
+    // evaluateNode at a higher precision, given this node's value at a lower one
+    default BigDecimal refineNode(int precision, BigDecimal[] args, BigDecimal previous, int previousPrecision) {
+        return evaluateNode(precision, args);
+    }
+}
@@ -0,0 +1,110 @@
+package com.github.arbitrary_number;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiPredicate;
+
+/**
+ * Explicit-stack traversals over expression DAGs. Thread stack use is constant
+ * however deep the expression is, and a node reached along several paths is
+ * visited once.
+ */
+final class ExpressionTraversal {
+
+    private ExpressionTraversal() {
+    }
+
+    // Distinct nodes reachable from root, every child before its parents
+    static <N extends ExpressionNode<N>> List<N> postOrder(N root) {
+        List<N> order = new ArrayList<>();
+        Set<N> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<N> path = new ArrayList<>();
+        int[] nextChild = new int[16];
+
+        visited.add(root);
+        path.add(root);
+        while (!path.isEmpty()) {
+            int top = path.size() - 1;
+            N node = path.get(top);
+            int i = nextChild[top];
+            if (i < node.arity()) {
+                nextChild[top] = i + 1;
+                N child = node.child(i);
+                if (visited.add(child)) {
+                    if (path.size() == nextChild.length) nextChild = Arrays.copyOf(nextChild, nextChild.length * 2);
+                    nextChild[path.size()] = 0;
+                    path.add(child);
+                }
+            } else {
+                path.remove(top);
+                order.add(node);
+            }
+        }
+        return order;
+    }
+
+    static <N extends ExpressionNode<N>> BigDecimal evaluate(N root, int precision) {
+        Map<N, BigDecimal> values = new IdentityHashMap<>();
+        for (N node : postOrder(root)) {
+            BigDecimal[] args = new BigDecimal[node.arity()];
+            for (int i = 0; i < args.length; i++) args[i] = values.get(node.child(i));
+            values.put(node, node.evaluateNode(precision, args));
+        }
+        return values.get(root);
+    }
+
+    /**
+     * Structural equality with a stack of node pairs. sameLabel compares one pair
+     * of nodes without looking at their children (class, operation, leaf values,
+     * arity, cached hash); pairs already matched are not compared again, so shared
+     * subexpressions cost one comparison.
+     */
+    static <N extends ExpressionNode<N>> boolean structurallyEqual(N x, N y, BiPredicate<N, N> sameLabel) {
+        Deque<N> left = new ArrayDeque<>();
+        Deque<N> right = new ArrayDeque<>();
+        Set<NodePair> matched = new HashSet<>();
+        left.push(x);
+        right.push(y);
+        while (!left.isEmpty()) {
+            N a = left.pop();
+            N b = right.pop();
+            if (a == b) continue;
+            if (!sameLabel.test(a, b)) return false;
+            if (a.arity() == 0 || !matched.add(new NodePair(a, b))) continue;
+            for (int i = a.arity() - 1; i >= 0; i--) {
+                left.push(a.child(i));
+                right.push(b.child(i));
+            }
+        }
+        return true;
+    }
+
+    private static final class NodePair {
+        final Object a;
+        final Object b;
+
+        NodePair(Object a, Object b) {
+            this.a = a;
+            this.b = b;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof NodePair && ((NodePair) obj).a == a && ((NodePair) obj).b == b;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(a) + System.identityHashCode(b);
+        }
+    }
+}
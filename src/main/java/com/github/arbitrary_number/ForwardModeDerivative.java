@@ -0,0 +1,192 @@
+package com.github.arbitrary_number;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Forward-mode differentiation over a {@link CompiledExpression}. Each
+ * register holds a dual number, its value and its tangents along one or more
+ * directions, and one pass over the instructions computes both, so no
+ * derivative expression is ever built. With k directions the tangents of
+ * register r sit at tangent[r * k] .. tangent[r * k + k - 1]; constants have
+ * zero tangents.
+ */
+final class ForwardModeDerivative {
+
+    private ForwardModeDerivative() {
+    }
+
+    // seeds[slot * k + j] is the tangent of variable slot along direction j
+    static double evaluate(CompiledExpression p, double[] slotValues, double[] seeds, int k, double[] derivatives) {
+        int registers = p.registerCount();
+        double[] r = new double[registers];
+        double[] t = new double[registers * k];
+        int constants = p.constants.length;
+        System.arraycopy(p.constants, 0, r, 0, constants);
+        System.arraycopy(slotValues, 0, r, constants, slotValues.length);
+        System.arraycopy(seeds, 0, t, constants * k, seeds.length);
+        propagate(p, r, t, k);
+        System.arraycopy(t, p.resultRegister * k, derivatives, 0, k);
+        return r[p.resultRegister];
+    }
+
+    // Fills every result register of r and t from the constants and seeded slots
+    static void propagate(CompiledExpression p, double[] r, double[] t, int k) {
+        int[] opcodes = p.opcodes;
+        int[] start = p.operandStart;
+        int[] operands = p.operands;
+
+        for (int i = 0, out = p.firstResult; i < opcodes.length; i++, out++) {
+            int s = start[i];
+            int x = operands[s];
+            int to = out * k;
+            switch (opcodes[i]) {
+                case CompiledExpression.ADD -> {
+                    double sum = r[x];
+                    System.arraycopy(t, x * k, t, to, k);
+                    for (int o = s + 1; o < start[i + 1]; o++) {
+                        int a = operands[o];
+                        sum += r[a];
+                        for (int j = 0; j < k; j++) t[to + j] += t[a * k + j];
+                    }
+                    r[out] = sum;
+                }
+                case CompiledExpression.SUBTRACT -> {
+                    int y = operands[s + 1];
+                    r[out] = r[x] - r[y];
+                    for (int j = 0; j < k; j++) t[to + j] = t[x * k + j] - t[y * k + j];
+                }
+                case CompiledExpression.MULTIPLY -> {
+                    // (p, dp) * (a, da) = (p a, dp a + p da), one factor at a time
+                    double prod = r[x];
+                    System.arraycopy(t, x * k, t, to, k);
+                    for (int o = s + 1; o < start[i + 1]; o++) {
+                        int a = operands[o];
+                        for (int j = 0; j < k; j++) t[to + j] = t[to + j] * r[a] + prod * t[a * k + j];
+                        prod *= r[a];
+                    }
+                    r[out] = prod;
+                }
+                case CompiledExpression.DIVIDE -> {
+                    // (x/y)' = (x' - (x/y) y') / y
+                    int y = operands[s + 1];
+                    double q = r[x] / r[y];
+                    for (int j = 0; j < k; j++) t[to + j] = (t[x * k + j] - q * t[y * k + j]) / r[y];
+                    r[out] = q;
+                }
+                case CompiledExpression.POWER -> {
+                    int y = operands[s + 1];
+                    double z = Math.pow(r[x], r[y]);
+                    double slope = r[y] * Math.pow(r[x], r[y] - 1);
+                    double ln = Double.NaN;
+                    for (int j = 0; j < k; j++) {
+                        double dx = t[x * k + j];
+                        double dy = t[y * k + j];
+                        // Each term only exists when its operand moves; x^(1/2) at 0 has an infinite slope
+                        double dz = dx != 0.0 ? slope * dx : 0.0;
+                        if (dy != 0.0) {
+                            if (Double.isNaN(ln)) ln = Math.log(r[x]);
+                            dz += z * ln * dy;
+                        }
+                        t[to + j] = dz;
+                    }
+                    r[out] = z;
+                }
+                case CompiledExpression.LOG -> {
+                    for (int j = 0; j < k; j++) t[to + j] = t[x * k + j] / r[x];
+                    r[out] = Math.log(r[x]);
+                }
+                case CompiledExpression.POWER_INT -> {
+                    int e = operands[s + 1];
+                    // x^0 is constant, so its slope is 0 even where 0^-1 is not finite
+                    double slope = e == 0 ? 0.0 : e * CompiledExpression.powInt(r[x], e - 1);
+                    for (int j = 0; j < k; j++) t[to + j] = slope * t[x * k + j];
+                    r[out] = CompiledExpression.powInt(r[x], e);
+                }
+                default -> throw new IllegalStateException("Bad opcode: " + opcodes[i]);
+            }
+        }
+    }
+
+    // Value and tangent along one direction, rounded like evaluate(BigDecimal[], int)
+    static BigDecimal[] evaluate(CompiledExpression p, BigDecimal[] slotValues, BigDecimal[] direction, int precision) {
+        int registers = p.registerCount();
+        BigDecimal[] r = new BigDecimal[registers];
+        BigDecimal[] t = new BigDecimal[registers];
+        int constants = p.constants.length;
+        BigDecimal[] constantValues = p.decimalConstants(precision);
+        for (int i = 0; i < constants; i++) {
+            r[i] = constantValues[i];
+            t[i] = BigDecimal.ZERO;
+        }
+        System.arraycopy(slotValues, 0, r, constants, slotValues.length);
+        System.arraycopy(direction, 0, t, constants, direction.length);
+        int[] operands = p.operands;
+        int[] start = p.operandStart;
+
+        for (int i = 0, out = p.firstResult; i < p.opcodes.length; i++, out++) {
+            int s = start[i];
+            int x = operands[s];
+            switch (p.opcodes[i]) {
+                case CompiledExpression.ADD -> {
+                    BigDecimal sum = BigDecimal.ZERO;
+                    BigDecimal dsum = BigDecimal.ZERO;
+                    for (int o = s; o < start[i + 1]; o++) {
+                        sum = sum.add(r[operands[o]]);
+                        dsum = dsum.add(t[operands[o]]);
+                    }
+                    r[out] = sum;
+                    t[out] = dsum;
+                }
+                case CompiledExpression.SUBTRACT -> {
+                    int y = operands[s + 1];
+                    r[out] = r[x].subtract(r[y]);
+                    t[out] = t[x].subtract(t[y]);
+                }
+                case CompiledExpression.MULTIPLY -> {
+                    BigDecimal prod = BigDecimal.ONE;
+                    BigDecimal dprod = BigDecimal.ZERO;
+                    for (int o = s; o < start[i + 1]; o++) {
+                        int a = operands[o];
+                        dprod = dprod.multiply(r[a]).add(prod.multiply(t[a]));
+                        prod = prod.multiply(r[a]);
+                    }
+                    r[out] = prod;
+                    t[out] = dprod;
+                }
+                case CompiledExpression.DIVIDE -> {
+                    int y = operands[s + 1];
+                    r[out] = r[x].divide(r[y], precision, RoundingMode.HALF_UP);
+                    t[out] = t[x].subtract(r[out].multiply(t[y])).divide(r[y], precision, RoundingMode.HALF_UP);
+                }
+                case CompiledExpression.POWER -> {
+                    int y = operands[s + 1];
+                    r[out] = BigDecimalMath.pow(r[x], r[y], precision);
+                    BigDecimal dz = BigDecimal.ZERO;
+                    if (t[x].signum() != 0) {
+                        dz = r[y].multiply(BigDecimalMath.pow(r[x], r[y].subtract(BigDecimal.ONE), precision)).multiply(t[x]);
+                    }
+                    if (t[y].signum() != 0) dz = dz.add(r[out].multiply(BigDecimalMath.ln(r[x], precision)).multiply(t[y]));
+                    t[out] = dz;
+                }
+                case CompiledExpression.LOG -> {
+                    r[out] = BigDecimalMath.ln(r[x], precision);
+                    t[out] = t[x].divide(r[x], precision, RoundingMode.HALF_UP);
+                }
+                case CompiledExpression.POWER_INT -> {
+                    int e = operands[s + 1];
+                    r[out] = power(r[x], e, precision);
+                    t[out] = e == 0 ? BigDecimal.ZERO : BigDecimal.valueOf(e).multiply(power(r[x], e - 1, precision)).multiply(t[x]);
+                }
+                default -> throw new IllegalStateException("Bad opcode: " + p.opcodes[i]);
+            }
+        }
+        return new BigDecimal[] {r[p.resultRegister], t[p.resultRegister]};
+    }
+
+    // Exact for e >= 0, otherwise one HALF_UP division as in evaluate(BigDecimal[], int)
+    private static BigDecimal power(BigDecimal x, int e, int precision) {
+        BigDecimal power = x.pow(Math.abs(e));
+        return e >= 0 ? power : BigDecimal.ONE.divide(power, precision, RoundingMode.HALF_UP);
+    }
+}
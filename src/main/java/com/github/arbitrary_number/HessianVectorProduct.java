@@ -0,0 +1,129 @@
+package com.github.arbitrary_number;
+
+/**
+ * Hessian-vector products by forward-over-reverse differentiation of a
+ * {@link CompiledExpression}. The forward pass carries dual numbers, each
+ * register's value and its tangent along the direction v; the reverse sweep
+ * then propagates dual adjoints, an adjoint and the tangent of that adjoint.
+ * At the variable slots the adjoints are the gradient and their tangents are
+ * H v. One product costs a small constant number of evaluations, however many
+ * variables there are, and no second-derivative expression is built.
+ */
+final class HessianVectorProduct {
+
+    private HessianVectorProduct() {
+    }
+
+    static double evaluate(CompiledExpression p, double[] slotValues, double[] direction, double[] gradient, double[] hv) {
+        int registers = p.registerCount();
+        int constants = p.constants.length;
+        double[] r = new double[registers];
+        double[] t = new double[registers];
+        System.arraycopy(p.constants, 0, r, 0, constants);
+        System.arraycopy(slotValues, 0, r, constants, slotValues.length);
+        System.arraycopy(direction, 0, t, constants, direction.length);
+        ForwardModeDerivative.propagate(p, r, t, 1);
+
+        // a is the adjoint of each register, da its tangent along the direction
+        double[] a = new double[registers];
+        double[] da = new double[registers];
+        int[] operands = p.operands;
+        int[] start = p.operandStart;
+        a[p.resultRegister] = 1.0;
+
+        for (int i = p.opcodes.length - 1; i >= 0; i--) {
+            int out = p.firstResult + i;
+            double w = a[out];
+            double dw = da[out];
+            if (w == 0.0 && dw == 0.0) continue;
+            int s = start[i];
+            int x = operands[s];
+            switch (p.opcodes[i]) {
+                case CompiledExpression.ADD -> {
+                    for (int o = s; o < start[i + 1]; o++) {
+                        a[operands[o]] += w;
+                        da[operands[o]] += dw;
+                    }
+                }
+                case CompiledExpression.SUBTRACT -> {
+                    int y = operands[s + 1];
+                    a[x] += w;
+                    da[x] += dw;
+                    a[y] -= w;
+                    da[y] -= dw;
+                }
+                case CompiledExpression.MULTIPLY -> {
+                    // Each factor gets the dual product of the others, prefix times suffix
+                    int n = start[i + 1] - s;
+                    double[] suffix = new double[n + 1];
+                    double[] dsuffix = new double[n + 1];
+                    suffix[n] = 1.0;
+                    for (int o = n - 1; o >= 0; o--) {
+                        int f = operands[s + o];
+                        dsuffix[o] = dsuffix[o + 1] * r[f] + suffix[o + 1] * t[f];
+                        suffix[o] = suffix[o + 1] * r[f];
+                    }
+                    double prefix = 1.0;
+                    double dprefix = 0.0;
+                    for (int o = 0; o < n; o++) {
+                        int f = operands[s + o];
+                        double others = prefix * suffix[o + 1];
+                        double dothers = dprefix * suffix[o + 1] + prefix * dsuffix[o + 1];
+                        a[f] += w * others;
+                        da[f] += dw * others + w * dothers;
+                        dprefix = dprefix * r[f] + prefix * t[f];
+                        prefix *= r[f];
+                    }
+                }
+                case CompiledExpression.DIVIDE -> {
+                    // z = x / y: dz/dx = 1/y, dz/dy = -z/y
+                    int y = operands[s + 1];
+                    double inv = 1.0 / r[y];
+                    double dinv = -t[y] * inv * inv;
+                    a[x] += w * inv;
+                    da[x] += dw * inv + w * dinv;
+                    double g = -r[out] * inv;
+                    double dg = -(t[out] * inv + r[out] * dinv);
+                    a[y] += w * g;
+                    da[y] += dw * g + w * dg;
+                }
+                case CompiledExpression.POWER -> {
+                    int y = operands[s + 1];
+                    double base = r[x];
+                    double exp = r[y];
+                    // dz/dx = y x^(y-1); its tangent has a ln x part only when y moves
+                    double g = exp * Math.pow(base, exp - 1);
+                    double dg = exp * (exp - 1) * Math.pow(base, exp - 2) * t[x];
+                    double ln = t[y] != 0.0 || y >= p.constants.length ? Math.log(base) : 0.0;
+                    if (t[y] != 0.0) dg += t[y] * Math.pow(base, exp - 1) * (1 + exp * ln);
+                    a[x] += w * g;
+                    da[x] += dw * g + w * dg;
+                    if (y >= p.constants.length) {
+                        // dz/dy = z ln x
+                        double h = r[out] * ln;
+                        double dh = t[out] * ln + r[out] * t[x] / base;
+                        a[y] += w * h;
+                        da[y] += dw * h + w * dh;
+                    }
+                }
+                case CompiledExpression.LOG -> {
+                    double inv = 1.0 / r[x];
+                    a[x] += w * inv;
+                    da[x] += dw * inv - w * t[x] * inv * inv;
+                }
+                case CompiledExpression.POWER_INT -> {
+                    int k = operands[s + 1];
+                    // Terms with a zero coefficient are dropped, so 0^-1 and 0^-2 never appear at x = 0
+                    double g = k == 0 ? 0.0 : k * CompiledExpression.powInt(r[x], k - 1);
+                    double dg = k * (k - 1) == 0 ? 0.0 : k * (k - 1) * CompiledExpression.powInt(r[x], k - 2) * t[x];
+                    a[x] += w * g;
+                    da[x] += dw * g + w * dg;
+                }
+                default -> throw new IllegalStateException("Bad opcode: " + p.opcodes[i]);
+            }
+        }
+        System.arraycopy(a, constants, gradient, 0, gradient.length);
+        System.arraycopy(da, constants, hv, 0, hv.length);
+        return r[p.resultRegister];
+    }
+}
@@ -0,0 +1,184 @@
+package com.github.arbitrary_number;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * A closed interval [lower, upper] known to contain a value. Every operation
+ * rounds its lower end toward negative infinity and its upper end toward
+ * positive infinity at the requested number of significant digits, so a
+ * bound computed from bounds still contains the true result. Results of the
+ * transcendental kernels are widened by a few units in the last place.
+ *
+ * An interval that cannot be bounded at this precision, such as a quotient
+ * whose divisor interval contains zero, is {@link #isBounded() unbounded}.
+ */
+public final class Interval {
+
+    static final Interval UNBOUNDED = new Interval(null, null);
+
+    // BigDecimalMath results are within an ulp; the extra one covers the
+    // rounding of the value handed in
+    private static final int KERNEL_ULPS = 2;
+
+    private final BigDecimal lower;
+    private final BigDecimal upper;
+
+    private Interval(BigDecimal lower, BigDecimal upper) {
+        this.lower = lower;
+        this.upper = upper;
+    }
+
+    static Interval point(BigDecimal value) {
+        return new Interval(value, value);
+    }
+
+    static Interval of(Rational value, int precision) {
+        BigDecimal num = new BigDecimal(value.num);
+        BigDecimal den = new BigDecimal(value.den);
+        return new Interval(num.divide(den, floor(precision)), num.divide(den, ceiling(precision)));
+    }
+
+    // A value computed to about precision significant digits
+    static Interval around(BigDecimal value, int precision) {
+        return new Interval(down(value, precision), up(value, precision));
+    }
+
+    // Null when unbounded
+    public BigDecimal lower() {
+        return lower;
+    }
+
+    // Null when unbounded
+    public BigDecimal upper() {
+        return upper;
+    }
+
+    public boolean isBounded() {
+        return lower != null;
+    }
+
+    public boolean isPoint() {
+        return isBounded() && lower.compareTo(upper) == 0;
+    }
+
+    // True when every value in this interval is below every value in the other
+    public boolean isBelow(Interval other) {
+        return isBounded() && other.isBounded() && upper.compareTo(other.lower) < 0;
+    }
+
+    Interval add(Interval o, int precision) {
+        if (!isBounded() || !o.isBounded()) return UNBOUNDED;
+        return new Interval(lower.add(o.lower, floor(precision)), upper.add(o.upper, ceiling(precision)));
+    }
+
+    Interval subtract(Interval o, int precision) {
+        if (!isBounded() || !o.isBounded()) return UNBOUNDED;
+        return new Interval(lower.subtract(o.upper, floor(precision)), upper.subtract(o.lower, ceiling(precision)));
+    }
+
+    Interval multiply(Interval o, int precision) {
+        if (!isBounded() || !o.isBounded()) return UNBOUNDED;
+        // Products of two p-digit ends are exact; only the extremes are rounded
+        BigDecimal a = lower.multiply(o.lower);
+        BigDecimal b = lower.multiply(o.upper);
+        BigDecimal c = upper.multiply(o.lower);
+        BigDecimal d = upper.multiply(o.upper);
+        BigDecimal min = a.min(b).min(c.min(d));
+        BigDecimal max = a.max(b).max(c.max(d));
+        return new Interval(min.round(floor(precision)), max.round(ceiling(precision)));
+    }
+
+    Interval divide(Interval o, int precision) {
+        if (!isBounded() || !o.isBounded()) return UNBOUNDED;
+        if (o.lower.signum() <= 0 && o.upper.signum() >= 0) {
+            if (o.isPoint()) throw new ArithmeticException("Division by zero.");
+            return UNBOUNDED;
+        }
+        // 1/x is decreasing on either side of zero
+        Interval reciprocal = new Interval(
+                BigDecimal.ONE.divide(o.upper, floor(precision)),
+                BigDecimal.ONE.divide(o.lower, ceiling(precision)));
+        return multiply(reciprocal, precision);
+    }
+
+    Interval ln(int precision) {
+        if (!isBounded()) return UNBOUNDED;
+        if (upper.signum() <= 0) throw new ArithmeticException("Logarithm of non-positive number: " + upper);
+        if (lower.signum() <= 0) return UNBOUNDED;
+        MathContext mc = new MathContext(precision);
+        return new Interval(
+                down(BigDecimalMath.ln(lower, mc), precision),
+                up(BigDecimalMath.ln(upper, mc), precision));
+    }
+
+    Interval pow(Interval exponent, int precision) {
+        if (!isBounded() || !exponent.isBounded()) return UNBOUNDED;
+        if (exponent.isPoint() && isInteger(exponent.lower)) {
+            return powInteger(exponent.lower.intValueExact(), precision);
+        }
+        if (lower.signum() <= 0) {
+            if (isPoint() && exponent.lower.signum() > 0) return point(BigDecimal.ZERO);
+            return UNBOUNDED;
+        }
+        // For a positive base x^y = exp(y ln x) is monotone in each argument,
+        // so its extremes sit at the corners
+        MathContext mc = new MathContext(precision);
+        BigDecimal min = null;
+        BigDecimal max = null;
+        for (BigDecimal x : new BigDecimal[] {lower, upper}) {
+            for (BigDecimal y : new BigDecimal[] {exponent.lower, exponent.upper}) {
+                BigDecimal v = BigDecimalMath.pow(x, y, mc);
+                min = min == null ? v : min.min(v);
+                max = max == null ? v : max.max(v);
+            }
+        }
+        return new Interval(down(min, precision), up(max, precision));
+    }
+
+    private Interval powInteger(int k, int precision) {
+        if (k == 0) return point(BigDecimal.ONE);
+        if (k < 0) return point(BigDecimal.ONE).divide(powInteger(-k, precision), precision);
+        MathContext mc = new MathContext(precision + KERNEL_ULPS + 1);
+        BigDecimal lo = down(lower.pow(k, mc), precision);
+        BigDecimal hi = up(upper.pow(k, mc), precision);
+        if (k % 2 == 1 || lower.signum() >= 0) return new Interval(lo, hi);
+        // An even power falls on the negative side and rises on the positive one
+        if (upper.signum() <= 0) return new Interval(down(upper.pow(k, mc), precision), up(lower.pow(k, mc), precision));
+        BigDecimal far = lower.abs().max(upper);
+        return new Interval(BigDecimal.ZERO, up(far.pow(k, mc), precision));
+    }
+
+    private static boolean isInteger(BigDecimal x) {
+        return x.signum() == 0 || x.stripTrailingZeros().scale() <= 0
+                && x.compareTo(BigDecimal.valueOf(Integer.MAX_VALUE)) <= 0
+                && x.compareTo(BigDecimal.valueOf(-Integer.MAX_VALUE)) >= 0;
+    }
+
+    // value moved KERNEL_ULPS units of its precision-th digit outward
+    private static BigDecimal down(BigDecimal value, int precision) {
+        return value.subtract(slack(value, precision), floor(precision));
+    }
+
+    private static BigDecimal up(BigDecimal value, int precision) {
+        return value.add(slack(value, precision), ceiling(precision));
+    }
+
+    private static BigDecimal slack(BigDecimal value, int precision) {
+        return value.abs().multiply(BigDecimal.valueOf(KERNEL_ULPS)).scaleByPowerOfTen(1 - precision);
+    }
+
+    private static MathContext floor(int precision) {
+        return new MathContext(precision, RoundingMode.FLOOR);
+    }
+
+    private static MathContext ceiling(int precision) {
+        return new MathContext(precision, RoundingMode.CEILING);
+    }
+
+    @Override
+    public String toString() {
+        return isBounded() ? "[" + lower + ", " + upper + "]" : "(unbounded)";
+    }
+}
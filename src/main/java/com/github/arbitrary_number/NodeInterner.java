@@ -0,0 +1,157 @@
+package com.github.arbitrary_number;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiPredicate;
+
+/**
+ * Concurrent weak hash-consing table. A node is looked up by its cached
+ * structural hash and a shallow shape comparison (operation, leaf values and
+ * children by identity); children are already canonical, so the shallow check
+ * is a full structural check. Entries disappear once their node is no longer
+ * referenced anywhere else.
+ */
+final class NodeInterner<T> {
+
+    private final ConcurrentHashMap<Key<T>, WeakEntry<T>> table = new ConcurrentHashMap<>();
+    private final ReferenceQueue<T> queue = new ReferenceQueue<>();
+    private final BiPredicate<T, T> sameShape;
+
+    NodeInterner(BiPredicate<T, T> sameShape) {
+        this.sameShape = sameShape;
+    }
+
+    // Returns the canonical node equal to candidate, registering candidate if there is none
+    T intern(T candidate, int hash) {
+        expungeStaleEntries();
+        Probe<T> probe = new Probe<>(candidate, hash, sameShape);
+        while (true) {
+            WeakEntry<T> existing = table.get(probe);
+            if (existing != null) {
+                T canonical = existing.get();
+                if (canonical != null) return canonical;
+                table.remove(existing, existing);
+                continue;
+            }
+            WeakEntry<T> entry = new WeakEntry<>(candidate, hash, sameShape, queue);
+            WeakEntry<T> raced = table.putIfAbsent(entry, entry);
+            if (raced == null) return candidate;
+            T canonical = raced.get();
+            if (canonical != null) return canonical;
+            table.remove(raced, raced);
+        }
+    }
+
+    int size() {
+        expungeStaleEntries();
+        return table.size();
+    }
+
+    void clear() {
+        table.clear();
+    }
+
+    private void expungeStaleEntries() {
+        Object stale;
+        while ((stale = queue.poll()) != null) {
+            @SuppressWarnings("unchecked")
+            WeakEntry<T> entry = (WeakEntry<T>) stale;
+            table.remove(entry, entry);
+        }
+    }
+
+    private interface Key<T> {
+        T referent();
+
+        int hash();
+
+        BiPredicate<T, T> sameShape();
+
+        static <T> boolean matches(Key<T> a, Object obj) {
+            if (a == obj) return true;
+            if (!(obj instanceof Key)) return false;
+            @SuppressWarnings("unchecked")
+            Key<T> b = (Key<T>) obj;
+            if (a.hash() != b.hash()) return false;
+            T x = a.referent();
+            T y = b.referent();
+            // A cleared entry only ever matches itself
+            if (x == null || y == null) return false;
+            return x == y || a.sameShape().test(x, y);
+        }
+    }
+
+    private static final class Probe<T> implements Key<T> {
+        private final T candidate;
+        private final int hash;
+        private final BiPredicate<T, T> sameShape;
+
+        Probe(T candidate, int hash, BiPredicate<T, T> sameShape) {
+            this.candidate = candidate;
+            this.hash = hash;
+            this.sameShape = sameShape;
+        }
+
+        @Override
+        public T referent() {
+            return candidate;
+        }
+
+        @Override
+        public int hash() {
+            return hash;
+        }
+
+        @Override
+        public BiPredicate<T, T> sameShape() {
+            return sameShape;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return Key.matches(this, obj);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class WeakEntry<T> extends WeakReference<T> implements Key<T> {
+        private final int hash;
+        private final BiPredicate<T, T> sameShape;
+
+        WeakEntry(T referent, int hash, BiPredicate<T, T> sameShape, ReferenceQueue<T> queue) {
+            super(referent, queue);
+            this.hash = hash;
+            this.sameShape = sameShape;
+        }
+
+        @Override
+        public T referent() {
+            return get();
+        }
+
+        @Override
+        public int hash() {
+            return hash;
+        }
+
+        @Override
+        public BiPredicate<T, T> sameShape() {
+            return sameShape;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return Key.matches(this, obj);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
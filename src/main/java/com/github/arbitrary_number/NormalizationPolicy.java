@@ -0,0 +1,77 @@
+package com.github.arbitrary_number;
+
+/**
+ * Decides when an {@link ArbitraryNumber} merges its terms.
+ *
+ * EAGER normalizes the result of every add/multiply/divideBy, LAZY only once the
+ * result crosses a term-count or bit-length threshold, and EXPLICIT never does
+ * so on its own (callers invoke {@link ArbitraryNumber#normalize()}).
+ */
+public final class NormalizationPolicy {
+
+    public enum Mode {
+        EAGER, LAZY, EXPLICIT
+    }
+
+    public static final int DEFAULT_MAX_TERMS = 1024;
+    public static final int DEFAULT_MAX_BIT_LENGTH = 4096;
+
+    private static final NormalizationPolicy EAGER = new NormalizationPolicy(Mode.EAGER, 0, 0);
+    private static final NormalizationPolicy EXPLICIT = new NormalizationPolicy(Mode.EXPLICIT, Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+    private final Mode mode;
+    private final int maxTerms;
+    private final int maxBitLength;
+
+    private NormalizationPolicy(Mode mode, int maxTerms, int maxBitLength) {
+        this.mode = mode;
+        this.maxTerms = maxTerms;
+        this.maxBitLength = maxBitLength;
+    }
+
+    public static NormalizationPolicy eager() {
+        return EAGER;
+    }
+
+    public static NormalizationPolicy explicit() {
+        return EXPLICIT;
+    }
+
+    public static NormalizationPolicy lazy() {
+        return lazy(DEFAULT_MAX_TERMS, DEFAULT_MAX_BIT_LENGTH);
+    }
+
+    // Normalize once a number holds more than maxTerms terms, or any of its
+    // BigIntegers grows beyond maxBitLength bits
+    public static NormalizationPolicy lazy(int maxTerms, int maxBitLength) {
+        if (maxTerms < 1 || maxBitLength < 1) {
+            throw new IllegalArgumentException("Thresholds must be positive.");
+        }
+        return new NormalizationPolicy(Mode.LAZY, maxTerms, maxBitLength);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public int getMaxTerms() {
+        return maxTerms;
+    }
+
+    public int getMaxBitLength() {
+        return maxBitLength;
+    }
+
+    boolean shouldNormalize(int termCount, int bitLength) {
+        return switch (mode) {
+            case EAGER -> true;
+            case LAZY -> termCount > maxTerms || bitLength > maxBitLength;
+            case EXPLICIT -> false;
+        };
+    }
+
+    @Override
+    public String toString() {
+        return mode == Mode.LAZY ? "LAZY(maxTerms=" + maxTerms + ", maxBitLength=" + maxBitLength + ")" : mode.name();
+    }
+}
@@ -0,0 +1,167 @@
+package com.github.arbitrary_number;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Fork-join evaluation behind {@link ArbitraryNumberV2#evaluateParallel} and
+ * {@link SymbolicExpression#evaluateParallel}. Each distinct node of the DAG
+ * counts its unfinished children; the worker that finishes the last child
+ * evaluates the parent. A parent whose estimated cost reaches FORK_THRESHOLD
+ * is forked as its own task so idle workers can steal it, anything cheaper is
+ * evaluated inline on an explicit work list, and a worker with nothing else
+ * left keeps one expensive parent for itself. Tasks are CountedCompleters:
+ * each reports to the task that forked it and nothing is ever joined, so every
+ * node is evaluated exactly once, no worker blocks on another, and thread
+ * stacks stay flat however deep the expression is.
+ *
+ * Nodes are evaluated with the same evaluateNode calls and child order as the
+ * sequential path, so the result is identical to evaluate(int).
+ */
+final class ParallelEvaluator {
+
+    // Nodes estimated at least this expensive are forked
+    static final int FORK_THRESHOLD = 32;
+    // Expressions whose total estimated cost is below this run sequentially
+    static final int SEQUENTIAL_THRESHOLD = 256;
+    // Leaves started per task before the leaf range is split
+    private static final int LEAF_BATCH = 64;
+
+    private final ExpressionNode<?>[] nodes;
+    private final int[][] children;
+    private final int[][] parents;
+    private final int[] leaves;
+    private final AtomicIntegerArray pending;
+    // Written before the decrement that releases the parent, read after it
+    private final BigDecimal[] values;
+    private final int precision;
+
+    static <N extends ExpressionNode<N>> BigDecimal evaluate(N root, int precision, ForkJoinPool pool) {
+        List<N> order = ExpressionTraversal.postOrder(root);
+        long cost = 0;
+        for (N n : order) cost += n.costEstimate();
+        if (cost < SEQUENTIAL_THRESHOLD) return ExpressionTraversal.evaluate(root, precision);
+
+        ParallelEvaluator evaluation = new ParallelEvaluator(order, precision);
+        pool.invoke(evaluation.new LeafTask(null, 0, evaluation.leaves.length));
+        return evaluation.values[order.size() - 1];
+    }
+
+    private <N extends ExpressionNode<N>> ParallelEvaluator(List<N> order, int precision) {
+        int n = order.size();
+        this.precision = precision;
+        nodes = new ExpressionNode<?>[n];
+        children = new int[n][];
+        values = new BigDecimal[n];
+        pending = new AtomicIntegerArray(n);
+
+        Map<N, Integer> index = new IdentityHashMap<>();
+        int[] parentCount = new int[n];
+        int leafCount = 0;
+        for (int i = 0; i < n; i++) {
+            N node = order.get(i);
+            index.put(node, i);
+            nodes[i] = node;
+            // A child used twice (x * x) is counted, and releases its parent, twice
+            children[i] = new int[node.arity()];
+            for (int c = 0; c < children[i].length; c++) {
+                children[i][c] = index.get(node.child(c));
+                parentCount[children[i][c]]++;
+            }
+            pending.set(i, children[i].length);
+            if (children[i].length == 0) leafCount++;
+        }
+
+        parents = new int[n][];
+        leaves = new int[leafCount];
+        for (int i = 0; i < n; i++) parents[i] = new int[parentCount[i]];
+        int[] filled = new int[n];
+        int leaf = 0;
+        for (int i = 0; i < n; i++) {
+            if (children[i].length == 0) leaves[leaf++] = i;
+            for (int c : children[i]) parents[c][filled[c]++] = i;
+        }
+    }
+
+    // Evaluates start and every parent it releases, forking expensive parents
+    // under owner while there is other work to do here
+    private void run(CountedCompleter<?> owner, int start) {
+        Deque<Integer> ready = new ArrayDeque<>();
+        ready.push(start);
+        while (!ready.isEmpty()) {
+            int i = ready.pop();
+            BigDecimal[] args = new BigDecimal[children[i].length];
+            for (int c = 0; c < args.length; c++) args[c] = values[children[i][c]];
+            values[i] = nodes[i].evaluateNode(precision, args);
+            int kept = -1;
+            for (int p : parents[i]) {
+                if (pending.decrementAndGet(p) != 0) continue;
+                if (nodes[p].costEstimate() < FORK_THRESHOLD) {
+                    ready.push(p);
+                } else {
+                    if (kept >= 0) fork(owner, kept);
+                    kept = p;
+                }
+            }
+            if (kept < 0) continue;
+            if (ready.isEmpty()) ready.push(kept);
+            else fork(owner, kept);
+        }
+    }
+
+    private void fork(CountedCompleter<?> owner, int node) {
+        owner.addToPendingCount(1);
+        new NodeTask(owner, node).fork();
+    }
+
+    private final class NodeTask extends CountedCompleter<Void> {
+        private static final long serialVersionUID = 1L;
+
+        private final int node;
+
+        NodeTask(CountedCompleter<?> completer, int node) {
+            super(completer);
+            this.node = node;
+        }
+
+        @Override
+        public void compute() {
+            run(this, node);
+            tryComplete();
+        }
+    }
+
+    // Splits the leaves in halves until a range is small, then starts from each
+    private final class LeafTask extends CountedCompleter<Void> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        LeafTask(CountedCompleter<?> completer, int from, int to) {
+            super(completer);
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public void compute() {
+            int end = to;
+            while (end - from > LEAF_BATCH) {
+                int mid = (from + end) >>> 1;
+                addToPendingCount(1);
+                new LeafTask(this, mid, end).fork();
+                end = mid;
+            }
+            for (int i = from; i < end; i++) run(this, leaves[i]);
+            tryComplete();
+        }
+    }
+}
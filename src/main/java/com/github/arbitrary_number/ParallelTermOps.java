@@ -0,0 +1,147 @@
+package com.github.arbitrary_number;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Fork-join kernels behind {@link ArbitraryNumber#multiplyParallel} and
+ * {@link ArbitraryNumber#evaluateToDecimalParallel}. The left operand's blocks
+ * are split in halves until a task is small, and partial results are combined
+ * pairwise in block order, so the output equals the sequential path exactly.
+ */
+final class ParallelTermOps {
+
+    // Below this many term products (or terms, for evaluation) a task runs sequentially
+    static final int SEQUENTIAL_THRESHOLD = 8192;
+
+    private ParallelTermOps() {
+    }
+
+    static List<TermBlock> blocks(TermSequence terms) {
+        List<TermBlock> blocks = new ArrayList<>();
+        for (TermBlock block : terms.blocks()) {
+            if (block.size > 0) blocks.add(block);
+        }
+        return blocks;
+    }
+
+    // Splits the left blocks first; a single left block with a long right operand
+    // is split along the right blocks instead, which keeps the same product order
+    static final class MultiplyTask extends RecursiveTask<TermSequence> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<TermBlock> left;
+        private final List<TermBlock> right;
+        private final int leftFrom;
+        private final int leftTo;
+        private final int rightFrom;
+        private final int rightTo;
+
+        MultiplyTask(List<TermBlock> left, List<TermBlock> right, int leftFrom, int leftTo, int rightFrom, int rightTo) {
+            this.left = left;
+            this.right = right;
+            this.leftFrom = leftFrom;
+            this.leftTo = leftTo;
+            this.rightFrom = rightFrom;
+            this.rightTo = rightTo;
+        }
+
+        @Override
+        protected TermSequence compute() {
+            long leftTerms = 0;
+            long rightTerms = 0;
+            for (int i = leftFrom; i < leftTo; i++) leftTerms += left.get(i).size;
+            for (int j = rightFrom; j < rightTo; j++) rightTerms += right.get(j).size;
+
+            if (leftTerms * rightTerms > SEQUENTIAL_THRESHOLD) {
+                MultiplyTask first;
+                MultiplyTask second;
+                if (leftTo - leftFrom > 1) {
+                    int mid = (leftFrom + leftTo) >>> 1;
+                    first = new MultiplyTask(left, right, leftFrom, mid, rightFrom, rightTo);
+                    second = new MultiplyTask(left, right, mid, leftTo, rightFrom, rightTo);
+                } else if (rightTo - rightFrom > 1) {
+                    int mid = (rightFrom + rightTo) >>> 1;
+                    first = new MultiplyTask(left, right, leftFrom, leftTo, rightFrom, mid);
+                    second = new MultiplyTask(left, right, leftFrom, leftTo, mid, rightTo);
+                } else {
+                    first = second = null;
+                }
+                if (first != null) {
+                    first.fork();
+                    TermSequence tail = second.compute();
+                    return first.join().concat(tail);
+                }
+            }
+
+            TermSequence.Builder products = new TermSequence.Builder();
+            for (int i = leftFrom; i < leftTo; i++) {
+                for (int j = rightFrom; j < rightTo; j++) {
+                    TermBlock.multiplyInto(left.get(i), right.get(j), products);
+                }
+            }
+            return products.build();
+        }
+    }
+
+    // Each term is rounded to the scale before summing and BigDecimal addition is
+    // exact, so any reduction order gives the sequential result
+    static final class SumTask extends RecursiveTask<BigDecimal> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<TermBlock> blocks;
+        private final int scale;
+        private final int from;
+        private final int to;
+
+        SumTask(List<TermBlock> blocks, int scale, int from, int to) {
+            this.blocks = blocks;
+            this.scale = scale;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected BigDecimal compute() {
+            if (to - from <= Math.max(1, SEQUENTIAL_THRESHOLD / TermSequence.CHUNK_SIZE)) {
+                BigDecimal sum = BigDecimal.ZERO;
+                for (int i = from; i < to; i++) sum = sum.add(blocks.get(i).sumToDecimal(scale));
+                return sum;
+            }
+            int mid = (from + to) >>> 1;
+            SumTask first = new SumTask(blocks, scale, from, mid);
+            first.fork();
+            BigDecimal second = new SumTask(blocks, scale, mid, to).compute();
+            return first.join().add(second);
+        }
+    }
+
+    // Reduced fractions are unique, so the parallel exact sum equals the sequential one
+    static final class ExactSumTask extends RecursiveTask<Rational> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<TermBlock> blocks;
+        private final int from;
+        private final int to;
+
+        ExactSumTask(List<TermBlock> blocks, int from, int to) {
+            this.blocks = blocks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Rational compute() {
+            if (to - from <= Math.max(1, SEQUENTIAL_THRESHOLD / TermSequence.CHUNK_SIZE)) {
+                return ArbitraryNumber.exactValue(blocks.subList(from, to));
+            }
+            int mid = (from + to) >>> 1;
+            ExactSumTask first = new ExactSumTask(blocks, from, mid);
+            first.fork();
+            Rational second = new ExactSumTask(blocks, mid, to).compute();
+            return first.join().add(second);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.github.arbitrary_number;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An expression evaluated at increasing precision. Rational subtrees (TERMs
+ * joined by ADD, SUBTRACT, MULTIPLY, DIVIDE and integer POWER) are computed
+ * exactly once, when the handle is created; each refinement only converts the
+ * rational values that feed an irrational node and re-evaluates the irrational
+ * nodes themselves, and a logarithm continues from its previous value.
+ *
+ * Values are computed with guard digits and rounded to the requested number of
+ * significant digits. Every refinement is recorded with its cost.
+ */
+public final class ProgressiveEvaluation {
+
+    private static final int GUARD_DIGITS = 10;
+
+    /**
+     * One call to {@link #refine(int)}: the value, how long it took, how many
+     * irrational nodes were evaluated and how many exact values were converted
+     * to decimals.
+     */
+    public static final class Refinement {
+        public final int precision;
+        public final BigDecimal value;
+        public final long nanos;
+        public final int nodesEvaluated;
+        public final int exactValuesConverted;
+
+        Refinement(int precision, BigDecimal value, long nanos, int nodesEvaluated, int exactValuesConverted) {
+            this.precision = precision;
+            this.value = value;
+            this.nanos = nanos;
+            this.nodesEvaluated = nodesEvaluated;
+            this.exactValuesConverted = exactValuesConverted;
+        }
+
+        @Override
+        public String toString() {
+            return precision + " digits: " + nodesEvaluated + " nodes evaluated, " + exactValuesConverted
+                    + " exact values converted, " + (nanos / 1000) + " us";
+        }
+    }
+
+    // Distinct nodes in post-order, with children as indexes into the same array
+    private final ExpressionNode<?>[] nodes;
+    private final int[][] children;
+    // Exact value of every rational node, null for the others
+    private final Rational[] exact;
+    // Rational nodes read by an irrational node
+    private final boolean[] feedsIrrational;
+    private final int exactNodes;
+
+    // Decimal values of the last refinement and the working precision used
+    private BigDecimal[] values;
+    private int workingPrecision;
+    private Refinement current;
+    private final List<Refinement> history = new ArrayList<>();
+
+    public static ProgressiveEvaluation of(ArbitraryNumberV2 root) {
+        return new ProgressiveEvaluation(root);
+    }
+
+    // The expression must not contain variables
+    public static ProgressiveEvaluation of(SymbolicExpression root) {
+        return new ProgressiveEvaluation(root);
+    }
+
+    private <N extends ExpressionNode<N>> ProgressiveEvaluation(N root) {
+        List<N> order = ExpressionTraversal.postOrder(root);
+        int n = order.size();
+        Map<N, Integer> index = new IdentityHashMap<>();
+        nodes = new ExpressionNode<?>[n];
+        children = new int[n][];
+        exact = new Rational[n];
+        feedsIrrational = new boolean[n];
+        int rational = 0;
+        for (int i = 0; i < n; i++) {
+            N node = order.get(i);
+            index.put(node, i);
+            nodes[i] = node;
+            children[i] = new int[node.arity()];
+            Rational[] args = new Rational[node.arity()];
+            boolean allExact = true;
+            for (int c = 0; c < args.length; c++) {
+                children[i][c] = index.get(node.child(c));
+                args[c] = exact[children[i][c]];
+                allExact &= args[c] != null;
+            }
+            if (allExact) exact[i] = node.evaluateExact(args);
+            if (exact[i] != null) {
+                rational++;
+            } else {
+                for (int c : children[i]) feedsIrrational[c] = true;
+            }
+        }
+        exactNodes = rational;
+    }
+
+    /**
+     * The value to the given number of significant digits. Asking for no more
+     * digits than the last refinement rounds that value without evaluating.
+     */
+    public synchronized Refinement refine(int precision) {
+        if (precision <= 0) throw new IllegalArgumentException("Precision must be positive: " + precision);
+        long start = System.nanoTime();
+        MathContext mc = new MathContext(precision);
+        int root = nodes.length - 1;
+
+        if (exact[root] != null) {
+            Refinement r = new Refinement(precision, exact[root].toBigDecimal(mc), System.nanoTime() - start, 0, 1);
+            if (current == null || precision > current.precision) current = r;
+            return record(r);
+        }
+        if (current != null && precision <= current.precision) {
+            return record(new Refinement(precision, current.value.round(mc), System.nanoTime() - start, 0, 0));
+        }
+
+        int wp = precision + GUARD_DIGITS;
+        MathContext wmc = new MathContext(wp);
+        BigDecimal[] next = new BigDecimal[nodes.length];
+        int evaluated = 0;
+        int converted = 0;
+        for (int i = 0; i < nodes.length; i++) {
+            if (exact[i] != null) {
+                if (feedsIrrational[i]) {
+                    next[i] = exact[i].toBigDecimal(wmc);
+                    converted++;
+                }
+                continue;
+            }
+            BigDecimal[] args = new BigDecimal[children[i].length];
+            for (int c = 0; c < args.length; c++) args[c] = next[children[i][c]];
+            next[i] = values == null
+                    ? nodes[i].evaluateNode(wp, args)
+                    : nodes[i].refineNode(wp, args, values[i], workingPrecision);
+            evaluated++;
+        }
+        values = next;
+        workingPrecision = wp;
+        current = new Refinement(precision, next[root].round(mc), System.nanoTime() - start, evaluated, converted);
+        return record(current);
+    }
+
+    private Refinement record(Refinement refinement) {
+        history.add(refinement);
+        return refinement;
+    }
+
+    // Highest precision evaluated so far, 0 before the first refinement
+    public synchronized int precision() {
+        return current == null ? 0 : current.precision;
+    }
+
+    public synchronized List<Refinement> history() {
+        return Collections.unmodifiableList(new ArrayList<>(history));
+    }
+
+    // Distinct nodes whose exact value was computed once at creation
+    public int exactNodeCount() {
+        return exactNodes;
+    }
+
+    public int nodeCount() {
+        return nodes.length;
+    }
+}
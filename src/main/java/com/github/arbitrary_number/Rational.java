@@ -0,0 +1,113 @@
+package com.github.arbitrary_number;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * Exact reduced fraction num/den with den > 0, used wherever a value has to be
+ * carried without rounding before one final division.
+ */
+final class Rational {
+
+    static final Rational ZERO = new Rational(BigInteger.ZERO, BigInteger.ONE);
+    static final Rational ONE = new Rational(BigInteger.ONE, BigInteger.ONE);
+
+    final BigInteger num;
+    final BigInteger den;
+
+    private Rational(BigInteger num, BigInteger den) {
+        this.num = num;
+        this.den = den;
+    }
+
+    static Rational of(BigInteger num, BigInteger den) {
+        if (den.signum() == 0) throw new ArithmeticException("Denominator cannot be zero.");
+        if (num.signum() == 0) return ZERO;
+        if (den.signum() < 0) {
+            num = num.negate();
+            den = den.negate();
+        }
+        BigInteger g = num.gcd(den);
+        if (!g.equals(BigInteger.ONE)) {
+            num = num.divide(g);
+            den = den.divide(g);
+        }
+        return new Rational(num, den);
+    }
+
+    static Rational of(BigInteger coefficient, BigInteger numerator, BigInteger denominator) {
+        return of(coefficient.multiply(numerator), denominator);
+    }
+
+    Rational add(Rational o) {
+        if (den.equals(o.den)) return of(num.add(o.num), den);
+        return of(num.multiply(o.den).add(o.num.multiply(den)), den.multiply(o.den));
+    }
+
+    Rational subtract(Rational o) {
+        return add(o.negate());
+    }
+
+    Rational multiply(Rational o) {
+        return of(num.multiply(o.num), den.multiply(o.den));
+    }
+
+    Rational divide(Rational o) {
+        if (o.num.signum() == 0) throw new ArithmeticException("Division by zero.");
+        return of(num.multiply(o.den), den.multiply(o.num));
+    }
+
+    Rational negate() {
+        return new Rational(num.negate(), den);
+    }
+
+    // this^exponent for an integer exponent; null when the exponent is not an
+    // integer, zero is raised to a negative power, or the result would need
+    // more than maxBits bits
+    Rational pow(Rational exponent, int maxBits) {
+        if (!exponent.isInteger() || exponent.num.bitLength() > 31) return null;
+        int e = exponent.num.intValue();
+        if (e < 0 && num.signum() == 0) return null;
+        long bits = (long) Math.max(num.bitLength(), den.bitLength()) * Math.abs((long) e);
+        if (bits > maxBits) return null;
+        // BigInteger.pow squares and multiplies; the result is still reduced
+        Rational r = new Rational(num.pow(Math.abs(e)), den.pow(Math.abs(e)));
+        return e < 0 ? ONE.divide(r) : r;
+    }
+
+    int signum() {
+        return num.signum();
+    }
+
+    boolean isInteger() {
+        return den.equals(BigInteger.ONE);
+    }
+
+    BigDecimal toBigDecimal(MathContext mc) {
+        return new BigDecimal(num).divide(new BigDecimal(den), mc);
+    }
+
+    BigDecimal toBigDecimal(int scale, RoundingMode rounding) {
+        return new BigDecimal(num).divide(new BigDecimal(den), scale, rounding);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof Rational)) return false;
+        Rational other = (Rational) obj;
+        return num.equals(other.num) && den.equals(other.den);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * num.hashCode() + den.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return num + "/" + den;
+    }
+}
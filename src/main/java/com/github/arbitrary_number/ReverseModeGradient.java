@@ -0,0 +1,159 @@
+package com.github.arbitrary_number;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Reverse-mode differentiation over a {@link CompiledExpression}. The forward
+ * pass keeps every register (the tape); the reverse pass walks the
+ * instructions backwards, pushing each result's adjoint to its operands, so
+ * one sweep yields the partial derivative for every variable slot. A register
+ * read by several instructions, a shared subexpression or x * x, receives the
+ * sum of its uses. Adjoints of constant registers are not tracked, and
+ * instructions whose adjoint is zero are skipped.
+ */
+final class ReverseModeGradient {
+
+    private ReverseModeGradient() {
+    }
+
+    static double gradient(CompiledExpression p, double[] slotValues, double[] partials) {
+        double[] r = p.registers(slotValues);
+        double[] adjoint = new double[r.length];
+        int[] operands = p.operands;
+        int[] start = p.operandStart;
+        int constants = p.constants.length;
+        adjoint[p.resultRegister] = 1.0;
+
+        for (int i = p.opcodes.length - 1; i >= 0; i--) {
+            int out = p.firstResult + i;
+            double a = adjoint[out];
+            if (a == 0.0) continue;
+            int s = start[i];
+            int x = operands[s];
+            switch (p.opcodes[i]) {
+                case CompiledExpression.ADD -> {
+                    for (int k = s; k < start[i + 1]; k++) adjoint[operands[k]] += a;
+                }
+                case CompiledExpression.SUBTRACT -> {
+                    adjoint[x] += a;
+                    adjoint[operands[s + 1]] -= a;
+                }
+                case CompiledExpression.MULTIPLY -> {
+                    int n = start[i + 1] - s;
+                    if (n == 2) {
+                        int y = operands[s + 1];
+                        adjoint[x] += a * r[y];
+                        adjoint[y] += a * r[x];
+                        continue;
+                    }
+                    // Each factor gets the product of the others: prefix times suffix, no division
+                    double[] suffix = new double[n + 1];
+                    suffix[n] = 1.0;
+                    for (int k = n - 1; k >= 0; k--) suffix[k] = suffix[k + 1] * r[operands[s + k]];
+                    double prefix = 1.0;
+                    for (int k = 0; k < n; k++) {
+                        adjoint[operands[s + k]] += a * prefix * suffix[k + 1];
+                        prefix *= r[operands[s + k]];
+                    }
+                }
+                case CompiledExpression.DIVIDE -> {
+                    int y = operands[s + 1];
+                    adjoint[x] += a / r[y];
+                    if (y >= constants) adjoint[y] -= a * r[out] / r[y];
+                }
+                case CompiledExpression.POWER -> {
+                    int y = operands[s + 1];
+                    adjoint[x] += a * r[y] * Math.pow(r[x], r[y] - 1);
+                    if (y >= constants) adjoint[y] += a * r[out] * Math.log(r[x]);
+                }
+                case CompiledExpression.LOG -> adjoint[x] += a / r[x];
+                case CompiledExpression.POWER_INT -> {
+                    int k = operands[s + 1];
+                    // x^0 is constant; skipping it keeps 0^-1 out of the sum at x = 0
+                    if (k != 0) adjoint[x] += a * k * CompiledExpression.powInt(r[x], k - 1);
+                }
+                default -> throw new IllegalStateException("Bad opcode: " + p.opcodes[i]);
+            }
+        }
+        System.arraycopy(adjoint, constants, partials, 0, partials.length);
+        return r[p.resultRegister];
+    }
+
+    static BigDecimal[] gradient(CompiledExpression p, BigDecimal[] slotValues, int precision) {
+        BigDecimal[] r = p.registers(slotValues, precision);
+        BigDecimal[] adjoint = new BigDecimal[r.length];
+        int[] operands = p.operands;
+        int[] start = p.operandStart;
+        int constants = p.constants.length;
+        adjoint[p.resultRegister] = BigDecimal.ONE;
+
+        for (int i = p.opcodes.length - 1; i >= 0; i--) {
+            int out = p.firstResult + i;
+            BigDecimal a = adjoint[out];
+            if (a == null || a.signum() == 0) continue;
+            int s = start[i];
+            int x = operands[s];
+            switch (p.opcodes[i]) {
+                case CompiledExpression.ADD -> {
+                    for (int k = s; k < start[i + 1]; k++) accumulate(adjoint, operands[k], a, constants);
+                }
+                case CompiledExpression.SUBTRACT -> {
+                    accumulate(adjoint, x, a, constants);
+                    accumulate(adjoint, operands[s + 1], a.negate(), constants);
+                }
+                case CompiledExpression.MULTIPLY -> {
+                    int n = start[i + 1] - s;
+                    if (n == 2) {
+                        int y = operands[s + 1];
+                        accumulate(adjoint, x, a.multiply(r[y]), constants);
+                        accumulate(adjoint, y, a.multiply(r[x]), constants);
+                        continue;
+                    }
+                    BigDecimal[] suffix = new BigDecimal[n + 1];
+                    suffix[n] = BigDecimal.ONE;
+                    for (int k = n - 1; k >= 0; k--) suffix[k] = suffix[k + 1].multiply(r[operands[s + k]]);
+                    BigDecimal prefix = BigDecimal.ONE;
+                    for (int k = 0; k < n; k++) {
+                        accumulate(adjoint, operands[s + k], a.multiply(prefix).multiply(suffix[k + 1]), constants);
+                        prefix = prefix.multiply(r[operands[s + k]]);
+                    }
+                }
+                case CompiledExpression.DIVIDE -> {
+                    int y = operands[s + 1];
+                    accumulate(adjoint, x, a.divide(r[y], precision, RoundingMode.HALF_UP), constants);
+                    accumulate(adjoint, y, a.multiply(r[out]).negate().divide(r[y], precision, RoundingMode.HALF_UP), constants);
+                }
+                case CompiledExpression.POWER -> {
+                    int y = operands[s + 1];
+                    if (x >= constants) {
+                        BigDecimal slope = r[y].multiply(BigDecimalMath.pow(r[x], r[y].subtract(BigDecimal.ONE), precision));
+                        accumulate(adjoint, x, a.multiply(slope), constants);
+                    }
+                    if (y >= constants) accumulate(adjoint, y, a.multiply(r[out]).multiply(BigDecimalMath.ln(r[x], precision)), constants);
+                }
+                case CompiledExpression.LOG -> accumulate(adjoint, x, a.divide(r[x], precision, RoundingMode.HALF_UP), constants);
+                case CompiledExpression.POWER_INT -> {
+                    int k = operands[s + 1];
+                    if (k == 0) continue;
+                    BigDecimal power = k - 1 >= 0
+                            ? r[x].pow(k - 1)
+                            : BigDecimal.ONE.divide(r[x].pow(1 - k), precision, RoundingMode.HALF_UP);
+                    accumulate(adjoint, x, a.multiply(BigDecimal.valueOf(k)).multiply(power), constants);
+                }
+                default -> throw new IllegalStateException("Bad opcode: " + p.opcodes[i]);
+            }
+        }
+        BigDecimal[] partials = new BigDecimal[slotValues.length];
+        for (int i = 0; i < partials.length; i++) {
+            BigDecimal v = adjoint[constants + i];
+            partials[i] = v == null ? BigDecimal.ZERO : v;
+        }
+        return partials;
+    }
+
+    private static void accumulate(BigDecimal[] adjoint, int register, BigDecimal value, int constants) {
+        if (register < constants) return;
+        adjoint[register] = adjoint[register] == null ? value : adjoint[register].add(value);
+    }
+}
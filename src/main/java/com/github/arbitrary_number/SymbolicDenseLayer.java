@@ -42,14 +42,15 @@ public class SymbolicDenseLayer {
         List<ArbitraryNumberV2> outputs = new ArrayList<>();
 
         for (int i = 0; i < outputSize; i++) {
-            ArbitraryNumberV2 sum = biases[i];
+            // One n-ary sum per output instead of an inputSize-deep chain
+            List<ArbitraryNumberV2> terms = new ArrayList<>(inputSize + 1);
+            terms.add(biases[i]);
 
             for (int j = 0; j < inputSize; j++) {
-                ArbitraryNumberV2 weighted = ArbitraryNumberV2.multiply(weights[i][j], inputVector.get(j));
-                sum = ArbitraryNumberV2.add(sum, weighted);
+                terms.add(ArbitraryNumberV2.multiply(weights[i][j], inputVector.get(j)));
             }
 
-            outputs.add(sum);
+            outputs.add(ArbitraryNumberV2.sum(terms));
         }
 
         return outputs;
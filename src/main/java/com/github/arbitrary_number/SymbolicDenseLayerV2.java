@@ -31,14 +31,14 @@ public class SymbolicDenseLayerV2 {
         List<SymbolicExpression> outputs = new ArrayList<>();
 
         for (int j = 0; j < outputSize; j++) {
-            SymbolicExpression sum = SymbolicExpression.term(BigInteger.ZERO, BigInteger.ONE, BigInteger.ONE); // zero term
+            // w1*x1 + ... + wn*xn + b as one n-ary sum
+            List<SymbolicExpression> terms = new ArrayList<>(inputSize + 1);
             for (int i = 0; i < inputSize; i++) {
-                SymbolicExpression weightedInput = SymbolicExpression.multiply(weights[j][i], inputVars.get(i));
-                sum = SymbolicExpression.add(sum, weightedInput);
+                terms.add(SymbolicExpression.multiply(weights[j][i], inputVars.get(i)));
             }
             // Add bias
-            sum = SymbolicExpression.add(sum, biases.get(j));
-            outputs.add(sum);
+            terms.add(biases.get(j));
+            outputs.add(SymbolicExpression.sum(terms));
         }
         return outputs;
     }
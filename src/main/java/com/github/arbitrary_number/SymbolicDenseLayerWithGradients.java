@@ -20,15 +20,15 @@ public class SymbolicDenseLayerWithGradients {
         ArbitraryNumberV2[][] inputGradients = new ArbitraryNumberV2[outputSize][inputs.length];
 
         for (int i = 0; i < outputSize; i++) {
-            ArbitraryNumberV2 sum = biases[i];
+            List<ArbitraryNumberV2> terms = new ArrayList<>(inputs.length + 1);
+            terms.add(biases[i]);
             for (int j = 0; j < inputs.length; j++) {
-                ArbitraryNumberV2 product = ArbitraryNumberV2.multiply(weights[i][j], inputs[j]);
-                sum = ArbitraryNumberV2.add(sum, product);
+                terms.add(ArbitraryNumberV2.multiply(weights[i][j], inputs[j]));
 
                 // Gradient of output[i] w.r.t input[j] is weight[i][j]
                 inputGradients[i][j] = weights[i][j];
             }
-            outputs[i] = sum;
+            outputs[i] = ArbitraryNumberV2.sum(terms);
         }
 
         return new Result(outputs, inputGradients);
@@ -1,42 +1,182 @@
 package com.github.arbitrary_number;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.math.MathContext;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
 
-public class SymbolicExpression {
+public class SymbolicExpression implements ExpressionNode<SymbolicExpression> {
     enum Operation {
         TERM, ADD, SUBTRACT, MULTIPLY, DIVIDE, POWER, LOG, VARIABLE
     }
 
-    Operation op;
-    List<SymbolicExpression> children = new ArrayList<>();
-    BigInteger coefficient = BigInteger.ONE;
-    BigInteger numerator = BigInteger.ONE;
-    BigInteger denominator = BigInteger.ONE;
-    String variableName;
+    final Operation op;
+    final List<SymbolicExpression> children;
+    final BigInteger coefficient;
+    final BigInteger numerator;
+    final BigInteger denominator;
+    final String variableName;
+
+    // Cached structural hash, 0 until first computed
+    private int hash;
+    // Canonical node from the intern table; every descendant is canonical too
+    private boolean interned;
+    // Register program built by compile(), or kept by program() on second use
+    private volatile CompiledExpression compiled;
+    // Set by program() the first time it builds a program it does not keep
+    private volatile boolean compiledOnce;
+
+    private static volatile boolean interning;
+    private static final NodeInterner<SymbolicExpression> INTERNER = new NodeInterner<>(SymbolicExpression::sameShape);
+
+    private static final ConstantFolding<SymbolicExpression> FOLDING = new ConstantFolding<>() {
+        @Override
+        Rational constantValue(SymbolicExpression n) {
+            return SymbolicExpression.constantValue(n);
+        }
+
+        @Override
+        SymbolicExpression constant(Rational value) {
+            return SymbolicExpression.constant(value);
+        }
+
+        @Override
+        boolean isSum(SymbolicExpression n) {
+            return n.op == Operation.ADD;
+        }
+
+        @Override
+        boolean isProduct(SymbolicExpression n) {
+            return n.op == Operation.MULTIPLY;
+        }
+
+        @Override
+        SymbolicExpression withOperands(SymbolicExpression like, SymbolicExpression left, SymbolicExpression right) {
+            return node(like.op, left, right);
+        }
+
+        @Override
+        SymbolicExpression add(SymbolicExpression a, SymbolicExpression b) {
+            return SymbolicExpression.add(a, b);
+        }
+
+        @Override
+        SymbolicExpression sum(List<SymbolicExpression> operands) {
+            return SymbolicExpression.sum(operands);
+        }
+
+        @Override
+        SymbolicExpression subtract(SymbolicExpression a, SymbolicExpression b) {
+            return SymbolicExpression.subtract(a, b);
+        }
+
+        @Override
+        SymbolicExpression multiply(SymbolicExpression a, SymbolicExpression b) {
+            return SymbolicExpression.multiply(a, b);
+        }
+
+        @Override
+        SymbolicExpression product(List<SymbolicExpression> operands) {
+            return SymbolicExpression.product(operands);
+        }
+
+        @Override
+        SymbolicExpression divide(SymbolicExpression a, SymbolicExpression b) {
+            return SymbolicExpression.divide(a, b);
+        }
+
+        @Override
+        SymbolicExpression power(SymbolicExpression base, SymbolicExpression exp) {
+            return SymbolicExpression.power(base, exp);
+        }
+
+        @Override
+        SymbolicExpression log(SymbolicExpression arg) {
+            return SymbolicExpression.log(arg);
+        }
+    };
+
+    /**
+     * Enables or disables hash-consing. While enabled the factory methods return
+     * one shared node per distinct subtree, held weakly, so structurally equal
+     * expressions are the same object and compare in O(1). Canonical nodes are
+     * shared and must not be mutated.
+     */
+    public static void setInterning(boolean enabled) {
+        interning = enabled;
+    }
+
+    public SymbolicExpression() {
+        this(null, new ArrayList<>(), BigInteger.ONE, BigInteger.ONE, BigInteger.ONE, null);
+    }
+
+    // Every field a node is hashed and compared on is final and set here, so
+    // a node is safely published however it reaches another thread
+    private SymbolicExpression(Operation op, List<SymbolicExpression> children, BigInteger coefficient,
+                               BigInteger numerator, BigInteger denominator, String variableName) {
+        this.op = op;
+        this.children = children;
+        this.coefficient = coefficient;
+        this.numerator = numerator;
+        this.denominator = denominator;
+        this.variableName = variableName;
+    }
+
+    private SymbolicExpression(Operation op, List<SymbolicExpression> children) {
+        this(op, children, BigInteger.ONE, BigInteger.ONE, BigInteger.ONE, null);
+    }
+
+    public static boolean isInterning() {
+        return interning;
+    }
+
+    static int internedNodeCount() {
+        return INTERNER.size();
+    }
+
+    // Every factory ends here: the hash is computed from the children's cached
+    // hashes, and the node is swapped for its canonical copy when interning
+    private static SymbolicExpression finish(SymbolicExpression n) {
+        int h = n.hashCode();
+        if (!interning) return n;
+        for (SymbolicExpression c : n.children) {
+            if (!c.interned) return n;
+        }
+        // Marked before the table publishes it, so a thread that finds the
+        // node there also sees the flag
+        n.interned = true;
+        return INTERNER.intern(n, h);
+    }
 
     // Factory methods
     public static SymbolicExpression term(BigInteger coef, BigInteger num, BigInteger denom) {
-        SymbolicExpression n = new SymbolicExpression();
-        n.op = Operation.TERM;
-        n.coefficient = coef;
-        n.numerator = num;
-        n.denominator = denom;
-        return n;
+        return finish(new SymbolicExpression(Operation.TERM, new ArrayList<>(), coef, num, denom, null));
     }
 
     public static SymbolicExpression variable(String name) {
-        SymbolicExpression n = new SymbolicExpression();
-        n.op = Operation.VARIABLE;
-        n.variableName = name;
-        return n;
+        return finish(new SymbolicExpression(Operation.VARIABLE, new ArrayList<>(), BigInteger.ONE, BigInteger.ONE, BigInteger.ONE, name));
     }
 
     public static SymbolicExpression add(SymbolicExpression a, SymbolicExpression b) {
@@ -59,20 +199,40 @@ public class SymbolicExpression {
         return node(Operation.POWER, base, exp);
     }
 
+    // n-ary sum; operands that are sums themselves are inlined, so a whole
+    // dense-layer row is one node instead of a chain of nested pairs
+    public static SymbolicExpression sum(List<SymbolicExpression> operands) {
+        return flattened(Operation.ADD, operands, BigInteger.ZERO);
+    }
+
+    // n-ary product, flattened the same way
+    public static SymbolicExpression product(List<SymbolicExpression> operands) {
+        return flattened(Operation.MULTIPLY, operands, BigInteger.ONE);
+    }
+
+    private static SymbolicExpression flattened(Operation op, List<SymbolicExpression> operands, BigInteger identity) {
+        List<SymbolicExpression> children = new ArrayList<>();
+        for (SymbolicExpression c : operands) {
+            if (c.op == op) children.addAll(c.children);
+            else children.add(c);
+        }
+        if (children.isEmpty()) return term(identity, BigInteger.ONE, BigInteger.ONE);
+        if (children.size() == 1) return children.get(0);
+        return finish(new SymbolicExpression(op, children));
+    }
+
     public static SymbolicExpression log(SymbolicExpression arg) {
-        SymbolicExpression n = new SymbolicExpression();
-        n.op = Operation.LOG;
-        n.children.add(arg);
-        return n;
+        List<SymbolicExpression> children = new ArrayList<>();
+        children.add(arg);
+        return finish(new SymbolicExpression(Operation.LOG, children));
     }
 
     public static SymbolicExpression node(Operation op, SymbolicExpression... nodes) {
-        SymbolicExpression n = new SymbolicExpression();
-        n.op = op;
+        List<SymbolicExpression> children = new ArrayList<>();
         for (SymbolicExpression c : nodes) {
-            n.children.add(c);
+            children.add(c);
         }
-        return n;
+        return finish(new SymbolicExpression(op, children));
     }
 
     public static SymbolicExpression negate(SymbolicExpression number) {
@@ -99,44 +259,155 @@ public class SymbolicExpression {
     }
 
     // Method to compute symbolic derivative with respect to a given variable
+    // Iterative, children first, one derivative per distinct node: a shared
+    // subexpression is differentiated once and its derivative is shared too,
+    // so the result grows linearly with the size of the DAG
     public SymbolicExpression differentiate(String variableName) {
+        return derivative(n -> n.op == Operation.VARIABLE && variableName.equals(n.variableName));
+    }
+
+    // Symbolic differentiation that works with multiple variables
+    public SymbolicExpression differentiate(Map<String, SymbolicExpression> variableMap) {
+        return derivative(n -> n.op == Operation.VARIABLE && variableMap.containsKey(n.variableName));
+    }
+
+    // Derivative with respect to inputVar; every node equal to it has derivative 1
+    public SymbolicExpression symbolicGrad(SymbolicExpression inputVar) {
+        return derivative(inputVar::equals);
+    }
+
+    private SymbolicExpression derivative(Predicate<SymbolicExpression> isVariable) {
+        Map<SymbolicExpression, SymbolicExpression> derivatives = new IdentityHashMap<>();
+        for (SymbolicExpression n : ExpressionTraversal.postOrder(this)) {
+            derivatives.put(n, isVariable.test(n) ? constant(Rational.ONE) : n.differentiateNode(derivatives));
+        }
+        return derivatives.get(this);
+    }
+
+    // Derivative of this node given the derivatives d of its children, built
+    // with constructors that fold constants and drop zero terms and unit factors
+    private SymbolicExpression differentiateNode(Map<SymbolicExpression, SymbolicExpression> d) {
         switch (op) {
-            case TERM:
-                // Constants have zero derivative
-                return term(BigInteger.ZERO, BigInteger.ONE, BigInteger.ONE);
-            case VARIABLE:
-                // d(x)/dx = 1
-                return variableName.equals(this.variableName)
-                        ? term(BigInteger.ONE, BigInteger.ONE, BigInteger.ONE)
-                        : term(BigInteger.ZERO, BigInteger.ONE, BigInteger.ONE);
-            case ADD:
-                return add(children.get(0).differentiate(variableName),
-                           children.get(1).differentiate(variableName));
-            case SUBTRACT:
-                return subtract(children.get(0).differentiate(variableName),
-                                children.get(1).differentiate(variableName));
-            case MULTIPLY:
-                return add(multiply(children.get(0).differentiate(variableName), children.get(1)),
-                           multiply(children.get(0), children.get(1).differentiate(variableName)));
-            case DIVIDE:
-                return divide(
-                        subtract(multiply(children.get(0).differentiate(variableName), children.get(1)),
-                                 multiply(children.get(0), children.get(1).differentiate(variableName))),
-                        multiply(children.get(1), children.get(1)));
-            case POWER:
+            case TERM, VARIABLE -> {
+                return constant(Rational.ZERO);
+            }
+            case ADD -> {
+                List<SymbolicExpression> terms = new ArrayList<>();
+                for (SymbolicExpression c : children) terms.add(d.get(c));
+                return FOLDING.plus(terms);
+            }
+            case SUBTRACT -> {
+                return FOLDING.minus(d.get(children.get(0)), d.get(children.get(1)));
+            }
+            case MULTIPLY -> {
+                return FOLDING.productRule(children, d);
+            }
+            case DIVIDE -> {
+                // (u/v)' = (u' - (u/v) v') / v, reusing this quotient
+                SymbolicExpression u = children.get(0);
+                SymbolicExpression v = children.get(1);
+                return FOLDING.over(FOLDING.minus(d.get(u), FOLDING.times(this, d.get(v))), v);
+            }
+            case POWER -> {
                 SymbolicExpression base = children.get(0);
                 SymbolicExpression exp = children.get(1);
-                SymbolicExpression baseDerivative = base.differentiate(variableName);
-                return multiply(multiply(exp, power(base, subtract(exp, term(BigInteger.ONE, BigInteger.ONE, BigInteger.ONE)))), baseDerivative);
-            case LOG:
-                return divide(children.get(0).differentiate(variableName), children.get(0));
-            default:
-                throw new UnsupportedOperationException("Unknown operation: " + op);
+                SymbolicExpression baseDerivative = d.get(base);
+                SymbolicExpression expDerivative = d.get(exp);
+                if (FOLDING.isZero(expDerivative)) {
+                    // g * f^(g-1) * f'
+                    return FOLDING.times(FOLDING.times(exp, FOLDING.raised(base, FOLDING.minus(exp, constant(Rational.ONE)))), baseDerivative);
+                }
+                // f^g * (g' * ln(f) + g * f'/f)
+                return FOLDING.times(this, FOLDING.plus(List.of(FOLDING.times(expDerivative, log(base)), FOLDING.times(exp, FOLDING.over(baseDerivative, base)))));
+            }
+            case LOG -> {
+                SymbolicExpression u = children.get(0);
+                return FOLDING.over(d.get(u), u);
+            }
+            default -> throw new UnsupportedOperationException("Differentiation not implemented for op: " + op);
         }
     }
 
-    // Evaluate to a BigDecimal (approximate)
+    // Evaluate to a BigDecimal (approximate); iterative, each distinct node once
     public BigDecimal evaluate(int precision) {
+        return ExpressionTraversal.evaluate(this, precision);
+    }
+
+    // Memoized evaluation; shared subexpressions are computed once per context
+    public BigDecimal evaluate(int precision, EvaluationContext context) {
+        return context.evaluate(this, precision);
+    }
+
+    // Independent subtrees evaluated on the common pool; the result equals evaluate(int)
+    public BigDecimal evaluateParallel(int precision) {
+        return evaluateParallel(precision, ForkJoinPool.commonPool());
+    }
+
+    public BigDecimal evaluateParallel(int precision, ForkJoinPool pool) {
+        return ParallelEvaluator.evaluate(this, precision, pool);
+    }
+
+    // Enclosure of the value with both ends rounded outward to precision digits
+    public Interval bound(int precision) {
+        return CertifiedComparison.boundOf(this, precision);
+    }
+
+    // Certified sign and ordering: bounds are refined only while they overlap
+    public int signum() {
+        return CertifiedComparison.signumOf(this);
+    }
+
+    public int compareTo(SymbolicExpression other) {
+        return CertifiedComparison.compareOf(this, other);
+    }
+
+    // Index of the largest value, the first one on a tie
+    public static int argmax(List<SymbolicExpression> values) {
+        return CertifiedComparison.argmaxOf(values);
+    }
+
+    public static SymbolicExpression max(List<SymbolicExpression> values) {
+        return values.get(CertifiedComparison.argmaxOf(values));
+    }
+
+    @Override
+    public int arity() {
+        return children.size();
+    }
+
+    @Override
+    public SymbolicExpression child(int index) {
+        return children.get(index);
+    }
+
+    // ln and non-integer powers cost dozens of multiplications; n-ary nodes grow with their arity
+    @Override
+    public int costEstimate() {
+        switch (op) {
+            case ADD, SUBTRACT -> {
+                return children.size();
+            }
+            case MULTIPLY -> {
+                return 2 * children.size();
+            }
+            case DIVIDE -> {
+                return 4;
+            }
+            case POWER -> {
+                Rational exponent = constantValue(children.get(1));
+                return exponent != null && exponent.isInteger() ? 8 : 64;
+            }
+            case LOG -> {
+                return 64;
+            }
+            default -> {
+                return 1;
+            }
+        }
+    }
+
+    @Override
+    public BigDecimal evaluateNode(int precision, BigDecimal[] args) {
         MathContext mc = new MathContext(precision);
         switch (op) {
             case TERM -> {
@@ -146,28 +417,32 @@ public class SymbolicExpression {
             case VARIABLE -> throw new UnsupportedOperationException("Cannot evaluate symbolic variable directly.");
             case ADD -> {
                 BigDecimal sum = BigDecimal.ZERO;
-                for (SymbolicExpression c : children) sum = sum.add(c.evaluate(precision), mc);
+                for (BigDecimal v : args) sum = sum.add(v, mc);
                 return sum;
             }
             case SUBTRACT -> {
-                return children.get(0).evaluate(precision).subtract(children.get(1).evaluate(precision), mc);
+                return args[0].subtract(args[1], mc);
             }
             case MULTIPLY -> {
                 BigDecimal prod = BigDecimal.ONE;
-                for (SymbolicExpression c : children) prod = prod.multiply(c.evaluate(precision), mc);
+                for (BigDecimal v : args) prod = prod.multiply(v, mc);
                 return prod;
             }
             case DIVIDE -> {
-                return children.get(0).evaluate(precision).divide(children.get(1).evaluate(precision), mc);
+                return args[0].divide(args[1], mc);
             }
             case POWER -> {
-                BigDecimal base = children.get(0).evaluate(precision);
-                BigDecimal exp = children.get(1).evaluate(precision);
-                return new BigDecimal(Math.pow(base.doubleValue(), exp.doubleValue()), mc);
+                // A constant raised to an integer: exact num^k/den^k, rounded once
+                Rational base = constantValue(children.get(0));
+                Rational exponent = constantValue(children.get(1));
+                if (base != null && exponent != null) {
+                    Rational exact = base.pow(exponent, ConstantFolding.MAX_FOLDED_BITS);
+                    if (exact != null) return exact.toBigDecimal(mc);
+                }
+                return BigDecimalMath.pow(args[0], args[1], mc);
             }
             case LOG -> {
-                BigDecimal arg = children.get(0).evaluate(precision);
-                return new BigDecimal(Math.log(arg.doubleValue()), mc);
+                return BigDecimalMath.ln(args[0], mc);
             }
             default -> throw new UnsupportedOperationException("Unknown op: " + op);
         }
@@ -175,10 +450,50 @@ public class SymbolicExpression {
 
 
 
-    // Evaluate the derivative for given variable values
+    // Evaluate the derivative for given variable values; forward mode over the
+    // compiled program, so no derivative expression is built
     public double evaluateDerivative(Map<String, Double> variableValues, String variableName) {
-        SymbolicExpression derivative = this.differentiate(variableName);
-        return derivative.evaluate(variableValues);
+        CompiledExpression program = program();
+        int slot = program.slotOf(variableName);
+        if (slot < 0) return 0.0;
+        double[] direction = new double[program.variables().size()];
+        direction[slot] = 1.0;
+        return program.derivative(program.slotValues(variableValues), direction)[1];
+    }
+
+    public BigDecimal evaluateDerivative(Map<String, BigDecimal> variableValues, String variableName, int precision) {
+        CompiledExpression program = program();
+        int slot = program.slotOf(variableName);
+        if (slot < 0) return BigDecimal.ZERO;
+        BigDecimal[] direction = new BigDecimal[program.variables().size()];
+        Arrays.fill(direction, BigDecimal.ZERO);
+        direction[slot] = BigDecimal.ONE;
+        return program.derivative(program.decimalSlotValues(variableValues), direction, precision)[1];
+    }
+
+    // H v for the direction given by name, with variables not named moving by
+    // zero; no second-derivative expression is built
+    public Map<String, Double> hessianVectorProduct(Map<String, Double> variableValues, Map<String, Double> direction) {
+        CompiledExpression program = program();
+        List<String> names = program.variables();
+        double[] v = new double[names.size()];
+        for (int i = 0; i < v.length; i++) v[i] = direction.getOrDefault(names.get(i), 0.0);
+        double[] gradient = new double[v.length];
+        double[] hv = new double[v.length];
+        program.hessianVectorProduct(program.slotValues(variableValues), v, gradient, hv);
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (int i = 0; i < v.length; i++) result.put(names.get(i), hv[i]);
+        return result;
+    }
+
+    // The value and the first order derivatives with respect to one variable,
+    // element m being the m-th derivative
+    public double[] higherDerivatives(Map<String, Double> variableValues, String variableName, int order) {
+        CompiledExpression program = program();
+        double[] direction = new double[program.variables().size()];
+        int slot = program.slotOf(variableName);
+        if (slot >= 0) direction[slot] = 1.0;
+        return program.higherDerivatives(program.slotValues(variableValues), direction, order);
     }
 
 
@@ -186,142 +501,342 @@ public class SymbolicExpression {
 
     // Symbolic gradient (same as before)...
 
-    // Convert expression to JSON
+    // Convert expression to JSON, children first; a shared node maps to one JSONObject
+    // JSONObject.toString recurses per level; writeNestedJson writes deep trees
     public JSONObject toJson() {
-        JSONObject json = new JSONObject();
-        json.put("operation", op.name());
-        json.put("coefficient", coefficient.toString());
-        json.put("numerator", numerator.toString());
-        json.put("denominator", denominator.toString());
-        if (variableName != null) json.put("variable", variableName);
-        if (!children.isEmpty()) {
-            JSONArray childrenArray = new JSONArray();
-            for (SymbolicExpression child : children) {
-                childrenArray.put(child.toJson());
-            }
-            json.put("children", childrenArray);
+        Map<SymbolicExpression, JSONObject> converted = new IdentityHashMap<>();
+        for (SymbolicExpression n : ExpressionTraversal.postOrder(this)) {
+            JSONObject json = new JSONObject();
+            json.put("operation", n.op.name());
+            json.put("coefficient", n.coefficient.toString());
+            json.put("numerator", n.numerator.toString());
+            json.put("denominator", n.denominator.toString());
+            if (n.variableName != null) json.put("variable", n.variableName);
+            if (!n.children.isEmpty()) {
+                JSONArray childrenArray = new JSONArray();
+                for (SymbolicExpression child : n.children) {
+                    childrenArray.put(converted.get(child));
+                }
+                json.put("children", childrenArray);
+            }
+            converted.put(n, json);
         }
-        return json;
+        return converted.get(this);
     }
 
-    private boolean isZero(SymbolicExpression n) {
-        return n.op == Operation.TERM && n.coefficient.equals(BigInteger.ZERO);
+    /**
+     * Streams the expression as JSON without building a JSONObject tree; every
+     * distinct node is written once and children are referenced by id (see
+     * {@link ExpressionJsonStream}). The writer is flushed, not closed, and is
+     * written in small pieces, so pass a buffered one.
+     */
+    public void writeJson(Writer out) throws IOException {
+        ExpressionJsonStream.write(this, out, "children", (n, w) -> {
+            ExpressionJsonStream.field(w, "operation", n.op.name());
+            if (n.op == Operation.TERM) {
+                ExpressionJsonStream.field(w, "coefficient", n.coefficient.toString());
+                ExpressionJsonStream.field(w, "numerator", n.numerator.toString());
+                ExpressionJsonStream.field(w, "denominator", n.denominator.toString());
+            } else if (n.op == Operation.VARIABLE) {
+                ExpressionJsonStream.field(w, "variable", n.variableName);
+            }
+        });
     }
 
-    private boolean isOne(SymbolicExpression n) {
-        return n.op == Operation.TERM && n.coefficient.equals(BigInteger.ONE) &&
-               n.numerator.equals(BigInteger.ONE) && n.denominator.equals(BigInteger.ONE);
+    /**
+     * Streams the same nested document toJson builds, without building it and
+     * without recursing, so it works at any depth where toJson().toString()
+     * overflows the stack. A shared node is written at every use.
+     */
+    public void writeNestedJson(Writer out) throws IOException {
+        ExpressionJsonStream.writeNested(this, out, "children", (n, w) -> {
+            ExpressionJsonStream.field(w, "operation", n.op.name());
+            ExpressionJsonStream.field(w, "coefficient", n.coefficient.toString());
+            ExpressionJsonStream.field(w, "numerator", n.numerator.toString());
+            ExpressionJsonStream.field(w, "denominator", n.denominator.toString());
+            if (n.variableName != null) ExpressionJsonStream.field(w, "variable", n.variableName);
+        });
     }
 
-    // Symbolic differentiation that works with multiple variables
-    public SymbolicExpression differentiate(Map<String, SymbolicExpression> variableMap) {
+    // UTF-8, buffered; the stream is flushed, not closed
+    public void writeJson(OutputStream out) throws IOException {
+        writeJson(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+    }
+
+    // Reads what writeJson wrote; malformed input throws JSONException
+    public static SymbolicExpression readJson(Reader in) {
+        return ExpressionJsonStream.read(in, "children", (fields, children) -> {
+            Operation op = Operation.valueOf(ExpressionJsonStream.required(fields, "operation"));
+            ExpressionJsonStream.checkArity(op.name(), children.size());
+            if (op == Operation.TERM) {
+                return term(new BigInteger(ExpressionJsonStream.required(fields, "coefficient")),
+                        new BigInteger(ExpressionJsonStream.required(fields, "numerator")),
+                        new BigInteger(ExpressionJsonStream.required(fields, "denominator")));
+            }
+            if (op == Operation.VARIABLE) return variable(ExpressionJsonStream.required(fields, "variable"));
+            return node(op, children.toArray(new SymbolicExpression[0]));
+        });
+    }
+
+    public static SymbolicExpression readJson(InputStream in) {
+        return readJson(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+    }
+
+    // Compact binary form; read it back with ExpressionArchive.open or wrap
+    public void writeBinary(OutputStream out) throws IOException {
+        ExpressionArchive.write(this, out);
+    }
+
+    @Override
+    public Rational evaluateExact(Rational[] args) {
         switch (op) {
             case TERM:
-                // Constants have zero derivative
-                return term(BigInteger.ZERO, BigInteger.ONE, BigInteger.ONE);
-            case VARIABLE:
-                // d(x)/dx = 1
-                if (variableMap.containsKey(variableName)) {
-                    return term(BigInteger.ONE, BigInteger.ONE, BigInteger.ONE);
-                } else {
-                    return term(BigInteger.ZERO, BigInteger.ONE, BigInteger.ONE);
-                }
+                return constantValue(this);
             case ADD: {
-                SymbolicExpression left = children.get(0).differentiate(variableMap);
-                SymbolicExpression right = children.get(1).differentiate(variableMap);
-                return add(left, right);
-            }
-            case SUBTRACT: {
-                SymbolicExpression left = children.get(0).differentiate(variableMap);
-                SymbolicExpression right = children.get(1).differentiate(variableMap);
-                return subtract(left, right);
+                Rational sum = Rational.ZERO;
+                for (Rational v : args) sum = sum.add(v);
+                return sum;
             }
+            case SUBTRACT:
+                return args[0].subtract(args[1]);
             case MULTIPLY: {
-                SymbolicExpression u = children.get(0);
-                SymbolicExpression v = children.get(1);
-                return add(
-                        multiply(u.differentiate(variableMap), v),
-                        multiply(u, v.differentiate(variableMap))
-                );
+                Rational product = Rational.ONE;
+                for (Rational v : args) product = product.multiply(v);
+                return product;
             }
-            case DIVIDE: {
-                SymbolicExpression u = children.get(0);
-                SymbolicExpression v = children.get(1);
-                return divide(
-                        subtract(
-                                multiply(u.differentiate(variableMap), v),
-                                multiply(u, v.differentiate(variableMap))
-                        ),
-                        power(v, term(BigInteger.valueOf(2), BigInteger.ONE, BigInteger.ONE))
-                );
-            }
-            case POWER: {
-                SymbolicExpression base = children.get(0);
-                SymbolicExpression exp = children.get(1);
+            case DIVIDE:
+                return args[1].signum() == 0 ? null : args[0].divide(args[1]);
+            case POWER:
+                return args[0].pow(args[1], ConstantFolding.MAX_FOLDED_BITS);
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public Interval boundNode(int precision, Interval[] args) {
+        switch (op) {
+            case TERM -> {
+                return Interval.of(Rational.of(coefficient, numerator, denominator), precision);
+            }
+            case VARIABLE -> throw new UnsupportedOperationException("Cannot evaluate symbolic variable directly.");
+            case ADD -> {
+                Interval sum = Interval.point(BigDecimal.ZERO);
+                for (Interval v : args) sum = sum.add(v, precision);
+                return sum;
+            }
+            case SUBTRACT -> {
+                return args[0].subtract(args[1], precision);
+            }
+            case MULTIPLY -> {
+                Interval product = Interval.point(BigDecimal.ONE);
+                for (Interval v : args) product = product.multiply(v, precision);
+                return product;
+            }
+            case DIVIDE -> {
+                return args[0].divide(args[1], precision);
+            }
+            case POWER -> {
+                return args[0].pow(args[1], precision);
+            }
+            case LOG -> {
+                return args[0].ln(precision);
+            }
+            default -> throw new UnsupportedOperationException("Unknown op: " + op);
+        }
+    }
 
-                SymbolicExpression lnBase = log(base);
-                SymbolicExpression baseDeriv = base.differentiate(variableMap);
-                SymbolicExpression expDeriv = exp.differentiate(variableMap);
+    // A logarithm continues from its previous value instead of starting over
+    @Override
+    public BigDecimal refineNode(int precision, BigDecimal[] args, BigDecimal previous, int previousPrecision) {
+        if (op == Operation.LOG) return BigDecimalMath.ln(args[0], new MathContext(precision), previous, previousPrecision);
+        return evaluateNode(precision, args);
+    }
 
-                SymbolicExpression term1 = multiply(expDeriv, lnBase);
-                SymbolicExpression term2 = multiply(exp, divide(baseDeriv, base));
+    // One bottom-up pass over the DAG. Any subtree of TERMs joined by
+    // ADD/SUBTRACT/MULTIPLY/DIVIDE or an integer POWER collapses into one
+    // reduced TERM c*(1/d); constant operands of a sum or product are merged
+    // into one, nested sums and products are flattened, and additive zeros
+    // and multiplicative ones are dropped
+    public SymbolicExpression simplify() {
+        Map<SymbolicExpression, SymbolicExpression> simplified = new IdentityHashMap<>();
+        for (SymbolicExpression n : ExpressionTraversal.postOrder(this)) {
+            simplified.put(n, n.simplifyNode(simplified));
+        }
+        return simplified.get(this);
+    }
 
-                SymbolicExpression sum = add(term1, term2);
+    // This node rebuilt over the already simplified children s
+    private SymbolicExpression simplifyNode(Map<SymbolicExpression, SymbolicExpression> s) {
+        return switch (op) {
+            case ADD, MULTIPLY -> FOLDING.foldNary(this, s);
+            case SUBTRACT -> FOLDING.foldDifference(this, s.get(children.get(0)), s.get(children.get(1)));
+            case DIVIDE -> FOLDING.foldQuotient(this, s.get(children.get(0)), s.get(children.get(1)));
+            case POWER -> FOLDING.foldPower(this, s.get(children.get(0)), s.get(children.get(1)));
+            case LOG -> FOLDING.foldLog(this, s.get(children.get(0)));
+            default -> this;
+        };
+    }
 
-                return multiply(this, sum); // f^g * (g' * ln(f) + g * f'/f)
-            }
-            case LOG: {
-                SymbolicExpression u = children.get(0);
-                return divide(u.differentiate(variableMap), u);
-            }
+    // Exact value of a TERM, null for any other node
+    private static Rational constantValue(SymbolicExpression n) {
+        if (n.op != Operation.TERM || n.denominator.signum() == 0) return null;
+        return Rational.of(n.coefficient, n.numerator, n.denominator);
+    }
+
+    private static SymbolicExpression constant(Rational value) {
+        return term(value.num, BigInteger.ONE, value.den);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        return ExpressionTraversal.structurallyEqual(this, (SymbolicExpression) obj, SymbolicExpression::sameLabel);
+    }
+
+    // One pair of nodes, children aside. Two distinct canonical nodes are never
+    // structurally equal, and a hash mismatch rules out equality early.
+    private static boolean sameLabel(SymbolicExpression x, SymbolicExpression y) {
+        if (x.interned && y.interned) return false;
+        if (x.op != y.op) return false;
+        if (x.hashCode() != y.hashCode()) return false;
+        switch (x.op) {
+            case TERM:
+                return x.coefficient.equals(y.coefficient) &&
+                       x.numerator.equals(y.numerator) &&
+                       x.denominator.equals(y.denominator);
+            case VARIABLE:
+                return x.variableName.equals(y.variableName);
             default:
-                throw new UnsupportedOperationException("Differentiation not implemented for op: " + op);
+                return x.children.size() == y.children.size();
         }
     }
 
-    // Evaluate the symbolic expression for given variable values (Map)
-    public double evaluate(Map<String, Double> variableValues) {
-        switch (op) {
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            switch (op) {
+                case TERM -> h = 31 * (31 * (31 * op.ordinal() + coefficient.hashCode()) + numerator.hashCode()) + denominator.hashCode();
+                case VARIABLE -> h = 31 * op.ordinal() + variableName.hashCode();
+                default -> {
+                    h = op.ordinal();
+                    for (SymbolicExpression c : children) h = 31 * h + c.hashCode();
+                }
+            }
+            if (h == 0) h = 1;
+            hash = h;
+        }
+        return h;
+    }
+
+    // Intern table key comparison: leaf values, and children by identity
+    private static boolean sameShape(SymbolicExpression x, SymbolicExpression y) {
+        if (x.op != y.op) return false;
+        switch (x.op) {
             case TERM:
-                return coefficient.doubleValue() * (numerator.doubleValue() / denominator.doubleValue());
+                return x.coefficient.equals(y.coefficient) &&
+                       x.numerator.equals(y.numerator) &&
+                       x.denominator.equals(y.denominator);
             case VARIABLE:
-                if (variableValues.containsKey(variableName)) {
-                    return variableValues.get(variableName);
-                } else {
-                    throw new IllegalArgumentException("Variable " + variableName + " not found in evaluation map.");
-                }
-            case ADD:
-                return children.get(0).evaluate(variableValues) + children.get(1).evaluate(variableValues);
-            case SUBTRACT:
-                return children.get(0).evaluate(variableValues) - children.get(1).evaluate(variableValues);
-            case MULTIPLY:
-                return children.get(0).evaluate(variableValues) * children.get(1).evaluate(variableValues);
-            case DIVIDE:
-                return children.get(0).evaluate(variableValues) / children.get(1).evaluate(variableValues);
-            case POWER:
-                return Math.pow(children.get(0).evaluate(variableValues), children.get(1).evaluate(variableValues));
-            case LOG:
-                return Math.log(children.get(0).evaluate(variableValues));
+                return x.variableName.equals(y.variableName);
             default:
-                throw new UnsupportedOperationException("Unknown operation: " + op);
+                if (x.children.size() != y.children.size()) return false;
+                for (int i = 0; i < x.children.size(); i++) {
+                    if (x.children.get(i) != y.children.get(i)) return false;
+                }
+                return true;
         }
     }
 
+    // Evaluate the symbolic expression for given variable values (Map)
+    public double evaluate(Map<String, Double> variableValues) {
+        return program().evaluate(variableValues);
+    }
+
+    /**
+     * Lowers this expression to a flat register program with one slot per
+     * variable name. The program is built once and kept on this node; repeated
+     * evaluation with different bindings should go through it.
+     */
+    public CompiledExpression compile() {
+        CompiledExpression program = compiled;
+        if (program == null) {
+            program = CompiledExpression.compile(this);
+            compiled = program;
+        }
+        return program;
+    }
+
+    // The program behind the evaluation methods. It is kept on this node only
+    // from the second use on, so the many subexpressions that are evaluated
+    // once (layer outputs, derivative intermediates) do not each hold one.
+    private CompiledExpression program() {
+        CompiledExpression program = compiled;
+        if (program != null) return program;
+        program = CompiledExpression.compile(this);
+        if (compiledOnce) compiled = program;
+        else compiledOnce = true;
+        return program;
+    }
+
+    boolean holdsProgram() {
+        return compiled != null;
+    }
+
+    // Every partial derivative at once by reverse-mode sweep over the compiled program
+    public Map<String, Double> gradient(Map<String, Double> variableValues) {
+        return program().gradient(variableValues);
+    }
+
     // Helper methods for simplification (same as before)...
 
     // Convert the expression to a JSON representation (same as before)
     @Override
     public String toString() {
+        // One builder fed from an explicit stack of nodes and literal tokens
+        StringBuilder sb = new StringBuilder();
+        Deque<Object> pending = new ArrayDeque<>();
+        pending.push(this);
+        while (!pending.isEmpty()) {
+            Object item = pending.pop();
+            if (item instanceof String) {
+                sb.append((String) item);
+                continue;
+            }
+            SymbolicExpression n = (SymbolicExpression) item;
+            switch (n.op) {
+                case TERM -> sb.append(n.coefficient).append(" * (").append(n.numerator).append('/').append(n.denominator).append(')');
+                case VARIABLE -> sb.append(n.variableName);
+                case LOG -> {
+                    sb.append("log(");
+                    pending.push(")");
+                    pending.push(n.children.get(0));
+                }
+                default -> {
+                    // "(a op b op c)", children pushed last to first
+                    sb.append('(');
+                    pending.push(")");
+                    for (int i = n.children.size() - 1; i > 0; i--) {
+                        pending.push(n.children.get(i));
+                        pending.push(symbol(n.op));
+                    }
+                    pending.push(n.children.get(0));
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String symbol(Operation op) {
         return switch (op) {
-            case TERM -> coefficient + " * (" + numerator + "/" + denominator + ")";
-            case VARIABLE -> variableName;
-            case ADD -> "(" + children.get(0) + " + " + children.get(1) + ")";
-            case SUBTRACT -> "(" + children.get(0) + " - " + children.get(1) + ")";
-            case MULTIPLY -> "(" + children.get(0) + " * " + children.get(1) + ")";
-            case DIVIDE -> "(" + children.get(0) + " / " + children.get(1) + ")";
-            case POWER -> "(" + children.get(0) + " ^ " + children.get(1) + ")";
-            case LOG -> "log(" + children.get(0) + ")";
-            default -> "Unknown operation";
+            case ADD -> " + ";
+            case SUBTRACT -> " - ";
+            case MULTIPLY -> " * ";
+            case DIVIDE -> " / ";
+            case POWER -> " ^ ";
+            default -> throw new IllegalStateException("Not a binary operation: " + op);
         };
     }
 }
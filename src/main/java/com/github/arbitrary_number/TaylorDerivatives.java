@@ -0,0 +1,151 @@
+package com.github.arbitrary_number;
+
+/**
+ * Higher derivatives along a line by truncated Taylor arithmetic over a
+ * {@link CompiledExpression}. Each register holds the coefficients c[0..n] of
+ * its Taylor polynomial in s at x + s v, so the m-th derivative along v is
+ * m! c[m]. Products are truncated Cauchy products; quotients, logarithms and
+ * powers use the usual recurrences, which cost O(n^2) per instruction, so
+ * every derivative up to order n comes from one pass with no symbolic
+ * derivative built.
+ */
+final class TaylorDerivatives {
+
+    private TaylorDerivatives() {
+    }
+
+    // Coefficients c[0..order] of f(x + s direction)
+    static double[] coefficients(CompiledExpression p, double[] slotValues, double[] direction, int order) {
+        int n = order + 1;
+        int constants = p.constants.length;
+        double[][] c = new double[p.registerCount()][];
+        for (int i = 0; i < constants; i++) {
+            c[i] = new double[n];
+            c[i][0] = p.constants[i];
+        }
+        for (int i = 0; i < slotValues.length; i++) {
+            double[] v = new double[n];
+            v[0] = slotValues[i];
+            if (n > 1) v[1] = direction[i];
+            c[constants + i] = v;
+        }
+        int[] operands = p.operands;
+        int[] start = p.operandStart;
+
+        for (int i = 0, out = p.firstResult; i < p.opcodes.length; i++, out++) {
+            int s = start[i];
+            double[] x = c[operands[s]];
+            c[out] = switch (p.opcodes[i]) {
+                case CompiledExpression.ADD -> {
+                    double[] sum = x.clone();
+                    for (int o = s + 1; o < start[i + 1]; o++) {
+                        double[] y = c[operands[o]];
+                        for (int m = 0; m < n; m++) sum[m] += y[m];
+                    }
+                    yield sum;
+                }
+                case CompiledExpression.SUBTRACT -> {
+                    double[] y = c[operands[s + 1]];
+                    double[] difference = new double[n];
+                    for (int m = 0; m < n; m++) difference[m] = x[m] - y[m];
+                    yield difference;
+                }
+                case CompiledExpression.MULTIPLY -> {
+                    double[] product = x;
+                    for (int o = s + 1; o < start[i + 1]; o++) product = multiply(product, c[operands[o]]);
+                    yield product;
+                }
+                case CompiledExpression.DIVIDE -> divide(x, c[operands[s + 1]]);
+                case CompiledExpression.POWER -> {
+                    double[] y = c[operands[s + 1]];
+                    yield isConstant(y) ? power(x, y[0]) : exp(multiply(y, log(x)));
+                }
+                case CompiledExpression.LOG -> log(x);
+                case CompiledExpression.POWER_INT -> powerInt(x, operands[s + 1]);
+                default -> throw new IllegalStateException("Bad opcode: " + p.opcodes[i]);
+            };
+        }
+        return c[p.resultRegister];
+    }
+
+    private static boolean isConstant(double[] x) {
+        for (int m = 1; m < x.length; m++) {
+            if (x[m] != 0.0) return false;
+        }
+        return true;
+    }
+
+    private static double[] multiply(double[] x, double[] y) {
+        double[] z = new double[x.length];
+        for (int m = 0; m < z.length; m++) {
+            double sum = 0.0;
+            for (int j = 0; j <= m; j++) sum += x[j] * y[m - j];
+            z[m] = sum;
+        }
+        return z;
+    }
+
+    // q y = x, solved for q one coefficient at a time
+    private static double[] divide(double[] x, double[] y) {
+        double[] q = new double[x.length];
+        for (int m = 0; m < q.length; m++) {
+            double sum = x[m];
+            for (int j = 1; j <= m; j++) sum -= y[j] * q[m - j];
+            q[m] = sum / y[0];
+        }
+        return q;
+    }
+
+    // From x l' = x'
+    private static double[] log(double[] x) {
+        double[] l = new double[x.length];
+        l[0] = Math.log(x[0]);
+        for (int m = 1; m < l.length; m++) {
+            double sum = 0.0;
+            for (int j = 1; j < m; j++) sum += j * l[j] * x[m - j];
+            l[m] = (x[m] - sum / m) / x[0];
+        }
+        return l;
+    }
+
+    // From e' = e u'
+    private static double[] exp(double[] u) {
+        double[] e = new double[u.length];
+        e[0] = Math.exp(u[0]);
+        for (int m = 1; m < e.length; m++) {
+            double sum = 0.0;
+            for (int j = 1; j <= m; j++) sum += j * u[j] * e[m - j];
+            e[m] = sum / m;
+        }
+        return e;
+    }
+
+    // x^a for a constant a, from x z' = a z x'; integer exponents go through
+    // products so that a zero base stays exact
+    private static double[] power(double[] x, double a) {
+        if (a == Math.rint(a) && Math.abs(a) <= Integer.MAX_VALUE) return powerInt(x, (int) a);
+        double[] z = new double[x.length];
+        z[0] = Math.pow(x[0], a);
+        for (int m = 1; m < z.length; m++) {
+            double sum = 0.0;
+            for (int j = 1; j <= m; j++) sum += (a * j - (m - j)) * x[j] * z[m - j];
+            z[m] = sum / (m * x[0]);
+        }
+        return z;
+    }
+
+    // Square-and-multiply on truncated series
+    private static double[] powerInt(double[] x, int k) {
+        double[] result = new double[x.length];
+        result[0] = 1.0;
+        double[] square = x;
+        for (long e = Math.abs((long) k); e > 0; e >>= 1) {
+            if ((e & 1) != 0) result = multiply(result, square);
+            if (e > 1) square = multiply(square, square);
+        }
+        if (k >= 0) return result;
+        double[] one = new double[x.length];
+        one[0] = 1.0;
+        return divide(one, result);
+    }
+}
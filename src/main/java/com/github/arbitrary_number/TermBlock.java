@@ -0,0 +1,265 @@
+package com.github.arbitrary_number;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Arrays;
+
+import com.github.arbitrary_number.ArbitraryNumber.Term;
+
+/**
+ * Column-oriented chunk of terms: parallel arrays of coefficients, numerators
+ * and denominators. A block whose values all fit in a long is packed into three
+ * long[] columns; otherwise it holds three BigInteger[] columns. Term objects
+ * are only created as views when a caller asks for one.
+ */
+final class TermBlock {
+
+    static final TermBlock EMPTY = new TermBlock(0, new long[0], new long[0], new long[0], null, null, null);
+
+    final int size;
+
+    // Packed columns, non-null when every value fits in a long
+    final long[] lc;
+    final long[] la;
+    final long[] lb;
+
+    // Wide columns, non-null otherwise
+    final BigInteger[] c;
+    final BigInteger[] a;
+    final BigInteger[] b;
+
+    private TermBlock(int size, long[] lc, long[] la, long[] lb, BigInteger[] c, BigInteger[] a, BigInteger[] b) {
+        this.size = size;
+        this.lc = lc;
+        this.la = la;
+        this.lb = lb;
+        this.c = c;
+        this.a = a;
+        this.b = b;
+    }
+
+    boolean isPacked() {
+        return lc != null;
+    }
+
+    Term term(int i) {
+        return isPacked() ? new Term(lc[i], la[i], lb[i]) : new Term(c[i], a[i], b[i]);
+    }
+
+    BigInteger coefficient(int i) {
+        return isPacked() ? BigInteger.valueOf(lc[i]) : c[i];
+    }
+
+    BigInteger numeratorFactor(int i) {
+        return isPacked() ? BigInteger.valueOf(la[i]) : a[i];
+    }
+
+    BigInteger denominator(int i) {
+        return isPacked() ? BigInteger.valueOf(lb[i]) : b[i];
+    }
+
+    int bitLength() {
+        int bits = 0;
+        if (isPacked()) {
+            long or = 0;
+            for (int i = 0; i < size; i++) or |= Math.abs(lc[i]) | Math.abs(la[i]) | Math.abs(lb[i]);
+            return or < 0 ? Long.SIZE - 1 : Long.SIZE - Long.numberOfLeadingZeros(or);
+        }
+        for (int i = 0; i < size; i++) {
+            bits = Math.max(bits, Math.max(c[i].bitLength(), Math.max(a[i].bitLength(), b[i].bitLength())));
+        }
+        return bits;
+    }
+
+    // Every pairwise product x[i] * y[j], row by row, in long arithmetic while nothing overflows
+    static void multiplyInto(TermBlock x, TermBlock y, TermSequence.Builder out) {
+        boolean packed = x.isPacked() && y.isPacked();
+        for (int i = 0; i < x.size; i++) {
+            for (int j = 0; j < y.size; j++) {
+                if (packed) {
+                    try {
+                        out.add(Math.multiplyExact(x.lc[i], y.lc[j]),
+                                Math.multiplyExact(x.la[i], y.la[j]),
+                                Math.multiplyExact(x.lb[i], y.lb[j]));
+                        continue;
+                    } catch (ArithmeticException overflow) {
+                        // promote this product to BigInteger below
+                    }
+                }
+                out.add(x.coefficient(i).multiply(y.coefficient(j)),
+                        x.numeratorFactor(i).multiply(y.numeratorFactor(j)),
+                        x.denominator(i).multiply(y.denominator(j)));
+            }
+        }
+    }
+
+    // (c1 * a1 / b1) / (c2 * a2 / b2) = 1 * ((c1 * a1 * b2) / (b1 * c2 * a2)) for every term
+    static void divideInto(TermBlock x, Term divisor, TermSequence.Builder out) {
+        boolean packed = x.isPacked() && divisor.small;
+        for (int i = 0; i < x.size; i++) {
+            if (packed) {
+                try {
+                    long num = Math.multiplyExact(Math.multiplyExact(x.lc[i], x.la[i]), divisor.lb);
+                    long den = Math.multiplyExact(Math.multiplyExact(x.lb[i], divisor.lc), divisor.la);
+                    if (den != 0) {
+                        out.add(1, num, den);
+                        continue;
+                    }
+                } catch (ArithmeticException overflow) {
+                    // promote to BigInteger below
+                }
+            }
+            BigInteger num = x.numerator(i).multiply(divisor.b);
+            BigInteger den = x.denominator(i).multiply(divisor.c).multiply(divisor.a);
+            if (den.signum() == 0) {
+                throw new ArithmeticException("Division by zero during term computation.");
+            }
+            out.add(BigInteger.ONE, num, den);
+        }
+    }
+
+    // c * a
+    BigInteger numerator(int i) {
+        if (isPacked()) {
+            try {
+                return BigInteger.valueOf(Math.multiplyExact(lc[i], la[i]));
+            } catch (ArithmeticException overflow) {
+                return BigInteger.valueOf(lc[i]).multiply(BigInteger.valueOf(la[i]));
+            }
+        }
+        return c[i].multiply(a[i]);
+    }
+
+    // Sum of c * a / b over the block, each term rounded HALF_UP to the scale
+    BigDecimal sumToDecimal(int scale) {
+        BigDecimal sum = BigDecimal.ZERO;
+        if (isPacked()) {
+            for (int i = 0; i < size; i++) {
+                BigDecimal num;
+                try {
+                    num = BigDecimal.valueOf(Math.multiplyExact(lc[i], la[i]));
+                } catch (ArithmeticException overflow) {
+                    num = new BigDecimal(BigInteger.valueOf(lc[i]).multiply(BigInteger.valueOf(la[i])));
+                }
+                sum = sum.add(num.divide(BigDecimal.valueOf(lb[i]), scale, RoundingMode.HALF_UP));
+            }
+        } else {
+            for (int i = 0; i < size; i++) {
+                sum = sum.add(new BigDecimal(c[i].multiply(a[i])).divide(new BigDecimal(b[i]), scale, RoundingMode.HALF_UP));
+            }
+        }
+        return sum;
+    }
+
+    static TermBlock concat(TermBlock x, TermBlock y) {
+        Builder builder = new Builder(x.size + y.size);
+        builder.addAll(x);
+        builder.addAll(y);
+        return builder.build();
+    }
+
+    /**
+     * Growable column buffer. Starts packed and widens to BigInteger columns the
+     * first time a value does not fit in a long.
+     */
+    static final class Builder {
+        private long[] lc;
+        private long[] la;
+        private long[] lb;
+        private BigInteger[] c;
+        private BigInteger[] a;
+        private BigInteger[] b;
+        private int size;
+
+        Builder(int capacity) {
+            lc = new long[capacity];
+            la = new long[capacity];
+            lb = new long[capacity];
+        }
+
+        int size() {
+            return size;
+        }
+
+        Builder add(long tc, long ta, long tb) {
+            if (tb == 0) throw new IllegalArgumentException("Denominator cannot be zero.");
+            ensureCapacity();
+            if (lc != null) {
+                lc[size] = tc;
+                la[size] = ta;
+                lb[size] = tb;
+            } else {
+                c[size] = BigInteger.valueOf(tc);
+                a[size] = BigInteger.valueOf(ta);
+                b[size] = BigInteger.valueOf(tb);
+            }
+            size++;
+            return this;
+        }
+
+        Builder add(BigInteger tc, BigInteger ta, BigInteger tb) {
+            if (fits(tc) && fits(ta) && fits(tb)) return add(tc.longValue(), ta.longValue(), tb.longValue());
+            if (tb.signum() == 0) throw new IllegalArgumentException("Denominator cannot be zero.");
+            widen();
+            ensureCapacity();
+            c[size] = tc;
+            a[size] = ta;
+            b[size] = tb;
+            size++;
+            return this;
+        }
+
+        Builder add(Term t) {
+            return t.small ? add(t.lc, t.la, t.lb) : add(t.c, t.a, t.b);
+        }
+
+        Builder addAll(TermBlock block) {
+            for (int i = 0; i < block.size; i++) {
+                if (block.isPacked()) add(block.lc[i], block.la[i], block.lb[i]);
+                else add(block.c[i], block.a[i], block.b[i]);
+            }
+            return this;
+        }
+
+        TermBlock build() {
+            if (lc != null) {
+                return new TermBlock(size, Arrays.copyOf(lc, size), Arrays.copyOf(la, size), Arrays.copyOf(lb, size), null, null, null);
+            }
+            return new TermBlock(size, null, null, null, Arrays.copyOf(c, size), Arrays.copyOf(a, size), Arrays.copyOf(b, size));
+        }
+
+        private static boolean fits(BigInteger v) {
+            return v.bitLength() < Long.SIZE;
+        }
+
+        private void widen() {
+            if (lc == null) return;
+            int capacity = lc.length;
+            c = new BigInteger[capacity];
+            a = new BigInteger[capacity];
+            b = new BigInteger[capacity];
+            for (int i = 0; i < size; i++) {
+                c[i] = BigInteger.valueOf(lc[i]);
+                a[i] = BigInteger.valueOf(la[i]);
+                b[i] = BigInteger.valueOf(lb[i]);
+            }
+            lc = la = lb = null;
+        }
+
+        private void ensureCapacity() {
+            int capacity = lc != null ? lc.length : c.length;
+            if (size < capacity) return;
+            int grown = Math.max(4, capacity * 2);
+            if (lc != null) {
+                lc = Arrays.copyOf(lc, grown);
+                la = Arrays.copyOf(la, grown);
+                lb = Arrays.copyOf(lb, grown);
+            } else {
+                c = Arrays.copyOf(c, grown);
+                a = Arrays.copyOf(a, grown);
+                b = Arrays.copyOf(b, grown);
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.github.arbitrary_number;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.arbitrary_number.ArbitraryNumber.Term;
+
+/**
+ * Merges terms that share a denominator and reduces each merged term by GCD.
+ * Every output term has the form 1*(n/d) with d > 0 and gcd(n, d) = 1, and
+ * no two output terms share a denominator.
+ */
+final class TermNormalizer {
+
+    private TermNormalizer() {
+    }
+
+    static List<Term> normalize(Iterable<Term> terms) {
+        // Group numerators c*a by the reduced denominator, keeping first-seen order
+        Map<BigInteger, BigInteger> groups = new LinkedHashMap<>();
+        for (Term t : terms) {
+            BigInteger n = t.c.multiply(t.a);
+            if (n.signum() == 0) continue;
+            BigInteger d = t.b;
+            if (d.signum() < 0) {
+                n = n.negate();
+                d = d.negate();
+            }
+            BigInteger g = n.gcd(d);
+            if (!g.equals(BigInteger.ONE)) {
+                n = n.divide(g);
+                d = d.divide(g);
+            }
+            groups.merge(d, n, BigInteger::add);
+        }
+
+        // Reducing a group sum can land on a denominator another group already
+        // uses (1/6 + 1/6 = 1/3), so keep merging until nothing changes
+        boolean merged = true;
+        while (merged) {
+            merged = false;
+            Map<BigInteger, BigInteger> next = new LinkedHashMap<>();
+            for (Map.Entry<BigInteger, BigInteger> e : groups.entrySet()) {
+                BigInteger n = e.getValue();
+                if (n.signum() == 0) continue;
+                BigInteger d = e.getKey();
+                BigInteger g = n.gcd(d);
+                if (!g.equals(BigInteger.ONE)) {
+                    n = n.divide(g);
+                    d = d.divide(g);
+                }
+                if (next.containsKey(d)) merged = true;
+                next.merge(d, n, BigInteger::add);
+            }
+            groups = next;
+        }
+
+        List<Term> result = new ArrayList<>(groups.size());
+        for (Map.Entry<BigInteger, BigInteger> e : groups.entrySet()) {
+            if (e.getValue().signum() == 0) continue;
+            result.add(new Term(BigInteger.ONE, e.getValue(), e.getKey()));
+        }
+        return result;
+    }
+
+    static int bitLength(Term t) {
+        if (t.small) {
+            long bits = Math.abs(t.lc) | Math.abs(t.la) | Math.abs(t.lb);
+            return bits < 0 ? Long.SIZE - 1 : Long.SIZE - Long.numberOfLeadingZeros(bits);
+        }
+        return Math.max(t.c.bitLength(), Math.max(t.a.bitLength(), t.b.bitLength()));
+    }
+}
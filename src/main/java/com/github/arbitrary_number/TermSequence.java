@@ -0,0 +1,298 @@
+package com.github.arbitrary_number;
+
+import java.math.BigInteger;
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.github.arbitrary_number.ArbitraryNumber.Term;
+
+/**
+ * Persistent term sequence: a height-balanced rope whose leaves are columnar
+ * {@link TermBlock} chunks. Nothing is ever mutated after construction, so concatenation shares
+ * both operands and every earlier sequence stays valid.
+ *
+ * concat is O(log n) (an AVL join), get is O(log n), and iteration walks the
+ * leaves in place.
+ */
+abstract class TermSequence implements Iterable<Term> {
+
+    static final int CHUNK_SIZE = 64;
+
+    static final TermSequence EMPTY = new Leaf(TermBlock.EMPTY);
+
+    abstract int size();
+
+    abstract int height();
+
+    abstract Term get(int index);
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    TermSequence append(Term term) {
+        return concat(new Leaf(new TermBlock.Builder(1).add(term).build()));
+    }
+
+    TermSequence concat(TermSequence other) {
+        return join(this, other);
+    }
+
+    // Unmodifiable List view; get(i) costs O(log n), iteration is sequential
+    List<Term> asList() {
+        return new AbstractList<Term>() {
+            @Override
+            public Term get(int index) {
+                return TermSequence.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return TermSequence.this.size();
+            }
+
+            @Override
+            public Iterator<Term> iterator() {
+                return TermSequence.this.iterator();
+            }
+        };
+    }
+
+    static TermSequence of(List<Term> terms) {
+        Builder builder = new Builder();
+        for (Term t : terms) builder.add(t);
+        return builder.build();
+    }
+
+    // Term views, created one at a time while walking the blocks
+    @Override
+    public Iterator<Term> iterator() {
+        Iterator<TermBlock> blocks = blocks().iterator();
+        return new Iterator<Term>() {
+            private TermBlock chunk = TermBlock.EMPTY;
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                while (index == chunk.size) {
+                    if (!blocks.hasNext()) return false;
+                    chunk = blocks.next();
+                    index = 0;
+                }
+                return true;
+            }
+
+            @Override
+            public Term next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return chunk.term(index++);
+            }
+        };
+    }
+
+    // Leaf blocks in order, for loops that stream over the columns directly
+    Iterable<TermBlock> blocks() {
+        return () -> new Iterator<TermBlock>() {
+            private final Deque<TermSequence> pending = new ArrayDeque<>();
+
+            {
+                pending.push(TermSequence.this);
+            }
+
+            @Override
+            public boolean hasNext() {
+                return !pending.isEmpty();
+            }
+
+            @Override
+            public TermBlock next() {
+                if (pending.isEmpty()) throw new NoSuchElementException();
+                TermSequence next = pending.pop();
+                while (next instanceof Node) {
+                    Node node = (Node) next;
+                    pending.push(node.right);
+                    next = node.left;
+                }
+                return ((Leaf) next).block;
+            }
+        };
+    }
+
+    // AVL join: attach the shorter tree along the facing spine of the taller one
+    private static TermSequence join(TermSequence left, TermSequence right) {
+        if (left.isEmpty()) return right;
+        if (right.isEmpty()) return left;
+        int hl = left.height();
+        int hr = right.height();
+        if (hl > hr + 1) return joinRight((Node) left, right);
+        if (hr > hl + 1) return joinLeft(left, (Node) right);
+        return node(left, right);
+    }
+
+    private static TermSequence joinRight(Node left, TermSequence right) {
+        TermSequence l = left.left;
+        TermSequence c = left.right;
+        if (c.height() <= right.height() + 1) {
+            TermSequence joined = node(c, right);
+            if (joined.height() <= l.height() + 1) return node(l, joined);
+            return rotateLeft(node(l, rotateRight(joined)));
+        }
+        TermSequence joined = joinRight((Node) c, right);
+        TermSequence result = node(l, joined);
+        if (joined.height() <= l.height() + 1) return result;
+        return rotateLeft(result);
+    }
+
+    private static TermSequence joinLeft(TermSequence left, Node right) {
+        TermSequence c = right.left;
+        TermSequence r = right.right;
+        if (c.height() <= left.height() + 1) {
+            TermSequence joined = node(left, c);
+            if (joined.height() <= r.height() + 1) return node(joined, r);
+            return rotateRight(node(rotateLeft(joined), r));
+        }
+        TermSequence joined = joinLeft(left, (Node) c);
+        TermSequence result = node(joined, r);
+        if (joined.height() <= r.height() + 1) return result;
+        return rotateRight(result);
+    }
+
+    private static TermSequence rotateLeft(TermSequence t) {
+        if (!(t instanceof Node) || !(((Node) t).right instanceof Node)) return t;
+        Node n = (Node) t;
+        Node r = (Node) n.right;
+        return node(node(n.left, r.left), r.right);
+    }
+
+    private static TermSequence rotateRight(TermSequence t) {
+        if (!(t instanceof Node) || !(((Node) t).left instanceof Node)) return t;
+        Node n = (Node) t;
+        Node l = (Node) n.left;
+        return node(l.left, node(l.right, n.right));
+    }
+
+    // Small neighbouring leaves are packed into one chunk instead of a new node
+    private static TermSequence node(TermSequence left, TermSequence right) {
+        if (left instanceof Leaf && right instanceof Leaf && left.size() + right.size() <= CHUNK_SIZE) {
+            return new Leaf(TermBlock.concat(((Leaf) left).block, ((Leaf) right).block));
+        }
+        return new Node(left, right);
+    }
+
+    static final class Leaf extends TermSequence {
+        final TermBlock block;
+
+        Leaf(TermBlock block) {
+            this.block = block;
+        }
+
+        @Override
+        int size() {
+            return block.size;
+        }
+
+        @Override
+        int height() {
+            return 0;
+        }
+
+        @Override
+        Term get(int index) {
+            if (index < 0 || index >= block.size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + block.size);
+            return block.term(index);
+        }
+    }
+
+    static final class Node extends TermSequence {
+        final TermSequence left;
+        final TermSequence right;
+        final int size;
+        final int height;
+
+        Node(TermSequence left, TermSequence right) {
+            this.left = left;
+            this.right = right;
+            this.size = left.size() + right.size();
+            this.height = Math.max(left.height(), right.height()) + 1;
+        }
+
+        @Override
+        int size() {
+            return size;
+        }
+
+        @Override
+        int height() {
+            return height;
+        }
+
+        @Override
+        Term get(int index) {
+            if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            TermSequence current = this;
+            while (current instanceof Node) {
+                Node n = (Node) current;
+                int leftSize = n.left.size();
+                if (index < leftSize) {
+                    current = n.left;
+                } else {
+                    index -= leftSize;
+                    current = n.right;
+                }
+            }
+            return current.get(index);
+        }
+    }
+
+    /**
+     * Collects terms into full chunks and builds a balanced tree once, for results
+     * produced term by term (multiply, divideBy, normalize).
+     */
+    static final class Builder {
+        private final List<TermSequence> leaves = new ArrayList<>();
+        private TermBlock.Builder chunk = new TermBlock.Builder(CHUNK_SIZE);
+
+        Builder add(Term term) {
+            chunk.add(term);
+            return flushIfFull();
+        }
+
+        Builder add(long c, long a, long b) {
+            chunk.add(c, a, b);
+            return flushIfFull();
+        }
+
+        Builder add(BigInteger c, BigInteger a, BigInteger b) {
+            chunk.add(c, a, b);
+            return flushIfFull();
+        }
+
+        private Builder flushIfFull() {
+            if (chunk.size() == CHUNK_SIZE) {
+                leaves.add(new Leaf(chunk.build()));
+                chunk = new TermBlock.Builder(CHUNK_SIZE);
+            }
+            return this;
+        }
+
+        TermSequence build() {
+            if (chunk.size() > 0) {
+                leaves.add(new Leaf(chunk.build()));
+                chunk = new TermBlock.Builder(CHUNK_SIZE);
+            }
+            if (leaves.isEmpty()) return EMPTY;
+            return balanced(leaves, 0, leaves.size());
+        }
+
+        private static TermSequence balanced(List<TermSequence> leaves, int from, int to) {
+            if (to - from == 1) return leaves.get(from);
+            int mid = (from + to) >>> 1;
+            return new Node(balanced(leaves, from, mid), balanced(leaves, mid, to));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.github.arbitrary_number;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+
+public class ArbitraryNumberDivisionTest {
+
+    @Test
+    public void testDivideByMultiTermNumber() {
+        ArbitraryNumber x = new ArbitraryNumber();
+        x.addTerm(1, 1, 2);   // 1/2
+        x.addTerm(1, 1, 3);   // 1/3
+
+        ArbitraryNumber y = new ArbitraryNumber();
+        y.addTerm(1, 1, 4);   // 1/4
+        y.addTerm(1, 1, 6);   // 1/6  -> y = 5/12
+
+        ArbitraryNumber q = x.divideBy(y);
+
+        // One term per dividend term: (1/2)/(5/12) = 6/5 and (1/3)/(5/12) = 4/5
+        assertEquals(2, q.getTerms().size());
+        assertEquals(new BigDecimal("2.0000000000"), q.evaluateToDecimalExact(10));
+    }
+
+    @Test
+    public void testSingleTermDivisorKeepsTermShape() {
+        ArbitraryNumber x = new ArbitraryNumber();
+        x.addTerm(3, 2, 7);
+        ArbitraryNumber y = new ArbitraryNumber();
+        y.addTerm(1, 2, 1);
+
+        assertEquals("1*(6/14)", x.divideBy(y).toString());
+    }
+
+    @Test
+    public void testDivisorSummingToZeroThrows() {
+        ArbitraryNumber x = new ArbitraryNumber();
+        x.addTerm(1, 1, 1);
+        ArbitraryNumber zero = new ArbitraryNumber();
+        zero.addTerm(1, 1, 3);
+        zero.addTerm(-1, 2, 6);
+
+        assertThrows(ArithmeticException.class, () -> x.divideBy(zero));
+    }
+
+    @Test
+    public void testQuotientTimesDivisorRoundTrips() {
+        ArbitraryNumber x = new ArbitraryNumber();
+        for (int i = 1; i <= 50; i++) x.addTerm(i, 1, i + 1);
+        ArbitraryNumber y = new ArbitraryNumber();
+        for (int j = 1; j <= 30; j++) y.addTerm(1, j, 31);
+
+        ArbitraryNumber roundTrip = x.divideBy(y).multiply(y);
+        assertEquals(x.evaluateToDecimalExact(40), roundTrip.evaluateToDecimalExact(40));
+    }
+}
@@ -0,0 +1,59 @@
+package com.github.arbitrary_number;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import com.github.arbitrary_number.ArbitraryNumber.EvaluationMode;
+
+public class ArbitraryNumberEvaluationBenchmark {
+
+    private static ArbitraryNumber randomNumber(int termCount, long seed) {
+        Random rand = new Random(seed);
+        ArbitraryNumber n = new ArbitraryNumber();
+        for (int i = 0; i < termCount; i++) {
+            n.addTerm(1 + rand.nextInt(100), 1 + rand.nextInt(1000), 1 + rand.nextInt(1000));
+        }
+        return n;
+    }
+
+    private static long time(ArbitraryNumber n, int precision, EvaluationMode mode, int repeats) {
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < repeats; r++) {
+            long start = System.nanoTime();
+            n.evaluateToDecimal(precision, mode);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    public static void main(String[] args) {
+        int[] termCounts = {1_000, 10_000, 100_000};
+        int[] precisions = {50, 500};
+
+        // Warm up both paths before measuring
+        ArbitraryNumber warmup = randomNumber(10_000, 1);
+        time(warmup, 50, EvaluationMode.PER_TERM, 5);
+        time(warmup, 50, EvaluationMode.EXACT, 5);
+
+        System.out.println("evaluateToDecimal: per-term loop vs single exact division");
+        System.out.printf("  %-8s %-9s %-14s %-14s %-12s %-12s%n",
+                "terms", "precision", "per-term ms", "exact ms", "per-term err", "exact err");
+        for (int termCount : termCounts) {
+            ArbitraryNumber n = randomNumber(termCount, 42);
+            for (int precision : precisions) {
+                long perTerm = time(n, precision, EvaluationMode.PER_TERM, 3);
+                long exact = time(n, precision, EvaluationMode.EXACT, 3);
+
+                // Error measured in units of the last requested decimal place
+                BigDecimal truth = n.evaluateToDecimalExact(precision + 20);
+                BigDecimal ulp = BigDecimal.ONE.movePointLeft(precision);
+                BigDecimal perTermErr = n.evaluateToDecimal(precision).subtract(truth).abs().divide(ulp);
+                BigDecimal exactErr = n.evaluateToDecimalExact(precision).subtract(truth).abs().divide(ulp);
+
+                System.out.printf("  %-8d %-9d %-14.3f %-14.3f %-12.2f %-12.2f%n",
+                        termCount, precision, perTerm / 1e6, exact / 1e6,
+                        perTermErr.doubleValue(), exactErr.doubleValue());
+            }
+        }
+    }
+}
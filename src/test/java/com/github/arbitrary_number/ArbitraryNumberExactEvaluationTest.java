@@ -0,0 +1,48 @@
+package com.github.arbitrary_number;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.arbitrary_number.ArbitraryNumber.EvaluationMode;
+
+public class ArbitraryNumberExactEvaluationTest {
+
+    @Test
+    public void testExactModeRoundsOnce() {
+        ArbitraryNumber n = new ArbitraryNumber();
+        n.addTerm(1, 1, 3);
+        n.addTerm(1, 1, 3);
+        n.addTerm(1, 1, 3);
+
+        // Per-term rounding loses a unit in the last place, the exact sum does not
+        assertEquals(new BigDecimal("0.9999999999"), n.evaluateToDecimal(10, EvaluationMode.PER_TERM));
+        assertEquals(new BigDecimal("1.0000000000"), n.evaluateToDecimal(10, EvaluationMode.EXACT));
+    }
+
+    @Test
+    public void testExactModeMatchesHighPrecisionSum() {
+        Random rand = new Random(7);
+        ArbitraryNumber n = new ArbitraryNumber();
+        for (int i = 0; i < 2000; i++) {
+            n.addTerm(1 + rand.nextInt(50), 1 + rand.nextInt(500), 1 + rand.nextInt(500));
+        }
+
+        BigDecimal exact = n.evaluateToDecimalExact(30);
+        BigDecimal reference = n.evaluateToDecimal(60).setScale(30, java.math.RoundingMode.HALF_UP);
+        assertEquals(reference, exact);
+
+        // The per-term loop drifts by up to half a unit per term
+        BigDecimal drift = n.evaluateToDecimal(30).subtract(exact).abs();
+        assertTrue(drift.compareTo(new BigDecimal("1E-27")) < 0);
+    }
+
+    @Test
+    public void testEmptyNumberIsZero() {
+        assertEquals(0, BigDecimal.ZERO.compareTo(new ArbitraryNumber().evaluateToDecimalExact(5)));
+    }
+}
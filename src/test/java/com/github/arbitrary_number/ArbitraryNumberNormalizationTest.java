@@ -0,0 +1,81 @@
+package com.github.arbitrary_number;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class ArbitraryNumberNormalizationTest {
+
+    @Test
+    public void testNormalizeMergesSharedDenominators() {
+        ArbitraryNumber n = new ArbitraryNumber();
+        n.addTerm(1, 1, 6);   // 1/6
+        n.addTerm(1, 1, 6);   // 1/6
+        n.addTerm(2, 1, 6);   // 2/6 = 1/3
+        n.addTerm(1, 1, 2);   // 1/2
+
+        n.normalize();
+
+        // 1/6 + 1/6 + 1/3 = 2/3, 1/2 stays on its own denominator
+        assertEquals(2, n.getTerms().size());
+        assertEquals("1*(2/3) + 1*(1/2)", n.toString());
+    }
+
+    @Test
+    public void testZeroSumNormalizesToEmpty() {
+        ArbitraryNumber n = new ArbitraryNumber();
+        n.addTerm(1, 1, 3);
+        n.addTerm(-1, 2, 6);
+
+        assertEquals("0", n.normalize().toString());
+    }
+
+    @Test
+    public void testEagerPolicyKeepsAccumulationBounded() {
+        ArbitraryNumber sum = new ArbitraryNumber(NormalizationPolicy.eager());
+        for (int i = 0; i < 500; i++) {
+            ArbitraryNumber third = new ArbitraryNumber();
+            third.addTerm(1, 1, 3);
+            sum = sum.add(third);
+        }
+
+        // Only the denominators 3 and 1 (whenever thirds reduce to a whole) can survive
+        assertTrue(sum.getTerms().size() <= 2, "Eager policy should merge every add");
+        BigInteger numerator = BigInteger.ZERO;
+        for (ArbitraryNumber.Term t : sum.getTerms()) {
+            numerator = numerator.add(t.a.multiply(BigInteger.valueOf(3)).divide(t.b));
+        }
+        assertEquals(BigInteger.valueOf(500), numerator);
+    }
+
+    @Test
+    public void testLazyPolicyNormalizesPastThreshold() {
+        ArbitraryNumber x = new ArbitraryNumber(NormalizationPolicy.lazy(8, 4096));
+        x.addTerm(1, 1, 2);
+        x.addTerm(1, 1, 4);
+
+        ArbitraryNumber product = x;
+        for (int i = 0; i < 6; i++) {
+            product = product.multiply(x);
+            assertTrue(product.getTerms().size() <= 8, "Lazy policy should cap the term count");
+        }
+
+        // (3/4)^7 = 2187/16384
+        assertEquals(0, new BigDecimal("0.13348388671875").compareTo(product.evaluateToDecimal(20)));
+    }
+
+    @Test
+    public void testExplicitPolicyLeavesTermsAlone() {
+        ArbitraryNumber x = new ArbitraryNumber();
+        x.addTerm(1, 1, 2);
+        ArbitraryNumber y = x.add(x).add(x);
+
+        assertEquals(3, y.getTerms().size());
+        assertEquals(0, y.evaluateToDecimal(10).compareTo(y.normalize().evaluateToDecimal(10)));
+        assertEquals(1, y.getTerms().size());
+    }
+}
@@ -0,0 +1,61 @@
+package com.github.arbitrary_number;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.arbitrary_number.ArbitraryNumber.EvaluationMode;
+
+public class ArbitraryNumberParallelTest {
+
+    private static ArbitraryNumber randomNumber(int termCount, long seed) {
+        Random rand = new Random(seed);
+        ArbitraryNumber n = new ArbitraryNumber();
+        for (int i = 0; i < termCount; i++) {
+            n.addTerm(1 + rand.nextInt(100), 1 + rand.nextInt(1000), 1 + rand.nextInt(1000));
+        }
+        // One wide term so both packed and BigInteger blocks are exercised
+        n.addTerm(java.math.BigInteger.TEN.pow(30), java.math.BigInteger.ONE, java.math.BigInteger.valueOf(7));
+        return n;
+    }
+
+    @Test
+    public void testMultiplyParallelMatchesSequential() {
+        ArbitraryNumber x = randomNumber(700, 1);
+        ArbitraryNumber y = randomNumber(300, 2);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertEquals(x.multiply(y).toString(), x.multiplyParallel(y, pool).toString());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testSingleLeftBlockSplitsAlongRightOperand() {
+        ArbitraryNumber x = randomNumber(10, 5);
+        ArbitraryNumber y = randomNumber(5_000, 6);
+
+        assertEquals(x.multiply(y).toString(), x.multiplyParallel(y).toString());
+    }
+
+    @Test
+    public void testEvaluateParallelMatchesSequential() {
+        ArbitraryNumber n = randomNumber(50_000, 3);
+
+        assertEquals(n.evaluateToDecimal(40), n.evaluateToDecimalParallel(40));
+        assertEquals(n.evaluateToDecimalExact(40),
+                n.evaluateToDecimalParallel(40, EvaluationMode.EXACT, ForkJoinPool.commonPool()));
+    }
+
+    @Test
+    public void testEmptyOperands() {
+        ArbitraryNumber empty = new ArbitraryNumber();
+        assertEquals("0", empty.multiplyParallel(randomNumber(10, 4)).toString());
+        assertEquals(0, empty.evaluateToDecimalParallel(5).signum());
+    }
+}
@@ -0,0 +1,71 @@
+package com.github.arbitrary_number;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+import org.junit.jupiter.api.Test;
+
+public class ArbitraryNumberSmallTermTest {
+
+    @Test
+    public void testSmallTermsStayOnLongPath() {
+        ArbitraryNumber x = new ArbitraryNumber();
+        x.addTerm(3, 2, 7);
+        ArbitraryNumber y = new ArbitraryNumber();
+        y.addTerm(-5, 4, 9);
+
+        ArbitraryNumber.Term product = x.multiply(y).getTerms().get(0);
+        assertTrue(product.small);
+        assertEquals("-15*(8/63)", product.toString());
+
+        ArbitraryNumber.Term quotient = x.divideBy(y).getTerms().get(0);
+        assertTrue(quotient.small);
+        assertEquals("1*(54/-140)", quotient.toString());
+    }
+
+    @Test
+    public void testOverflowPromotesToBigInteger() {
+        ArbitraryNumber big = new ArbitraryNumber();
+        big.addTerm(Long.MAX_VALUE, Long.MAX_VALUE, 3);
+
+        ArbitraryNumber.Term square = big.multiply(big).getTerms().get(0);
+        BigInteger max = BigInteger.valueOf(Long.MAX_VALUE);
+        assertFalse(square.small);
+        assertEquals(max.multiply(max), square.c);
+        assertEquals(max.multiply(max), square.a);
+        assertEquals(BigInteger.valueOf(9), square.b);
+
+        // c * a overflows inside evaluateToDecimal as well
+        BigDecimal expected = new BigDecimal(max.multiply(max)).divide(BigDecimal.valueOf(3), 10, RoundingMode.HALF_UP);
+        assertEquals(expected, big.evaluateToDecimal(10));
+    }
+
+    @Test
+    public void testLongAndBigIntegerPathsAgree() {
+        ArbitraryNumber n = new ArbitraryNumber();
+        n.addTerm(1, 1, 3);
+        n.addTerm(2, 5, 11);
+        ArbitraryNumber viaBig = new ArbitraryNumber();
+        viaBig.addTerm(BigInteger.ONE, BigInteger.ONE, BigInteger.valueOf(3));
+        viaBig.addTerm(BigInteger.TWO, BigInteger.valueOf(5), BigInteger.valueOf(11));
+
+        assertEquals(viaBig.evaluateToDecimal(30), n.evaluateToDecimal(30));
+        assertEquals(viaBig.multiply(viaBig).toString(), n.multiply(n).toString());
+    }
+
+    @Test
+    public void testDivideByZeroValuedTermStillThrows() {
+        ArbitraryNumber x = new ArbitraryNumber();
+        x.addTerm(1, 1, 2);
+        ArbitraryNumber zero = new ArbitraryNumber();
+        zero.addTerm(0, 1, 1);
+
+        assertThrows(ArithmeticException.class, () -> x.divideBy(zero));
+    }
+}
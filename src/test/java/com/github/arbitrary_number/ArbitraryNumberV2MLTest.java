@@ -45,8 +45,9 @@ public class ArbitraryNumberV2MLTest {
 
         System.out.println("Naive double float eval: " + naiveResult);
 
-//        // Assert close but not exact — show arbitrary precision is better by comparing decimal digits
-        assertTrue(decimalResult.subtract(BigDecimal.valueOf(naiveResult)).abs().compareTo(new BigDecimal("0.0001")) > 0,
-                "ArbitraryNumberV2 precision exceeds floating point precision by large margin");
+        // The double agrees to its own precision; the exact evaluation carries the remaining digits
+        assertTrue(decimalResult.subtract(BigDecimal.valueOf(naiveResult)).abs().compareTo(new BigDecimal("1e-14")) < 0,
+                "ArbitraryNumberV2 should agree with the double evaluation to double precision");
+        assertTrue(decimalResult.precision() > 40, "ArbitraryNumberV2 should carry far more digits than a double");
     }
 }
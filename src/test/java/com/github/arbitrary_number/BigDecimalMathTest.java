@@ -0,0 +1,114 @@
+package com.github.arbitrary_number;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+public class BigDecimalMathTest {
+
+    private static final MathContext MC100 = new MathContext(100);
+
+    private static final String LN2_100 =
+            "0.6931471805599453094172321214581765680755001343602552541206800094933936219696947156058633269964186875";
+    private static final String E_100 =
+            "2.718281828459045235360287471352662497757247093699959574966967627724076630353547594571382178525166427";
+
+    @Test
+    public void testConstants() {
+        assertEquals(new BigDecimal(LN2_100), BigDecimalMath.ln2(MC100));
+        assertEquals(new BigDecimal(E_100), BigDecimalMath.e(MC100));
+        // A cached higher-precision value serves smaller requests
+        BigDecimalMath.ln2(new MathContext(300));
+        assertEquals(new BigDecimal(LN2_100).round(new MathContext(40)), BigDecimalMath.ln2(new MathContext(40)));
+    }
+
+    @Test
+    public void testExpAndLnAgreeAcrossPrecisions() {
+        BigDecimal x = new BigDecimal("0.123456789");
+        BigDecimal wide = BigDecimalMath.exp(x, new MathContext(400));
+        assertEquals(wide.round(MC100), BigDecimalMath.exp(x, MC100));
+        assertEquals(new BigDecimal(E_100), BigDecimalMath.exp(BigDecimal.ONE, MC100));
+
+        BigDecimal y = new BigDecimal("12345.678");
+        assertEquals(BigDecimalMath.ln(y, new MathContext(400)).round(MC100), BigDecimalMath.ln(y, MC100));
+        assertEquals(new BigDecimal(LN2_100), BigDecimalMath.ln(BigDecimal.valueOf(2), MC100));
+    }
+
+    @Test
+    public void testRoundTrip() {
+        for (String s : new String[] {"1e-30", "0.5", "3.25", "1000000.000001", "7e40"}) {
+            BigDecimal x = new BigDecimal(s);
+            BigDecimal back = BigDecimalMath.exp(BigDecimalMath.ln(x, MC100), MC100);
+            BigDecimal relativeError = back.subtract(x).abs().divide(x, MC100);
+            assertTrue(relativeError.compareTo(new BigDecimal("1e-97")) < 0, s + " -> " + back);
+        }
+    }
+
+    @Test
+    public void testNearOneKeepsRelativePrecision() {
+        BigDecimal x = new BigDecimal("1.00000000000000000000001");
+        // ln(1 + h) = h - h^2/2 + ...
+        assertEquals(new BigDecimal("9.99999999999999999999995000000E-24"), BigDecimalMath.ln(x, new MathContext(30)));
+    }
+
+    @Test
+    public void testPow() {
+        BigDecimal two = BigDecimal.valueOf(2);
+        assertEquals(two.sqrt(MC100), BigDecimalMath.pow(two, new BigDecimal("0.5"), MC100));
+        assertEquals(new BigDecimal("0.125"), BigDecimalMath.pow(two, BigDecimal.valueOf(-3), MC100));
+        assertEquals(new BigDecimal("-8"), BigDecimalMath.pow(two.negate(), BigDecimal.valueOf(3), MC100));
+        assertEquals(BigDecimal.ONE, BigDecimalMath.pow(BigDecimal.ZERO, BigDecimal.ZERO, MC100));
+        assertThrows(ArithmeticException.class, () -> BigDecimalMath.pow(BigDecimal.ZERO, BigDecimal.ONE.negate(), MC100));
+        assertThrows(ArithmeticException.class, () -> BigDecimalMath.pow(two.negate(), new BigDecimal("0.5"), MC100));
+        assertThrows(ArithmeticException.class, () -> BigDecimalMath.ln(BigDecimal.ZERO, MC100));
+    }
+
+    @Test
+    public void testFarOutsideDoubleRange() {
+        MathContext mc = new MathContext(30);
+        BigDecimal big = BigDecimalMath.exp(BigDecimal.valueOf(1000), mc);
+        BigDecimal small = BigDecimalMath.exp(BigDecimal.valueOf(-1000), mc);
+        assertEquals(0, BigDecimal.ONE.compareTo(big.multiply(small, mc).round(new MathContext(25))));
+        assertEquals(435, big.precision() - big.scale());
+    }
+
+    @Test
+    public void testEvaluatorsHonourPrecision() {
+        // 2^(1/2) and ln 3 at 60 digits through every evaluator
+        MathContext mc = new MathContext(60);
+        BigDecimal sqrt2 = BigDecimal.valueOf(2).sqrt(mc);
+        BigDecimal ln3 = BigDecimalMath.ln(BigDecimal.valueOf(3), mc);
+
+        ArbitraryNumberV2 root = ArbitraryNumberV2.power(
+                ArbitraryNumberV2.term(BigInteger.TWO, BigInteger.ONE, BigInteger.ONE),
+                ArbitraryNumberV2.term(BigInteger.ONE, BigInteger.ONE, BigInteger.TWO));
+        assertEquals(sqrt2, root.evaluate(60));
+
+        SymbolicExpression x = SymbolicExpression.variable("x");
+        SymbolicExpression log = SymbolicExpression.log(x);
+        BigDecimal viaProgram = SymbolicNode.evaluateSymbolicExpression(log, Map.of("x", BigDecimal.valueOf(3)), 58);
+        assertEquals(ln3.setScale(58, java.math.RoundingMode.HALF_UP), viaProgram);
+
+        ArbitraryNumberV2 alpha = ArbitraryNumberV2Alpha.power(
+                ArbitraryNumberV2Alpha.term(BigInteger.ONE, BigInteger.TWO, BigInteger.ONE),
+                ArbitraryNumberV2Alpha.term(BigInteger.ONE, BigInteger.ONE, BigInteger.TWO));
+        assertEquals(sqrt2, alpha.evaluate(60));
+    }
+
+    @Test
+    public void testSoftmaxOfLargeLogits() {
+        // e^1000 overflows a double; the BigDecimal path does not
+        ArbitraryNumberV2 e = ArbitraryNumberV2.term(BigInteger.ONE, BigInteger.valueOf(271828), BigInteger.valueOf(100000));
+        ArbitraryNumberV2 big = ArbitraryNumberV2.power(e, ArbitraryNumberV2.term(BigInteger.ONE, BigInteger.valueOf(1000), BigInteger.ONE));
+        ArbitraryNumberV2 one = ArbitraryNumberV2.power(e, ArbitraryNumberV2.term(BigInteger.ONE, BigInteger.ONE, BigInteger.ONE));
+        BigDecimal p = ArbitraryNumberV2.divide(one, ArbitraryNumberV2.add(one, big)).evaluate(50);
+        assertTrue(p.signum() > 0 && p.compareTo(new BigDecimal("1e-430")) < 0);
+    }
+}
@@ -0,0 +1,96 @@
+package com.github.arbitrary_number;
+
+import static com.github.arbitrary_number.ExpressionFixtures.numberTerm;
+import static com.github.arbitrary_number.ExpressionFixtures.symbolicTerm;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class CertifiedComparisonTest {
+
+    private static void assertEncloses(Interval bound, BigDecimal value) {
+        assertTrue(bound.lower().compareTo(value) <= 0 && value.compareTo(bound.upper()) <= 0, bound + " misses " + value);
+    }
+
+    @Test
+    public void testBoundsEncloseTheValue() {
+        // ln 3 - 2^(1/2) / 7 and (1/3)^-3 at low precision against a 100-digit value
+        ArbitraryNumberV2 e = ArbitraryNumberV2.subtract(
+                ArbitraryNumberV2.log(numberTerm(3, 1, 1)),
+                ArbitraryNumberV2.divide(ArbitraryNumberV2.power(numberTerm(2, 1, 1), numberTerm(1, 1, 2)), numberTerm(7, 1, 1)));
+        BigDecimal exact = e.evaluate(100);
+        for (int p : new int[] {5, 16, 40}) {
+            Interval b = e.bound(p);
+            assertEncloses(b, exact);
+            assertTrue(b.upper().subtract(b.lower()).compareTo(BigDecimal.ONE.scaleByPowerOfTen(3 - p)) < 0, b.toString());
+        }
+
+        SymbolicExpression cube = SymbolicExpression.power(symbolicTerm(1, 1, 3), symbolicTerm(-3, 1, 1));
+        assertEncloses(cube.bound(8), BigDecimal.valueOf(27));
+        // An even power of an interval straddling zero starts at zero
+        Interval square = SymbolicExpression.power(SymbolicExpression.subtract(symbolicTerm(1, 1, 3), symbolicTerm(1, 1, 3)), symbolicTerm(2, 1, 1)).bound(8);
+        assertEquals(0, square.lower().signum());
+    }
+
+    @Test
+    public void testCloseValuesNeedMorePrecision() {
+        // ln 2 + 10^-40 against ln 2: separated only once the bounds carry 41 digits
+        ArbitraryNumberV2 ln2 = ArbitraryNumberV2.log(numberTerm(2, 1, 1));
+        ArbitraryNumberV2 near = ArbitraryNumberV2.add(ln2, ArbitraryNumberV2.power(numberTerm(10, 1, 1), numberTerm(-40, 1, 1)));
+        assertFalse(near.bound(16).isBelow(ln2.bound(16)) || ln2.bound(16).isBelow(near.bound(16)));
+        assertEquals(1, near.compareTo(ln2));
+        assertEquals(-1, ln2.compareTo(near));
+
+        // 2^(1/2) against its 27-digit truncation
+        SymbolicExpression sqrt2 = SymbolicExpression.power(symbolicTerm(2, 1, 1), symbolicTerm(1, 1, 2));
+        SymbolicExpression truncated = SymbolicExpression.term(
+                new BigInteger("141421356237309504880168872"), BigInteger.ONE, BigInteger.TEN.pow(26));
+        assertEquals(1, sqrt2.compareTo(truncated));
+        assertEquals(-1, truncated.compareTo(sqrt2));
+    }
+
+    @Test
+    public void testSignum() {
+        assertEquals(1, ArbitraryNumberV2.log(numberTerm(2, 1, 1)).signum());
+        assertEquals(-1, ArbitraryNumberV2.log(numberTerm(1, 1, 2)).signum());
+        assertEquals(0, ArbitraryNumberV2.log(numberTerm(1, 1, 1)).signum());
+        // 1/3 - 1/3 never separates from zero; the exact check settles it
+        assertEquals(0, SymbolicExpression.subtract(symbolicTerm(1, 1, 3), symbolicTerm(2, 1, 6)).signum());
+        // ln 8 - 3 ln 2 is irrational on both sides and equal to the last digit
+        SymbolicExpression ln8 = SymbolicExpression.log(symbolicTerm(8, 1, 1));
+        SymbolicExpression threeLn2 = SymbolicExpression.multiply(symbolicTerm(3, 1, 1), SymbolicExpression.log(symbolicTerm(2, 1, 1)));
+        assertEquals(0, SymbolicExpression.subtract(ln8, threeLn2).signum());
+    }
+
+    @Test
+    public void testArgmax() {
+        List<ArbitraryNumberV2> logits = List.of(
+                ArbitraryNumberV2.log(numberTerm(5, 1, 1)),
+                ArbitraryNumberV2.power(numberTerm(2, 1, 1), numberTerm(1, 1, 3)),
+                numberTerm(16094379, 1, 10000000),
+                ArbitraryNumberV2.log(numberTerm(5, 1, 1)));
+        // ln 5 = 1.6094379124..., above 1.6094379 and 2^(1/3) = 1.2599...
+        assertEquals(0, ArbitraryNumberV2.argmax(logits));
+        assertEquals(logits.get(0), ArbitraryNumberV2.max(logits));
+
+        // Exact ties go to the first occurrence
+        List<SymbolicExpression> ties = List.of(symbolicTerm(1, 1, 2), symbolicTerm(2, 1, 4), symbolicTerm(1, 1, 3));
+        assertEquals(0, SymbolicExpression.argmax(ties));
+        assertThrows(IllegalArgumentException.class, () -> SymbolicExpression.argmax(List.of()));
+    }
+
+    @Test
+    public void testSingularitiesAreReported() {
+        assertThrows(ArithmeticException.class, () -> ArbitraryNumberV2.divide(numberTerm(1, 1, 1), numberTerm(0, 1, 1)).signum());
+        assertThrows(ArithmeticException.class, () -> ArbitraryNumberV2.log(numberTerm(-1, 1, 1)).signum());
+        assertEquals(BigDecimal.ONE.round(new MathContext(5)), ArbitraryNumberV2.power(numberTerm(0, 1, 1), numberTerm(0, 1, 1)).bound(5).lower());
+    }
+}
@@ -50,7 +50,7 @@ public class CollatzAdvancedTest {
         System.out.println("Derivative of two-step Collatz expression:");
         System.out.println(derivative);
 
-        // The derivative should not be trivial zero or one — just check type
-        assertEquals(SymbolicExpression.Operation.ADD, derivative.op);
+        // Each step scales the slope by 1/2 + 3; constant parts fold as the derivative is built
+        assertEquals(SymbolicExpression.term(BigInteger.valueOf(49), BigInteger.ONE, BigInteger.valueOf(4)), derivative);
     }
 }
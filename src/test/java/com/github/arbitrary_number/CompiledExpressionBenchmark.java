@@ -0,0 +1,52 @@
+package com.github.arbitrary_number;
+
+import static com.github.arbitrary_number.ExpressionFixtures.neuron;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class CompiledExpressionBenchmark {
+
+    private static double nsPerCall(CompiledExpression program, double[] x, int calls) {
+        double sink = 0;
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < 5; r++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < calls; i++) {
+                x[0] = i;
+                sink += program.evaluate(x);
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        if (sink == 42) System.out.println();
+        return (double) best / calls;
+    }
+
+    public static void main(String[] args) {
+        int[] widths = {8, 64, 512, 4096};
+        System.out.println("double evaluation: Map lookup vs register interpreter vs generated bytecode");
+        System.out.printf("  %-6s %-12s %-14s %-12s%n", "width", "map ns", "interpreter ns", "jit ns");
+        for (int width : widths) {
+            int calls = Math.max(1_000, 2_000_000 / width);
+            double[] x = new double[width];
+            Map<String, Double> bindings = new HashMap<>();
+            for (int i = 0; i < width; i++) {
+                x[i] = i * 0.001;
+                bindings.put("x" + i, x[i]);
+            }
+
+            CompiledExpression.setJitThreshold(-1);
+            SymbolicExpression e = neuron(width, width);
+            long start = System.nanoTime();
+            for (int i = 0; i < calls / 10; i++) e.evaluate(bindings);
+            double mapNs = (double) (System.nanoTime() - start) / (calls / 10);
+            double interpreted = nsPerCall(e.compile(), x.clone(), calls);
+
+            CompiledExpression.setJitThreshold(0);
+            double jitted = nsPerCall(neuron(width, width).compile(), x.clone(), calls);
+
+            System.out.printf("  %-6d %-12.1f %-14.1f %-12.1f%n", width, mapNs, interpreted, jitted);
+        }
+        CompiledExpression.setJitThreshold(CompiledExpression.DEFAULT_JIT_THRESHOLD);
+    }
+}
@@ -0,0 +1,97 @@
+package com.github.arbitrary_number;
+
+import static com.github.arbitrary_number.ExpressionFixtures.symbolicTerm;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+public class CompiledExpressionTest {
+
+    // ((x + 1/3) * y) / 7 - log(x), with x used twice through separate nodes
+    private static SymbolicExpression expression() {
+        SymbolicExpression x = SymbolicExpression.variable("x");
+        SymbolicExpression y = SymbolicExpression.variable("y");
+        SymbolicExpression scaled = SymbolicExpression.multiply(SymbolicExpression.add(x, symbolicTerm(1, 1, 3)), y);
+        return SymbolicExpression.subtract(SymbolicExpression.divide(scaled, symbolicTerm(7, 1, 1)),
+                SymbolicExpression.log(SymbolicExpression.variable("x")));
+    }
+
+    @Test
+    public void testOneSlotPerVariableName() {
+        CompiledExpression program = expression().compile();
+        assertEquals(List.of("x", "y"), program.variables());
+        assertEquals(1, program.slotOf("y"));
+        assertEquals(-1, program.slotOf("z"));
+        // add, multiply, divide, log, subtract
+        assertEquals(5, program.instructionCount());
+        // two constants, two variables, five results
+        assertEquals(9, program.registerCount());
+    }
+
+    @Test
+    public void testDoubleEvaluation() {
+        SymbolicExpression e = expression();
+        double expected = ((2.0 + 1.0 / 3.0) * 5.0) / 7.0 - Math.log(2.0);
+        assertEquals(expected, e.evaluate(Map.of("x", 2.0, "y", 5.0)), 0.0);
+        assertEquals(expected, e.compile().evaluate(new double[] {2.0, 5.0}), 0.0);
+    }
+
+    @Test
+    public void testDecimalEvaluationMatchesScaleSemantics() {
+        SymbolicExpression x = SymbolicExpression.variable("x");
+        SymbolicExpression e = SymbolicExpression.divide(SymbolicExpression.add(x, symbolicTerm(1, 1, 3)), symbolicTerm(7, 1, 1));
+        BigDecimal value = SymbolicNode.evaluateSymbolicExpression(e, Map.of("x", new BigDecimal("2")), 10);
+        // 1/3 rounds to 0.3333333333 first, then the quotient is rounded to 10 places
+        assertEquals(new BigDecimal("0.3333333333"), value);
+    }
+
+    @Test
+    public void testSharedNodesAreComputedOnce() {
+        SymbolicExpression x = SymbolicExpression.variable("x");
+        SymbolicExpression e = x;
+        for (int i = 0; i < 40; i++) e = SymbolicExpression.multiply(e, e);
+        assertEquals(40, e.compile().instructionCount());
+        assertEquals(1.0, e.evaluate(Map.of("x", 1.0)), 0.0);
+    }
+
+    @Test
+    public void testProgramIsCached() {
+        SymbolicExpression e = expression();
+        assertSame(e.compile(), e.compile());
+    }
+
+    @Test
+    public void testEvaluationKeepsProgramFromSecondUse() {
+        SymbolicExpression e = expression();
+        e.evaluate(Map.of("x", 2.0, "y", 5.0));
+        assertFalse(e.holdsProgram());
+        e.evaluate(Map.of("x", 3.0, "y", 5.0));
+        assertTrue(e.holdsProgram());
+        assertSame(e.compile(), e.compile());
+    }
+
+    @Test
+    public void testMissingVariable() {
+        SymbolicExpression e = expression();
+        assertThrows(IllegalArgumentException.class, () -> e.evaluate(Map.of("x", 1.0)));
+        assertThrows(IllegalArgumentException.class, () -> e.compile().evaluate(new double[] {1.0}));
+        assertThrows(IllegalArgumentException.class,
+                () -> SymbolicNode.evaluateSymbolicExpression(e, Map.of("y", BigDecimal.ONE), 10));
+    }
+
+    @Test
+    public void testConstantExpression() {
+        SymbolicExpression e = symbolicTerm(3, 1, 4);
+        assertEquals(0, e.compile().instructionCount());
+        assertEquals(0.75, e.evaluate(Map.of()), 0.0);
+        assertEquals(new BigDecimal("0.75000"), SymbolicNode.evaluateSymbolicExpression(e, Map.of(), 5));
+    }
+}
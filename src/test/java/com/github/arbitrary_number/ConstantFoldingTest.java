@@ -0,0 +1,95 @@
+package com.github.arbitrary_number;
+
+import static com.github.arbitrary_number.ExpressionFixtures.numberTerm;
+import static com.github.arbitrary_number.ExpressionFixtures.symbolicTerm;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+public class ConstantFoldingTest {
+
+    @Test
+    public void testConstantTreeFoldsToReducedTerm() {
+        // (2*(3/4) + 1/6) * (5/3) - (1/2)^2 = 25/9 - 1/4 = 91/36
+        ArbitraryNumberV2 e = ArbitraryNumberV2.subtract(
+                ArbitraryNumberV2.multiply(ArbitraryNumberV2.add(numberTerm(2, 3, 4), numberTerm(1, 1, 6)), numberTerm(1, 5, 3)),
+                ArbitraryNumberV2.power(numberTerm(1, 1, 2), numberTerm(2, 1, 1)));
+        assertEquals(numberTerm(91, 1, 36), e.simplify());
+
+        SymbolicExpression s = SymbolicExpression.divide(symbolicTerm(3, 2, 4), symbolicTerm(1, 6, 1));
+        assertEquals(symbolicTerm(1, 1, 4), s.simplify());
+    }
+
+    @Test
+    public void testNegativeIntegerPowerFolds() {
+        ArbitraryNumberV2 e = ArbitraryNumberV2.power(numberTerm(1, 2, 3), numberTerm(-3, 1, 1));
+        assertEquals(numberTerm(27, 1, 8), e.simplify());
+    }
+
+    @Test
+    public void testNonFoldableNodesAreKept() {
+        // Fractional power, log and a zero divisor are left for evaluation
+        ArbitraryNumberV2 root = ArbitraryNumberV2.power(numberTerm(2, 1, 1), numberTerm(1, 1, 2));
+        assertSame(root, root.simplify());
+        ArbitraryNumberV2 log = ArbitraryNumberV2.log(numberTerm(3, 1, 1));
+        assertSame(log, log.simplify());
+        ArbitraryNumberV2 byZero = ArbitraryNumberV2.divide(numberTerm(1, 1, 1), numberTerm(0, 1, 1));
+        assertSame(byZero, byZero.simplify());
+
+        // Folding stops at the symbolic node but its constant subtrees fold
+        SymbolicExpression x = SymbolicExpression.variable("x");
+        SymbolicExpression mixed = SymbolicExpression.log(SymbolicExpression.add(x, SymbolicExpression.add(symbolicTerm(1, 1, 2), symbolicTerm(1, 1, 2))));
+        assertEquals(SymbolicExpression.log(SymbolicExpression.add(x, symbolicTerm(1, 1, 1))), mixed.simplify());
+    }
+
+    @Test
+    public void testConstantOperandsOfSumAndProductMerge() {
+        SymbolicExpression x = SymbolicExpression.variable("x");
+        SymbolicExpression y = SymbolicExpression.variable("y");
+        // 2 * x * (1/4) * y * 6 -> 3 * x * y
+        SymbolicExpression p = SymbolicExpression.product(List.of(symbolicTerm(2, 1, 1), x, symbolicTerm(1, 1, 4), y, symbolicTerm(6, 1, 1)));
+        assertEquals(SymbolicExpression.product(List.of(symbolicTerm(3, 1, 1), x, y)), p.simplify());
+
+        // 0 * x folds to zero, x + 1/3 - 1/3 keeps x
+        assertEquals(symbolicTerm(0, 1, 1), SymbolicExpression.multiply(symbolicTerm(0, 1, 1), x).simplify());
+        SymbolicExpression s = SymbolicExpression.sum(List.of(symbolicTerm(1, 1, 3), x, symbolicTerm(-1, 1, 3)));
+        assertSame(x, s.simplify());
+    }
+
+    @Test
+    public void testFoldedDerivative() {
+        // d/dn (3n + 1) = 0*n + 3*1 + 0 -> 3
+        SymbolicExpression n = SymbolicExpression.variable("n");
+        SymbolicExpression e = SymbolicExpression.add(SymbolicExpression.multiply(symbolicTerm(3, 1, 1), n), symbolicTerm(1, 1, 1));
+        assertEquals(symbolicTerm(3, 1, 1), e.differentiate("n").simplify());
+    }
+
+    @Test
+    public void testDenseLayerFoldsToConstantsWithConstantInputs() {
+        SymbolicDenseLayer layer = new SymbolicDenseLayer(4, 3);
+        List<ArbitraryNumberV2> inputs = List.of(numberTerm(1, 1, 2), numberTerm(3, 1, 1), numberTerm(-1, 2, 7), numberTerm(1, 5, 9));
+        for (ArbitraryNumberV2 out : layer.forward(inputs)) {
+            ArbitraryNumberV2 folded = out.simplify();
+            assertEquals(ArbitraryNumberV2.Operation.TERM, folded.op);
+            assertEquals(BigInteger.ONE, folded.numerator);
+            BigDecimal diff = out.evaluate(30).subtract(folded.evaluate(30)).abs();
+            assertTrue(diff.compareTo(new BigDecimal("1e-25")) < 0, diff.toString());
+        }
+    }
+
+    @Test
+    public void testSharedSubtreesFoldOnce() {
+        SymbolicExpression e = symbolicTerm(1, 1, 1);
+        for (int i = 0; i < 200; i++) e = SymbolicExpression.add(e, e);
+        SymbolicExpression folded = e.simplify();
+        assertEquals(BigInteger.TWO.pow(200), folded.coefficient);
+        assertEquals(Math.pow(2, 200), folded.evaluate(Map.of()), 0.0);
+    }
+}
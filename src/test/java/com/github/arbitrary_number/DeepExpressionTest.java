@@ -0,0 +1,100 @@
+package com.github.arbitrary_number;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Map;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+public class DeepExpressionTest {
+
+    // Far deeper than any recursive traversal gets on a default thread stack
+    private static final int DEPTH = 50_000;
+
+    // x + 1 + 1 + ... as a left-deep chain, the shape SymbolicDenseLayer.forward builds
+    private static SymbolicExpression symbolicChain(int depth) {
+        SymbolicExpression one = SymbolicExpression.term(BigInteger.ONE, BigInteger.ONE, BigInteger.ONE);
+        SymbolicExpression e = SymbolicExpression.variable("x");
+        for (int i = 0; i < depth; i++) e = SymbolicExpression.add(e, one);
+        return e;
+    }
+
+    private static ArbitraryNumberV2 v2Chain(int depth) {
+        ArbitraryNumberV2 half = ArbitraryNumberV2.term(BigInteger.ONE, BigInteger.ONE, BigInteger.TWO);
+        ArbitraryNumberV2 e = half;
+        for (int i = 0; i < depth; i++) e = ArbitraryNumberV2.add(e, half);
+        return e;
+    }
+
+    @Test
+    public void testDeepSymbolicExpression() {
+        SymbolicExpression e = symbolicChain(DEPTH);
+
+        assertEquals(DEPTH + 2.5, e.evaluate(Map.of("x", 2.5)), 1e-6);
+        assertEquals(e, symbolicChain(DEPTH));
+        assertNotEquals(e, symbolicChain(DEPTH - 1));
+
+        String s = e.toString();
+        assertTrue(s.startsWith("((((") && s.endsWith(" + 1 * (1/1))"));
+
+        SymbolicExpression d = e.differentiate("x");
+        assertEquals(1.0, d.evaluate(Map.of("x", 0.0)), 0.0);
+    }
+
+    @Test
+    public void testDeepArbitraryNumberV2() {
+        ArbitraryNumberV2 e = v2Chain(DEPTH);
+
+        assertEquals(new BigDecimal("25000.5"), e.evaluate(20).stripTrailingZeros());
+        assertEquals(e, v2Chain(DEPTH));
+        assertEquals(BigDecimal.ZERO, e.differentiate("x").evaluate(10).stripTrailingZeros());
+        assertTrue(e.toString().endsWith(" + 1*(1/2))"));
+    }
+
+    @Test
+    public void testDeepJson() throws IOException {
+        SymbolicExpression e = symbolicChain(DEPTH);
+        JSONObject json = e.toJson();
+        assertEquals("ADD", json.getString("operation"));
+        assertEquals("TERM", json.getJSONArray("children").getJSONObject(1).getString("operation"));
+
+        // json.toString() recurses DEPTH levels and overflows the stack
+        StringWriter out = new StringWriter();
+        e.writeNestedJson(out);
+        String text = out.toString();
+        assertTrue(text.startsWith("{\"operation\":\"ADD\","));
+        // DEPTH sums, DEPTH uses of the shared 1 and the variable x
+        assertEquals(2 * DEPTH + 1, text.chars().filter(c -> c == '{').count());
+        assertTrue(text.endsWith("\"denominator\":\"1\"}]}\n"));
+
+        JSONObject v2 = v2Chain(DEPTH).toJson();
+        assertEquals("ADD", v2.getString("op"));
+        out = new StringWriter();
+        v2Chain(DEPTH).writeNestedJson(out);
+        assertTrue(out.toString().startsWith("{\"op\":\"ADD\",\"args\":[{\"op\":\"ADD\","));
+    }
+
+    @Test
+    public void testSharedSubexpressionsAreVisitedOnce() {
+        // Every level doubles the tree size; as a DAG it has 60 nodes
+        ArbitraryNumberV2 e = ArbitraryNumberV2.term(BigInteger.ONE, BigInteger.ONE, BigInteger.ONE);
+        ArbitraryNumberV2 f = ArbitraryNumberV2.term(BigInteger.ONE, BigInteger.ONE, BigInteger.ONE);
+        for (int i = 0; i < 60; i++) {
+            e = ArbitraryNumberV2.multiply(e, e);
+            f = ArbitraryNumberV2.multiply(f, f);
+        }
+        assertEquals(BigDecimal.ONE, e.evaluate(10).stripTrailingZeros());
+        assertEquals(e, f);
+
+        ArbitraryNumberV2 d = e.differentiate("x");
+        assertTrue(ExpressionTraversal.postOrder(d).size() < 1000);
+        assertEquals(BigDecimal.ZERO, d.evaluate(10).stripTrailingZeros());
+    }
+}
@@ -0,0 +1,48 @@
+package com.github.arbitrary_number;
+
+import static com.github.arbitrary_number.ExpressionFixtures.neuron;
+import static com.github.arbitrary_number.ExpressionFixtures.symbolicTerm;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class DerivativeBenchmark {
+
+    // log(1 + neuron^2), one neuron with a smooth loss
+    private static SymbolicExpression loss(int width, long seed) {
+        SymbolicExpression sum = neuron(width, seed);
+        return SymbolicExpression.log(SymbolicExpression.add(symbolicTerm(1, 1, 1), SymbolicExpression.multiply(sum, sum)));
+    }
+
+    private static double nsPerCall(Runnable call, int calls) {
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < 5; r++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < calls; i++) call.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return (double) best / calls;
+    }
+
+    public static void main(String[] args) {
+        int[] widths = {8, 64, 512};
+        System.out.println("one partial: differentiate + evaluate vs forward mode; all partials: reverse mode");
+        System.out.printf("  %-6s %-16s %-16s %-16s %-16s%n", "width", "symbolic ns", "forward ns", "evaluate ns", "gradient ns");
+        for (int width : widths) {
+            int calls = Math.max(200, 200_000 / width);
+            Map<String, Double> bindings = new HashMap<>();
+            for (int i = 0; i < width; i++) bindings.put("x" + i, i * 0.001);
+            SymbolicExpression e = loss(width, width);
+            CompiledExpression program = e.compile();
+            double[] x = program.slotValues(bindings);
+
+            double symbolic = nsPerCall(() -> e.differentiate("x0").evaluate(bindings), Math.max(20, calls / 20));
+            double forward = nsPerCall(() -> e.evaluateDerivative(bindings, "x0"), calls);
+            double value = nsPerCall(() -> program.interpret(x), calls);
+            double[] partials = new double[width];
+            double gradient = nsPerCall(() -> program.gradient(x, partials), calls);
+
+            System.out.printf("  %-6d %-16.1f %-16.1f %-16.1f %-16.1f%n", width, symbolic, forward, value, gradient);
+        }
+    }
+}
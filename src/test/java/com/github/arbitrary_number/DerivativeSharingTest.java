@@ -0,0 +1,80 @@
+package com.github.arbitrary_number;
+
+import static com.github.arbitrary_number.ExpressionFixtures.symbolicTerm;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+public class DerivativeSharingTest {
+
+    private static int size(SymbolicExpression e) {
+        return ExpressionTraversal.postOrder(e).size();
+    }
+
+    @Test
+    public void testRepeatedSquaringStaysLinear() {
+        // As a tree the product rule doubles every level; as a DAG each level adds a few nodes
+        SymbolicExpression x = SymbolicExpression.variable("x");
+        SymbolicExpression e = x;
+        for (int i = 0; i < 60; i++) e = SymbolicExpression.multiply(e, SymbolicExpression.add(e, symbolicTerm(1, 1, 1)));
+        assertTrue(size(e.differentiate("x")) <= 8 * size(e));
+        assertTrue(size(SymbolicGradient.computeGradient(e, "x")) <= 8 * size(e));
+
+        SymbolicExpression square = x;
+        for (int i = 0; i < 10; i++) square = SymbolicExpression.multiply(square, square);
+        assertEquals(1024.0, square.differentiate("x").evaluate(Map.of("x", 1.0)), 0.0);
+    }
+
+    @Test
+    public void testNaryProductRuleIsLinearInArity() {
+        List<SymbolicExpression> factors = new ArrayList<>();
+        for (int i = 0; i < 200; i++) factors.add(SymbolicExpression.variable("x" + i));
+        SymbolicExpression d = SymbolicExpression.product(factors).differentiate("x7");
+        // prefix and suffix products instead of 200 terms of 200 factors
+        assertTrue(size(d) < 4 * 200);
+        assertEquals(1.0, d.evaluate(IntStream.range(0, 200).boxed()
+                .collect(Collectors.toMap(i -> "x" + i, i -> 1.0))), 0.0);
+    }
+
+    @Test
+    public void testZerosAndOnesAreDropped() {
+        SymbolicExpression n = SymbolicExpression.variable("n");
+        SymbolicExpression e = SymbolicExpression.add(SymbolicExpression.multiply(symbolicTerm(3, 1, 1), n), symbolicTerm(1, 1, 1));
+        assertEquals(symbolicTerm(3, 1, 1), e.differentiate("n"));
+
+        SymbolicExpression x = SymbolicExpression.variable("x");
+        SymbolicExpression square = SymbolicExpression.power(x, symbolicTerm(2, 1, 1));
+        assertEquals(SymbolicExpression.multiply(symbolicTerm(2, 1, 1), x), square.differentiate("x"));
+        assertEquals(symbolicTerm(0, 1, 1), square.differentiate("y"));
+    }
+
+    @Test
+    public void testVariableExponent() {
+        // d/dx 2^x = 2^x ln 2
+        SymbolicExpression x = SymbolicExpression.variable("x");
+        SymbolicExpression e = SymbolicExpression.power(symbolicTerm(2, 1, 1), x);
+        assertEquals(8 * Math.log(2), e.differentiate("x").evaluate(Map.of("x", 3.0)), 1e-12);
+    }
+
+    @Test
+    public void testSymbolicGradWithRespectToANode() {
+        ArbitraryNumberV2 a = ArbitraryNumberV2.term(BigInteger.ONE, BigInteger.ONE, BigInteger.valueOf(3));
+        ArbitraryNumberV2 e = ArbitraryNumberV2.multiply(a, a);
+        for (int i = 0; i < 40; i++) e = ArbitraryNumberV2.add(e, e);
+        // e = 2^40 a^2, so de/da = 2^41 a
+        ArbitraryNumberV2 d = e.symbolicGrad(a);
+        assertTrue(ExpressionTraversal.postOrder(d).size() < 200);
+        BigDecimal expected = new BigDecimal(BigInteger.ONE.shiftLeft(41)).divide(new BigDecimal(3), new MathContext(30));
+        assertEquals(0, expected.compareTo(d.evaluate(30)));
+    }
+}
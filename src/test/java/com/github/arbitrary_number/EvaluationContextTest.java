@@ -0,0 +1,100 @@
+package com.github.arbitrary_number;
+
+import static com.github.arbitrary_number.ExpressionFixtures.numberTerm;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+public class EvaluationContextTest {
+
+    // f * (1 - f) with f = 1 / (1 + 1/3), the shape of SigmoidNode.backward
+    private static ArbitraryNumberV2 sharedExpression() {
+        ArbitraryNumberV2 one = numberTerm(1, 1, 1);
+        ArbitraryNumberV2 f = ArbitraryNumberV2.divide(one, ArbitraryNumberV2.add(one, numberTerm(1, 1, 3)));
+        return ArbitraryNumberV2.multiply(f, ArbitraryNumberV2.subtract(one, f));
+    }
+
+    @Test
+    public void testMatchesPlainEvaluation() {
+        ArbitraryNumberV2 expr = sharedExpression();
+        EvaluationContext context = new EvaluationContext();
+        assertEquals(expr.evaluate(40), expr.evaluate(40, context));
+    }
+
+    @Test
+    public void testSharedNodesAreEvaluatedOnce() {
+        ArbitraryNumberV2 expr = sharedExpression();
+        EvaluationContext context = new EvaluationContext();
+        expr.evaluate(30, context);
+
+        // one, 1/3, 1 + 1/3, f, 1 - f and the product: six distinct nodes
+        assertEquals(6, context.size());
+        assertEquals(6, context.missCount());
+
+        BigDecimal again = expr.evaluate(30, context);
+        assertEquals(expr.evaluate(30), again);
+        assertEquals(1, context.hitCount());
+    }
+
+    @Test
+    public void testHigherPrecisionIsReusedByRounding() {
+        ArbitraryNumberV2 third = ArbitraryNumberV2.divide(numberTerm(1, 1, 1), numberTerm(3, 1, 1));
+        EvaluationContext context = new EvaluationContext();
+        BigDecimal precise = third.evaluate(50, context);
+        BigDecimal coarse = third.evaluate(20, context);
+
+        assertEquals(precise.round(new MathContext(20)), coarse);
+        assertEquals(1, context.hitCount());
+    }
+
+    @Test
+    public void testLowerPrecisionEntryIsRecomputed() {
+        ArbitraryNumberV2 third = ArbitraryNumberV2.divide(numberTerm(1, 1, 1), numberTerm(3, 1, 1));
+        EvaluationContext context = new EvaluationContext();
+        third.evaluate(10, context);
+        assertEquals(third.evaluate(40), third.evaluate(40, context));
+    }
+
+    @Test
+    public void testSizeIsBounded() {
+        EvaluationContext context = new EvaluationContext(4);
+        ArbitraryNumberV2 sum = numberTerm(0, 1, 1);
+        for (int i = 1; i <= 50; i++) sum = ArbitraryNumberV2.add(sum, numberTerm(1, 1, i));
+        assertEquals(sum.evaluate(25), sum.evaluate(25, context));
+        assertTrue(context.size() <= 4);
+    }
+
+    @Test
+    public void testSymbolicExpressions() {
+        SymbolicExpression half = SymbolicExpression.term(BigInteger.ONE, BigInteger.ONE, BigInteger.TWO);
+        SymbolicExpression expr = SymbolicExpression.multiply(SymbolicExpression.add(half, half), SymbolicExpression.log(half));
+        EvaluationContext context = new EvaluationContext();
+        assertEquals(expr.evaluate(20), expr.evaluate(20, context));
+        assertEquals(4, context.size());
+    }
+
+    @Test
+    public void testConcurrentCallersShareOneContext() throws Exception {
+        ArbitraryNumberV2 expr = sharedExpression();
+        BigDecimal expected = expr.evaluate(60);
+        EvaluationContext context = new EvaluationContext();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<BigDecimal>> results = new ArrayList<>();
+            for (int i = 0; i < 32; i++) results.add(pool.submit(() -> expr.evaluate(60, context)));
+            for (Future<BigDecimal> r : results) assertEquals(expected, r.get());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
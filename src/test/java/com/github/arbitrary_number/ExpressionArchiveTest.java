@@ -0,0 +1,138 @@
+package com.github.arbitrary_number;
+
+import static com.github.arbitrary_number.ExpressionFixtures.neuron;
+import static com.github.arbitrary_number.ExpressionFixtures.symbolicTerm;
+import static com.github.arbitrary_number.ExpressionFixtures.variable;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ExpressionArchiveTest {
+
+    private static byte[] archive(SymbolicExpression e) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        e.writeBinary(out);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testMappedRoundTrip(@TempDir Path dir) throws IOException {
+        SymbolicExpression e = SymbolicExpression.log(neuron(500, 500));
+        Path file = dir.resolve("neuron.anxb");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            e.writeBinary(out);
+        }
+        ExpressionArchive archive = ExpressionArchive.open(file);
+        assertTrue(archive.isSymbolic());
+        assertEquals(1503, archive.nodeCount());
+        assertEquals(e, archive.symbolic());
+
+        // Far smaller than the org.json text
+        long jsonBytes = e.toJson().toString().length();
+        assertTrue(Files.size(file) * 5 < jsonBytes, Files.size(file) + " vs " + jsonBytes);
+    }
+
+    @Test
+    public void testNodesAreBuiltOnAccess() throws IOException {
+        SymbolicExpression e = neuron(100, 100);
+        ExpressionArchive archive = ExpressionArchive.wrap(ByteBuffer.wrap(archive(e)));
+
+        int root = archive.root();
+        assertEquals("ADD", archive.operation(root));
+        assertEquals(101, archive.arity(root));
+        int product = archive.child(root, 43);
+        assertEquals("MULTIPLY", archive.operation(product));
+        assertEquals(0, archive.builtCount());
+
+        assertEquals(e.children.get(43), archive.symbolic(product));
+        assertEquals(3, archive.builtCount());
+        assertEquals(e, archive.symbolic());
+        assertEquals(archive.nodeCount(), archive.builtCount());
+        // A node built earlier is reused inside the larger subtree
+        assertSame(archive.symbolic(product), archive.symbolic().children.get(43));
+    }
+
+    @Test
+    public void testSharedSubtreesAndLargeIntegers() throws IOException {
+        BigInteger huge = BigInteger.TWO.pow(200).negate();
+        ArbitraryNumberV2 big = ArbitraryNumberV2.term(huge, BigInteger.valueOf(Long.MIN_VALUE), BigInteger.TWO.pow(61).subtract(BigInteger.ONE));
+        ArbitraryNumberV2 small = ArbitraryNumberV2.term(BigInteger.valueOf(-3), BigInteger.ONE, BigInteger.TWO.pow(61));
+        ArbitraryNumberV2 e = ArbitraryNumberV2.add(big, small);
+        for (int i = 0; i < 30; i++) e = ArbitraryNumberV2.multiply(e, e);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        e.writeBinary(out);
+        ExpressionArchive archive = ExpressionArchive.wrap(ByteBuffer.wrap(out.toByteArray()));
+        assertEquals(33, archive.nodeCount());
+        ArbitraryNumberV2 back = archive.arbitraryNumber();
+        assertEquals(e, back);
+        assertSame(back.children.get(0), back.children.get(1));
+        assertThrows(IllegalStateException.class, archive::symbolic);
+    }
+
+    @Test
+    public void testDeepChain() throws IOException {
+        SymbolicExpression e = SymbolicExpression.variable("x");
+        for (int i = 0; i < 200_000; i++) e = SymbolicExpression.add(e, symbolicTerm(1, 1, 1));
+        SymbolicExpression back = ExpressionArchive.wrap(ByteBuffer.wrap(archive(e))).symbolic();
+        assertEquals(200_002.5, back.evaluate(Map.of("x", 2.5)), 0.0);
+    }
+
+    @Test
+    public void testRejectsOtherData() throws IOException {
+        assertThrows(IllegalArgumentException.class, () -> ExpressionArchive.wrap(ByteBuffer.wrap("{\"nodes\":[]}".getBytes())));
+        byte[] bytes = archive(symbolicTerm(1, 1, 1));
+        bytes[4] = 9;
+        assertThrows(IllegalArgumentException.class, () -> ExpressionArchive.wrap(ByteBuffer.wrap(bytes)));
+    }
+
+    @Test
+    public void testRejectsWrongArity() throws IOException {
+        // The root is the last record: op byte, arity, then one back reference per child
+        byte[] log = archive(SymbolicExpression.log(variable("x")));
+        log[log.length - 2] = 0;
+        assertThrows(IllegalArgumentException.class, () -> ExpressionArchive.wrap(ByteBuffer.wrap(log)).symbolic());
+        byte[] sum = archive(SymbolicExpression.add(variable("x"), variable("x")));
+        sum[sum.length - 3] = 1;
+        assertThrows(IllegalArgumentException.class, () -> ExpressionArchive.wrap(ByteBuffer.wrap(sum)).symbolic());
+    }
+
+    @Test
+    public void testRejectsCorruptLengths() throws IOException {
+        // 2^30 strings wrap around to zero table bytes in int arithmetic
+        byte[] header = archive(symbolicTerm(1, 1, 1));
+        ByteBuffer.wrap(header).putInt(8, 1 << 30);
+        assertThrows(IllegalArgumentException.class, () -> ExpressionArchive.wrap(ByteBuffer.wrap(header)));
+
+        // x: 20 header bytes, one string offset, one node offset, then the name's length
+        byte[] name = archive(variable("x"));
+        name[28] = 0x7f;
+        assertThrows(IllegalArgumentException.class, () -> ExpressionArchive.wrap(ByteBuffer.wrap(name)).symbolic());
+
+        // A term: 20 header bytes, one node offset, the op byte, then the coefficient
+        byte[] term = archive(symbolicTerm(1, 1, 1));
+        term[25] = 0x7f;
+        assertThrows(IllegalArgumentException.class, () -> ExpressionArchive.wrap(ByteBuffer.wrap(term)).symbolic());
+        term[25] = 1;
+        assertThrows(IllegalArgumentException.class, () -> ExpressionArchive.wrap(ByteBuffer.wrap(term)).symbolic());
+
+        byte[] log = archive(SymbolicExpression.log(variable("x")));
+        byte[] truncated = Arrays.copyOf(log, log.length - 1);
+        assertThrows(IllegalArgumentException.class, () -> ExpressionArchive.wrap(ByteBuffer.wrap(truncated)).symbolic());
+        assertThrows(IllegalArgumentException.class, () -> ExpressionArchive.wrap(ByteBuffer.wrap(truncated)).child(1, 0));
+    }
+}
@@ -0,0 +1,53 @@
+package com.github.arbitrary_number;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Expression builders shared by the tests and benchmarks
+final class ExpressionFixtures {
+
+    private ExpressionFixtures() {
+    }
+
+    // The SymbolicExpression term c * (a / b)
+    static SymbolicExpression symbolicTerm(long c, long a, long b) {
+        return SymbolicExpression.term(BigInteger.valueOf(c), BigInteger.valueOf(a), BigInteger.valueOf(b));
+    }
+
+    // The ArbitraryNumberV2 term c * (a / b)
+    static ArbitraryNumberV2 numberTerm(long c, long a, long b) {
+        return ArbitraryNumberV2.term(BigInteger.valueOf(c), BigInteger.valueOf(a), BigInteger.valueOf(b));
+    }
+
+    static SymbolicExpression variable(String name) {
+        return SymbolicExpression.variable(name);
+    }
+
+    // log(h * h + 1) / (x - y) + h^z + x * y * x / (y + 2) with h = x * y + 1/3:
+    // shared nodes, an n-ary product, a quotient, a logarithm, an integer
+    // power and a variable exponent, defined wherever x != y and h > 0
+    static SymbolicExpression smoothExpression() {
+        SymbolicExpression x = variable("x");
+        SymbolicExpression y = variable("y");
+        SymbolicExpression h = SymbolicExpression.add(SymbolicExpression.multiply(x, y), symbolicTerm(1, 1, 3));
+        SymbolicExpression ratio = SymbolicExpression.divide(
+                SymbolicExpression.log(SymbolicExpression.add(SymbolicExpression.power(h, symbolicTerm(2, 1, 1)), symbolicTerm(1, 1, 1))),
+                SymbolicExpression.subtract(x, y));
+        SymbolicExpression product = SymbolicExpression.divide(SymbolicExpression.product(List.of(x, y, x)),
+                SymbolicExpression.add(y, symbolicTerm(2, 1, 1)));
+        return SymbolicExpression.sum(List.of(ratio, SymbolicExpression.power(h, variable("z")), product));
+    }
+
+    // bias + sum of w_i * x_i as one n-ary sum, with weights in [-1/2, 1/2)
+    static SymbolicExpression neuron(int width, long seed) {
+        Random rand = new Random(seed);
+        List<SymbolicExpression> terms = new ArrayList<>();
+        terms.add(symbolicTerm(1, 1, 10));
+        for (int i = 0; i < width; i++) {
+            terms.add(SymbolicExpression.multiply(symbolicTerm(1, rand.nextInt(1000) - 500, 1000), variable("x" + i)));
+        }
+        return SymbolicExpression.sum(terms);
+    }
+}
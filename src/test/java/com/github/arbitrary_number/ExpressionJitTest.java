@@ -0,0 +1,102 @@
+package com.github.arbitrary_number;
+
+import static com.github.arbitrary_number.ExpressionFixtures.symbolicTerm;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class ExpressionJitTest {
+
+    @AfterEach
+    public void restoreThreshold() {
+        CompiledExpression.setJitThreshold(CompiledExpression.DEFAULT_JIT_THRESHOLD);
+    }
+
+
+    // Dense-layer style sum of w_i * x_i + bias over `width` inputs
+    private static SymbolicExpression layer(int width) {
+        SymbolicExpression sum = symbolicTerm(1, 1, 7);
+        for (int i = 0; i < width; i++) {
+            SymbolicExpression product = SymbolicExpression.multiply(symbolicTerm(i + 1, 1, 3), SymbolicExpression.variable("x" + i));
+            sum = SymbolicExpression.add(sum, product);
+        }
+        return sum;
+    }
+
+    private static double[] inputs(int width, long seed) {
+        Random random = new Random(seed);
+        double[] values = new double[width];
+        for (int i = 0; i < width; i++) values[i] = random.nextDouble() * 2 - 1;
+        return values;
+    }
+
+    @Test
+    public void testJitMatchesInterpreterExactly() {
+        CompiledExpression.setJitThreshold(0);
+        CompiledExpression program = layer(32).compile();
+        for (int k = 0; k < 10; k++) {
+            double[] x = inputs(32, k);
+            assertEquals(program.interpret(x), program.evaluate(x), 0.0);
+        }
+        assertTrue(program.isJitCompiled());
+        assertTrue(program.jitted().getClass().isHidden());
+    }
+
+    @Test
+    public void testLargeProgramIsSplitIntoChunks() {
+        CompiledExpression.setJitThreshold(0);
+        CompiledExpression program = layer(5000).compile();
+        double[] x = inputs(5000, 42);
+        assertEquals(program.interpret(x), program.evaluate(x), 0.0);
+        assertTrue(program.isJitCompiled());
+    }
+
+    @Test
+    public void testTranscendentalOperations() {
+        CompiledExpression.setJitThreshold(0);
+        SymbolicExpression x = SymbolicExpression.variable("x");
+        SymbolicExpression y = SymbolicExpression.variable("y");
+        SymbolicExpression e = SymbolicExpression.subtract(
+                SymbolicExpression.divide(SymbolicExpression.power(x, y), symbolicTerm(3, 1, 2)),
+                SymbolicExpression.log(SymbolicExpression.multiply(x, y)));
+        CompiledExpression program = e.compile();
+        double[] values = {1.7, 2.3};
+        assertEquals(program.interpret(values), program.evaluate(values), 1e-15);
+        assertTrue(program.isJitCompiled());
+    }
+
+    @Test
+    public void testPromotionAfterThreshold() {
+        CompiledExpression.setJitThreshold(3);
+        CompiledExpression program = layer(4).compile();
+        double[] x = inputs(4, 1);
+        for (int i = 0; i < 3; i++) program.evaluate(x);
+        assertFalse(program.isJitCompiled());
+        program.evaluate(x);
+        assertTrue(program.isJitCompiled());
+    }
+
+    @Test
+    public void testNegativeThresholdDisablesTier() {
+        CompiledExpression.setJitThreshold(-1);
+        CompiledExpression program = layer(4).compile();
+        for (int i = 0; i < 100; i++) program.evaluate(inputs(4, i));
+        assertFalse(program.isJitCompiled());
+    }
+
+    @Test
+    public void testSpecialConstants() {
+        CompiledExpression.setJitThreshold(0);
+        SymbolicExpression x = SymbolicExpression.variable("x");
+        // 0, 1 and -0.0 constants all go through the constant pool
+        SymbolicExpression e = SymbolicExpression.add(SymbolicExpression.multiply(x, symbolicTerm(0, 5, 1)),
+                SymbolicExpression.add(symbolicTerm(-1, 0, 3), symbolicTerm(1, 1, 1)));
+        CompiledExpression program = e.compile();
+        assertEquals(program.interpret(new double[] {2.0}), program.evaluate(new double[] {2.0}), 0.0);
+    }
+}
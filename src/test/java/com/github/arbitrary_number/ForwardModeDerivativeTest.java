@@ -0,0 +1,99 @@
+package com.github.arbitrary_number;
+
+import static com.github.arbitrary_number.ExpressionFixtures.smoothExpression;
+import static com.github.arbitrary_number.ExpressionFixtures.symbolicTerm;
+import static com.github.arbitrary_number.ExpressionFixtures.variable;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+public class ForwardModeDerivativeTest {
+
+    @Test
+    public void testMatchesReverseMode() {
+        SymbolicExpression e = smoothExpression();
+        Map<String, Double> at = Map.of("x", 1.5, "y", 0.75, "z", 1.25);
+        Map<String, Double> gradient = e.gradient(at);
+        for (String name : gradient.keySet()) {
+            assertEquals(gradient.get(name), e.evaluateDerivative(at, name), 1e-12, name);
+        }
+        assertEquals(0.0, e.evaluateDerivative(at, "w"), 0.0);
+    }
+
+    @Test
+    public void testSeveralDirectionsInOnePass() {
+        SymbolicExpression e = smoothExpression();
+        CompiledExpression program = e.compile();
+        double[] at = {1.5, 0.75, 1.25};
+        double[] partials = new double[3];
+        double value = program.gradient(at, partials);
+
+        double[][] directions = {{1, 0, 0}, {0, 1, 0}, {2, -3, 0.5}};
+        double[] derivatives = new double[3];
+        assertEquals(value, program.derivatives(at, directions, derivatives), 0.0);
+        assertEquals(partials[0], derivatives[0], 1e-12);
+        assertEquals(partials[1], derivatives[1], 1e-12);
+        assertEquals(2 * partials[0] - 3 * partials[1] + 0.5 * partials[2], derivatives[2], 1e-12);
+
+        double[] single = program.derivative(at, directions[2]);
+        assertEquals(value, single[0], 0.0);
+        assertEquals(derivatives[2], single[1], 0.0);
+        assertThrows(IllegalArgumentException.class, () -> program.derivatives(at, directions, new double[2]));
+    }
+
+    @Test
+    public void testConstantExponentOfNegativeBase() {
+        // No ln(x) term when the exponent is constant, so a negative base stays finite
+        SymbolicExpression x = variable("x");
+        SymbolicExpression e = SymbolicExpression.add(SymbolicExpression.power(x, symbolicTerm(3, 1, 1)),
+                SymbolicExpression.power(x, symbolicTerm(20, 1, 1)));
+        double d = e.evaluateDerivative(Map.of("x", -1.0), "x");
+        assertEquals(3.0 - 20.0, d, 1e-12);
+    }
+
+    @Test
+    public void testInfiniteSlopeOfFixedOperand() {
+        // x^(1/2) has an infinite slope at 0, which must not leak into d/dy when x does not move
+        SymbolicExpression e = SymbolicExpression.multiply(SymbolicExpression.power(variable("x"), symbolicTerm(1, 1, 2)), variable("y"));
+        Map<String, Double> at = Map.of("x", 0.0, "y", 1.0);
+        assertEquals(e.gradient(at).get("y"), e.evaluateDerivative(at, "y"), 0.0);
+        assertEquals(0.0, e.evaluateDerivative(at, "y"), 0.0);
+        BigDecimal dy = e.evaluateDerivative(Map.of("x", BigDecimal.ZERO, "y", BigDecimal.ONE), "y", 20);
+        assertEquals(0, dy.signum());
+    }
+
+    @Test
+    public void testZeroIntegerPowerAtZero() {
+        // x^0 * y is y; the slope of x^0 must not become 0 * Infinity at x = 0
+        SymbolicExpression e = SymbolicExpression.multiply(
+                SymbolicExpression.power(variable("x"), symbolicTerm(0, 1, 1)), variable("y"));
+        Map<String, Double> at = Map.of("x", 0.0, "y", 1.0);
+        assertEquals(0.0, e.evaluateDerivative(at, "x"), 0.0);
+        assertEquals(1.0, e.evaluateDerivative(at, "y"), 0.0);
+        Map<String, BigDecimal> decimalAt = Map.of("x", BigDecimal.ZERO, "y", BigDecimal.ONE);
+        assertEquals(0, e.evaluateDerivative(decimalAt, "x", 20).signum());
+        assertEquals(0, BigDecimal.ONE.compareTo(e.evaluateDerivative(decimalAt, "y", 20)));
+    }
+
+    @Test
+    public void testDecimalDerivative() {
+        // d/dx (x^2 / y + log(y)) = 2x / y
+        SymbolicExpression e = SymbolicExpression.add(
+                SymbolicExpression.divide(SymbolicExpression.power(variable("x"), symbolicTerm(2, 1, 1)), variable("y")),
+                SymbolicExpression.log(variable("y")));
+        Map<String, BigDecimal> at = Map.of("x", new BigDecimal("3"), "y", new BigDecimal("7"));
+        BigDecimal dx = e.evaluateDerivative(at, "x", 30);
+        BigDecimal dy = e.evaluateDerivative(at, "y", 30);
+        BigDecimal tolerance = new BigDecimal("1e-28");
+        MathContext mc = new MathContext(40);
+        assertTrue(dx.subtract(new BigDecimal(6).divide(new BigDecimal(7), mc)).abs().compareTo(tolerance) <= 0, dx.toString());
+        assertTrue(dy.subtract(new BigDecimal(-2).divide(new BigDecimal(49), mc)).abs().compareTo(tolerance) <= 0, dy.toString());
+        assertTrue(e.compile().gradient(at, 30).get("x").subtract(dx).abs().compareTo(tolerance) <= 0);
+    }
+}
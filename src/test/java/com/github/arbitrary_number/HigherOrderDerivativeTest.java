@@ -0,0 +1,122 @@
+package com.github.arbitrary_number;
+
+import static com.github.arbitrary_number.ExpressionFixtures.symbolicTerm;
+import static com.github.arbitrary_number.ExpressionFixtures.variable;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+public class HigherOrderDerivativeTest {
+
+    @Test
+    public void testHessianVectorProductOfPolynomial() {
+        // f = x^2 y + 3 y^2, H = [[2y, 2x], [2x, 6]]
+        SymbolicExpression f = SymbolicExpression.add(
+                SymbolicExpression.multiply(SymbolicExpression.power(variable("x"), symbolicTerm(2, 1, 1)), variable("y")),
+                SymbolicExpression.multiply(symbolicTerm(3, 1, 1), SymbolicExpression.multiply(variable("y"), variable("y"))));
+        Map<String, Double> hv = f.hessianVectorProduct(Map.of("x", 1.0, "y", 2.0), Map.of("x", 1.0, "y", 1.0));
+        assertEquals(6.0, hv.get("x"), 1e-12);
+        assertEquals(8.0, hv.get("y"), 1e-12);
+        // A direction along y only picks the second column
+        hv = f.hessianVectorProduct(Map.of("x", 1.0, "y", 2.0), Map.of("y", 1.0));
+        assertEquals(2.0, hv.get("x"), 1e-12);
+        assertEquals(6.0, hv.get("y"), 1e-12);
+    }
+
+    @Test
+    public void testHessianVectorProductOfSmallPowersAtOrigin() {
+        // f = x^k y at x = 0: H = [[0, 1], [1, 0]] for k = 1 and 0 for k = 0
+        Map<String, Double> at = Map.of("x", 0.0, "y", 1.0);
+        Map<String, Double> direction = Map.of("x", 1.0, "y", 1.0);
+        for (int k = 0; k <= 1; k++) {
+            SymbolicExpression f = SymbolicExpression.multiply(
+                    SymbolicExpression.power(variable("x"), symbolicTerm(k, 1, 1)), variable("y"));
+            Map<String, Double> hv = f.hessianVectorProduct(at, direction);
+            assertEquals(k, hv.get("x"), 0.0, "x^" + k);
+            assertEquals(k, hv.get("y"), 0.0, "x^" + k);
+        }
+    }
+
+    @Test
+    public void testHessianVectorProductMatchesGradientDifferences() {
+        // log(x y z + 1) / (x + 2) + x^y - z^3 / y, with a shared product
+        SymbolicExpression xyz = SymbolicExpression.product(List.of(variable("x"), variable("y"), variable("z")));
+        SymbolicExpression f = SymbolicExpression.sum(List.of(
+                SymbolicExpression.divide(SymbolicExpression.log(SymbolicExpression.add(xyz, symbolicTerm(1, 1, 1))),
+                        SymbolicExpression.add(variable("x"), symbolicTerm(2, 1, 1))),
+                SymbolicExpression.power(variable("x"), variable("y")),
+                SymbolicExpression.divide(SymbolicExpression.power(variable("z"), symbolicTerm(-3, 1, 1)), variable("y")),
+                SymbolicExpression.multiply(xyz, xyz)));
+        CompiledExpression program = f.compile();
+        double[] at = {1.3, 0.7, 0.9};
+        double[] direction = {0.5, -1.0, 2.0};
+        double[] gradient = new double[3];
+        double[] hv = new double[3];
+        double value = program.hessianVectorProduct(at, direction, gradient, hv);
+
+        double[] expectedGradient = new double[3];
+        assertEquals(program.gradient(at, expectedGradient), value, 0.0);
+        assertArrayEquals(expectedGradient, gradient, 1e-12);
+
+        double h = 1e-5;
+        double[] up = new double[3];
+        double[] down = new double[3];
+        double[] plus = new double[3];
+        double[] minus = new double[3];
+        for (int i = 0; i < 3; i++) {
+            up[i] = at[i] + h * direction[i];
+            down[i] = at[i] - h * direction[i];
+        }
+        program.gradient(up, plus);
+        program.gradient(down, minus);
+        for (int i = 0; i < 3; i++) assertEquals((plus[i] - minus[i]) / (2 * h), hv[i], 1e-6);
+        assertThrows(IllegalArgumentException.class, () -> program.hessianVectorProduct(at, new double[2], gradient, hv));
+    }
+
+    @Test
+    public void testLogarithmDerivatives() {
+        // d^m/dx^m ln x = (-1)^(m-1) (m-1)! / x^m
+        double[] d = SymbolicExpression.log(variable("x")).higherDerivatives(Map.of("x", 2.0), "x", 6);
+        assertEquals(Math.log(2.0), d[0], 1e-15);
+        double factorial = 1.0;
+        for (int m = 1; m <= 6; m++) {
+            assertEquals((m % 2 == 1 ? 1 : -1) * factorial / Math.pow(2.0, m), d[m], 1e-12, "order " + m);
+            factorial *= m;
+        }
+    }
+
+    @Test
+    public void testPowersAndQuotients() {
+        Map<String, Double> at = new HashMap<>(Map.of("x", 1.5));
+        // x^(5/2): constant real exponent
+        double[] d = SymbolicExpression.power(variable("x"), symbolicTerm(5, 1, 2)).higherDerivatives(at, "x", 3);
+        assertEquals(2.5 * 1.5 * 0.5 * Math.pow(1.5, -0.5), d[3], 1e-12);
+        // 2^x: variable exponent, every derivative is ln(2)^m 2^x
+        d = SymbolicExpression.power(symbolicTerm(2, 1, 1), variable("x")).higherDerivatives(at, "x", 5);
+        for (int m = 0; m <= 5; m++) assertEquals(Math.pow(Math.log(2), m) * Math.pow(2, 1.5), d[m], 1e-12);
+        // 1 / (1 - x) at 0: m!
+        at.put("x", 0.0);
+        d = SymbolicExpression.divide(symbolicTerm(1, 1, 1), SymbolicExpression.subtract(symbolicTerm(1, 1, 1), variable("x"))).higherDerivatives(at, "x", 5);
+        assertArrayEquals(new double[] {1, 1, 2, 6, 24, 120}, d, 1e-9);
+        // x^3 and x^20 at a zero base stay exact
+        SymbolicExpression cube = SymbolicExpression.add(SymbolicExpression.power(variable("x"), symbolicTerm(3, 1, 1)),
+                SymbolicExpression.power(variable("x"), symbolicTerm(20, 1, 1)));
+        assertArrayEquals(new double[] {0, 0, 0, 6, 0}, cube.higherDerivatives(at, "x", 4), 0.0);
+    }
+
+    @Test
+    public void testOtherVariablesStayFixed() {
+        // d^2/dx^2 of x^2 y^3 is 2 y^3; with respect to an absent variable every derivative is 0
+        SymbolicExpression f = SymbolicExpression.multiply(SymbolicExpression.power(variable("x"), symbolicTerm(2, 1, 1)),
+                SymbolicExpression.power(variable("y"), symbolicTerm(3, 1, 1)));
+        Map<String, Double> at = Map.of("x", 3.0, "y", 2.0);
+        assertArrayEquals(new double[] {72, 48, 16, 0}, f.higherDerivatives(at, "x", 3), 1e-12);
+        assertArrayEquals(new double[] {72, 0, 0}, f.higherDerivatives(at, "w", 2), 0.0);
+    }
+}
@@ -0,0 +1,102 @@
+package com.github.arbitrary_number;
+
+import static com.github.arbitrary_number.ExpressionFixtures.symbolicTerm;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class IntegerPowerTest {
+
+    @AfterEach
+    public void restoreThreshold() {
+        CompiledExpression.setJitThreshold(CompiledExpression.DEFAULT_JIT_THRESHOLD);
+    }
+
+
+    @Test
+    public void testSmallIntegerExponentsCompileToPowerInt() {
+        SymbolicExpression x = SymbolicExpression.variable("x");
+        CompiledExpression program = SymbolicExpression.power(x, symbolicTerm(2, 1, 1)).compile();
+        assertEquals(CompiledExpression.POWER_INT, program.opcodes[0]);
+
+        // 6/3 is an integer too; 1/2 and 17 are not inlined
+        assertEquals(CompiledExpression.POWER_INT, SymbolicExpression.power(x, symbolicTerm(2, 3, 3)).compile().opcodes[0]);
+        assertEquals(CompiledExpression.POWER, SymbolicExpression.power(x, symbolicTerm(1, 1, 2)).compile().opcodes[0]);
+        assertEquals(CompiledExpression.POWER, SymbolicExpression.power(x, symbolicTerm(17, 1, 1)).compile().opcodes[0]);
+        assertEquals(CompiledExpression.POWER, SymbolicExpression.power(x, x).compile().opcodes[0]);
+    }
+
+    @Test
+    public void testPowIntMatchesMathPowClosely() {
+        for (int k = -CompiledExpression.MAX_INLINE_EXPONENT; k <= CompiledExpression.MAX_INLINE_EXPONENT; k++) {
+            for (double x : new double[] {0.3, -1.7, 2.0, 1e-3}) {
+                double expected = Math.pow(x, k);
+                assertEquals(expected, CompiledExpression.powInt(x, k), Math.abs(expected) * 1e-14, x + "^" + k);
+            }
+        }
+        assertEquals(1.0, CompiledExpression.powInt(Double.NaN, 0), 0.0);
+    }
+
+    @Test
+    public void testJitAndInterpreterAgreeBitForBit() {
+        CompiledExpression.setJitThreshold(0);
+        SymbolicExpression x = SymbolicExpression.variable("x");
+        List<SymbolicExpression> terms = new ArrayList<>();
+        for (int k = -CompiledExpression.MAX_INLINE_EXPONENT; k <= CompiledExpression.MAX_INLINE_EXPONENT; k++) {
+            terms.add(SymbolicExpression.power(x, symbolicTerm(k, 1, 1)));
+        }
+        CompiledExpression program = SymbolicExpression.sum(terms).compile();
+        for (double v : new double[] {0.9, -1.1, 3.0, 0.01}) {
+            double[] slots = {v};
+            assertEquals(program.interpret(slots), program.evaluate(slots), 0.0);
+        }
+        assertTrue(program.isJitCompiled());
+    }
+
+    @Test
+    public void testDecimalModeIsExact() {
+        SymbolicExpression x = SymbolicExpression.variable("x");
+        SymbolicExpression cube = SymbolicExpression.power(x, symbolicTerm(3, 1, 1));
+        SymbolicExpression inverse = SymbolicExpression.power(x, symbolicTerm(-2, 1, 1));
+        Map<String, BigDecimal> at = Map.of("x", new BigDecimal("1.1"));
+
+        assertEquals(new BigDecimal("1.331"), SymbolicNode.evaluateSymbolicExpression(cube, at, 10));
+        assertEquals(new BigDecimal("0.8264462810"), SymbolicNode.evaluateSymbolicExpression(inverse, at, 10));
+    }
+
+    @Test
+    public void testConstantPowersEvaluateExactly() {
+        // (2/3)^-5 = 243/32 = 7.59375 exactly, with no double in between
+        ArbitraryNumberV2 e = ArbitraryNumberV2.power(
+                ArbitraryNumberV2.term(BigInteger.ONE, BigInteger.TWO, BigInteger.valueOf(3)),
+                ArbitraryNumberV2.term(BigInteger.valueOf(-5), BigInteger.ONE, BigInteger.ONE));
+        assertEquals(new BigDecimal("7.59375"), e.evaluate(50));
+
+        // (1/3)^200 at 60 digits matches the exact rational to the last digit
+        SymbolicExpression third = SymbolicExpression.power(symbolicTerm(1, 1, 3), symbolicTerm(200, 1, 1));
+        BigDecimal exact = BigDecimal.ONE.divide(new BigDecimal(BigInteger.valueOf(3).pow(200)), new MathContext(60));
+        assertEquals(exact, third.evaluate(60));
+        assertEquals(SymbolicExpression.term(BigInteger.ONE, BigInteger.ONE, BigInteger.valueOf(3).pow(200)), third.simplify());
+    }
+
+    @Test
+    public void testQuotientRuleSquareEvaluates() {
+        // d/dx (1 / x) = (0*x - 1*1) / x^2 through the program and the JIT
+        CompiledExpression.setJitThreshold(0);
+        SymbolicExpression x = SymbolicExpression.variable("x");
+        SymbolicExpression d = SymbolicGradient.computeGradient(SymbolicExpression.divide(symbolicTerm(1, 1, 1), x), "x");
+        CompiledExpression program = d.compile();
+        assertEquals(-0.25, d.evaluate(Map.of("x", 2.0)), 0.0);
+        assertTrue(program.isJitCompiled());
+        assertEquals(-0.25, program.interpret(new double[] {2.0}), 0.0);
+    }
+}
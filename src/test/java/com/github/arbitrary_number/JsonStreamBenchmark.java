@@ -0,0 +1,51 @@
+package com.github.arbitrary_number;
+
+import static com.github.arbitrary_number.ExpressionFixtures.neuron;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+public class JsonStreamBenchmark {
+
+    private static double mbPerSecond(long bytes, long nanos) {
+        return bytes / 1e6 / (nanos / 1e9);
+    }
+
+    public static void main(String[] args) throws IOException {
+        System.out.println("JSON export: toJson().toString() vs writeJson, and readJson");
+        System.out.printf("  %-8s %-10s %-10s %-12s %-12s %-12s%n", "width", "dom KB", "stream KB", "dom MB/s", "write MB/s", "read MB/s");
+        for (int width : new int[] {1_000, 10_000, 100_000}) {
+            SymbolicExpression e = neuron(width, width);
+            long domBytes = 0;
+            long domBest = Long.MAX_VALUE;
+            long writeBest = Long.MAX_VALUE;
+            long readBest = Long.MAX_VALUE;
+            byte[] streamed = null;
+            for (int r = 0; r < 5; r++) {
+                long start = System.nanoTime();
+                byte[] dom = e.toJson().toString().getBytes(StandardCharsets.UTF_8);
+                domBest = Math.min(domBest, System.nanoTime() - start);
+                domBytes = dom.length;
+
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                start = System.nanoTime();
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+                e.writeJson(writer);
+                writeBest = Math.min(writeBest, System.nanoTime() - start);
+                streamed = out.toByteArray();
+
+                start = System.nanoTime();
+                SymbolicExpression back = SymbolicExpression.readJson(new ByteArrayInputStream(streamed));
+                readBest = Math.min(readBest, System.nanoTime() - start);
+                if (back.children.size() != e.children.size()) throw new AssertionError("Round trip changed the expression");
+            }
+            System.out.printf("  %-8d %-10d %-10d %-12.1f %-12.1f %-12.1f%n", width, domBytes / 1024, streamed.length / 1024,
+                    mbPerSecond(domBytes, domBest), mbPerSecond(streamed.length, writeBest), mbPerSecond(streamed.length, readBest));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.github.arbitrary_number;
+
+import static com.github.arbitrary_number.ExpressionFixtures.symbolicTerm;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+public class JsonStreamTest {
+
+    private static String json(SymbolicExpression e) throws IOException {
+        StringWriter out = new StringWriter();
+        e.writeJson(out);
+        return out.toString();
+    }
+
+    @Test
+    public void testSharedNodesAreWrittenOnce() throws IOException {
+        // (x * y) doubled 20 times: 2^20 paths, 23 distinct nodes
+        SymbolicExpression shared = SymbolicExpression.multiply(SymbolicExpression.variable("x"), SymbolicExpression.variable("y"));
+        SymbolicExpression e = shared;
+        for (int i = 0; i < 20; i++) e = SymbolicExpression.add(e, e);
+
+        String text = json(e);
+        assertEquals(24, text.split("\"id\":").length);
+        assertTrue(text.contains("{\"id\":3,\"operation\":\"ADD\",\"children\":[2,2]}"), text);
+
+        SymbolicExpression back = SymbolicExpression.readJson(new StringReader(text));
+        assertEquals(e, back);
+        // Sharing survives the round trip
+        assertSame(back.children.get(0), back.children.get(1));
+        assertEquals(Math.pow(2, 20) * 6.0, back.evaluate(Map.of("x", 2.0, "y", 3.0)), 0.0);
+    }
+
+    @Test
+    public void testNestedJsonMatchesToJson() throws IOException {
+        SymbolicExpression x = SymbolicExpression.variable("x");
+        SymbolicExpression e = SymbolicExpression.add(SymbolicExpression.multiply(symbolicTerm(3, 1, 2), x), SymbolicExpression.log(x));
+        StringWriter out = new StringWriter();
+        e.writeNestedJson(out);
+        assertTrue(new JSONObject(out.toString()).similar(e.toJson()), out.toString());
+
+        ArbitraryNumberV2 half = ArbitraryNumberV2.term(BigInteger.ONE, BigInteger.ONE, BigInteger.TWO);
+        ArbitraryNumberV2 v2 = ArbitraryNumberV2.power(ArbitraryNumberV2.log(half), half);
+        out = new StringWriter();
+        v2.writeNestedJson(out);
+        assertTrue(new JSONObject(out.toString()).similar(v2.toJson()), out.toString());
+    }
+
+    @Test
+    public void testArbitraryNumberV2RoundTripThroughStreams() throws IOException {
+        ArbitraryNumberV2 half = ArbitraryNumberV2.term(BigInteger.ONE, BigInteger.ONE, BigInteger.TWO);
+        ArbitraryNumberV2 big = ArbitraryNumberV2.term(new BigInteger("-123456789012345678901234567890"), BigInteger.ONE, BigInteger.valueOf(7));
+        ArbitraryNumberV2 e = ArbitraryNumberV2.sum(List.of(
+                ArbitraryNumberV2.log(half), ArbitraryNumberV2.power(big, half), ArbitraryNumberV2.divide(half, big), half));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        e.writeJson(bytes);
+        ArbitraryNumberV2 back = ArbitraryNumberV2.readJson(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(e, back);
+        assertEquals(4, back.children.size());
+        assertEquals(e.toString(), back.toString());
+    }
+
+    @Test
+    public void testDeepChainRoundTrip() throws IOException {
+        SymbolicExpression one = symbolicTerm(1, 1, 1);
+        SymbolicExpression e = SymbolicExpression.variable("x");
+        for (int i = 0; i < 200_000; i++) e = SymbolicExpression.add(e, one);
+        SymbolicExpression back = SymbolicExpression.readJson(new StringReader(json(e)));
+        assertEquals(200_002.5, back.evaluate(Map.of("x", 2.5)), 0.0);
+    }
+
+    @Test
+    public void testVariableNamesAreEscaped() throws IOException {
+        SymbolicExpression v = SymbolicExpression.variable("w\"1\\\n");
+        assertEquals(v, SymbolicExpression.readJson(new StringReader(json(SymbolicExpression.log(v)))).children.get(0));
+    }
+
+    @Test
+    public void testMalformedInput() {
+        assertThrows(JSONException.class, () -> SymbolicExpression.readJson(new StringReader("{\"nodes\":[{\"id\":0,\"operation\":\"LOG\",\"children\":[0]}],\"root\":0}")));
+        assertThrows(JSONException.class, () -> SymbolicExpression.readJson(new StringReader("{\"nodes\":[],\"root\":0}")));
+        assertThrows(JSONException.class, () -> ArbitraryNumberV2.readJson(new StringReader("[1, 2]")));
+    }
+
+    @Test
+    public void testWrongArity() {
+        assertThrows(JSONException.class, () -> ArbitraryNumberV2.readJson(new StringReader("{\"nodes\":[{\"id\":0,\"op\":\"LOG\",\"args\":[]}],\"root\":0}")));
+        String leaf = "{\"id\":0,\"operation\":\"VARIABLE\",\"variable\":\"x\"}";
+        assertThrows(JSONException.class, () -> SymbolicExpression.readJson(new StringReader("{\"nodes\":[" + leaf + ",{\"id\":1,\"operation\":\"ADD\",\"children\":[0]}],\"root\":1}")));
+        assertThrows(JSONException.class, () -> SymbolicExpression.readJson(new StringReader("{\"nodes\":[" + leaf + ",{\"id\":1,\"operation\":\"POWER\",\"children\":[0,0,0]}],\"root\":1}")));
+        assertThrows(JSONException.class, () -> SymbolicExpression.readJson(new StringReader("{\"nodes\":[" + leaf + ",{\"id\":1,\"operation\":\"VARIABLE\",\"variable\":\"y\",\"children\":[0]}],\"root\":1}")));
+        SymbolicExpression ok = SymbolicExpression.readJson(new StringReader("{\"nodes\":[" + leaf + ",{\"id\":1,\"operation\":\"MULTIPLY\",\"children\":[0,0,0]}],\"root\":1}"));
+        assertEquals(3, ok.arity());
+    }
+}
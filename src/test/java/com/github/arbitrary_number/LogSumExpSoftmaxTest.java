@@ -19,13 +19,9 @@ public class LogSumExpSoftmaxTest {
 
         List<ArbitraryNumberV2> inputs = List.of(x1, x2, x3);
 
-        // Find max(x)
-        ArbitraryNumberV2 max = x1;
-        for (ArbitraryNumberV2 x : inputs) {
-            if (x.evaluate(10).compareTo(max.evaluate(10)) > 0) {
-                max = x;
-            }
-        }
+        // Find max(x); interval bounds settle it without full evaluations
+        ArbitraryNumberV2 max = ArbitraryNumberV2.max(inputs);
+        assertSame(x3, max);
 
         ArbitraryNumberV2 e = ArbitraryNumberV2.term(BigInteger.ONE, BigInteger.valueOf(271828), BigInteger.valueOf(100000)); // Approx e
 
@@ -0,0 +1,94 @@
+package com.github.arbitrary_number;
+
+import static com.github.arbitrary_number.ExpressionFixtures.numberTerm;
+import static com.github.arbitrary_number.ExpressionFixtures.symbolicTerm;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+public class NaryExpressionTest {
+
+    @Test
+    public void testNestedSumsAreFlattened() {
+        SymbolicExpression x = SymbolicExpression.variable("x");
+        SymbolicExpression y = SymbolicExpression.variable("y");
+        SymbolicExpression inner = SymbolicExpression.sum(List.of(x, y));
+        SymbolicExpression outer = SymbolicExpression.sum(List.of(inner, symbolicTerm(1, 1, 1), x));
+
+        assertEquals(SymbolicExpression.Operation.ADD, outer.op);
+        assertEquals(4, outer.children.size());
+        assertEquals("(x + y + 1 * (1/1) + x)", outer.toString());
+        assertEquals(8.0, outer.evaluate(Map.of("x", 2.0, "y", 3.0)), 0.0);
+    }
+
+    @Test
+    public void testDegenerateOperandLists() {
+        SymbolicExpression x = SymbolicExpression.variable("x");
+        assertSame(x, SymbolicExpression.sum(List.of(x)));
+        assertSame(x, SymbolicExpression.product(List.of(x)));
+        assertEquals(0.0, SymbolicExpression.sum(List.of()).evaluate(Map.of()), 0.0);
+        assertEquals(1.0, SymbolicExpression.product(List.of()).evaluate(Map.of()), 0.0);
+    }
+
+    @Test
+    public void testNaryProductRule() {
+        SymbolicExpression x = SymbolicExpression.variable("x");
+        SymbolicExpression y = SymbolicExpression.variable("y");
+        // d/dx (x * y * x * 3) = 6xy
+        SymbolicExpression e = SymbolicExpression.product(List.of(x, y, x, symbolicTerm(3, 1, 1)));
+        Map<String, Double> at = Map.of("x", 2.0, "y", 5.0);
+
+        assertEquals(60.0, e.evaluate(at), 0.0);
+        assertEquals(60.0, e.differentiate("x").evaluate(at), 0.0);
+        assertEquals(60.0, SymbolicGradient.computeGradient(e, "x").evaluate(at), 0.0);
+        assertEquals(12.0, e.differentiate("y").evaluate(at), 0.0);
+    }
+
+    @Test
+    public void testArbitraryNumberV2Sum() {
+        List<ArbitraryNumberV2> terms = new ArrayList<>();
+        for (int i = 1; i <= 4; i++) terms.add(numberTerm(1, 1, i));
+        ArbitraryNumberV2 e = ArbitraryNumberV2.sum(terms);
+
+        assertEquals(4, e.children.size());
+        assertEquals("(1*(1/1) + 1*(1/2) + 1*(1/3) + 1*(1/4))", e.toString());
+        // 25/12
+        assertEquals(25.0 / 12.0, e.evaluate(20).doubleValue(), 1e-15);
+        assertEquals(BigDecimal.ZERO, e.differentiate("x").evaluate(10).stripTrailingZeros());
+    }
+
+    @Test
+    public void testSimplifyFlattensAndDropsIdentities() {
+        SymbolicExpression zero = symbolicTerm(0, 1, 1);
+        SymbolicExpression one = symbolicTerm(1, 1, 1);
+        SymbolicExpression a = SymbolicExpression.variable("a");
+        SymbolicExpression b = SymbolicExpression.variable("b");
+        SymbolicExpression c = SymbolicExpression.variable("c");
+
+        SymbolicExpression chain = SymbolicExpression.add(SymbolicExpression.add(SymbolicExpression.add(a, zero), b), c);
+        assertEquals(SymbolicExpression.sum(List.of(a, b, c)), chain.simplify());
+
+        SymbolicExpression p = SymbolicExpression.multiply(SymbolicExpression.multiply(a, one), SymbolicExpression.multiply(b, c));
+        assertEquals(SymbolicExpression.product(List.of(a, b, c)), p.simplify());
+        assertSame(a, a.simplify());
+    }
+
+    @Test
+    public void testDenseLayerRowIsOneNode() {
+        List<String> names = List.of("x1", "x2", "x3");
+        SymbolicExpression[][] weights = {{symbolicTerm(1, 1, 2), symbolicTerm(1, 1, 3), symbolicTerm(2, 1, 1)}};
+        SymbolicDenseLayerV2 layer = new SymbolicDenseLayerV2(names, weights, List.of(symbolicTerm(1, 1, 1)));
+        SymbolicExpression out = layer.forward().get(0);
+
+        assertEquals(SymbolicExpression.Operation.ADD, out.op);
+        assertEquals(4, out.children.size());
+        assertEquals(0.5 + 1.0 + 2.0 + 1.0, out.evaluate(Map.of("x1", 1.0, "x2", 3.0, "x3", 1.0)), 1e-12);
+        assertEquals(2.0, out.differentiate("x3").evaluate(Map.of("x1", 0.0, "x2", 0.0, "x3", 0.0)), 0.0);
+    }
+}
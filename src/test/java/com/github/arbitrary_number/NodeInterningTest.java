@@ -0,0 +1,141 @@
+package com.github.arbitrary_number;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class NodeInterningTest {
+
+    @AfterEach
+    public void disableInterning() {
+        ArbitraryNumberV2.setInterning(false);
+        SymbolicExpression.setInterning(false);
+    }
+
+    private static ArbitraryNumberV2 v2Expression() {
+        ArbitraryNumberV2 a = ArbitraryNumberV2.term(BigInteger.ONE, BigInteger.valueOf(3), BigInteger.valueOf(4));
+        ArbitraryNumberV2 b = ArbitraryNumberV2.term(BigInteger.TWO, BigInteger.ONE, BigInteger.valueOf(5));
+        return ArbitraryNumberV2.add(ArbitraryNumberV2.multiply(a, b), ArbitraryNumberV2.log(b));
+    }
+
+    private static SymbolicExpression symbolicExpression() {
+        SymbolicExpression x = SymbolicExpression.variable("x");
+        SymbolicExpression w = SymbolicExpression.term(BigInteger.ONE, BigInteger.valueOf(7), BigInteger.TEN);
+        return SymbolicExpression.add(SymbolicExpression.multiply(w, x), SymbolicExpression.power(x, w));
+    }
+
+    @Test
+    public void testInterningSharesEqualSubtrees() {
+        ArbitraryNumberV2.setInterning(true);
+        ArbitraryNumberV2 first = v2Expression();
+        ArbitraryNumberV2 second = v2Expression();
+
+        assertSame(first, second);
+        // The repeated leaf b is one node inside the expression
+        assertSame(first.children.get(0).children.get(1), first.children.get(1).children.get(0));
+    }
+
+    @Test
+    public void testSymbolicInterningSharesEqualSubtrees() {
+        SymbolicExpression.setInterning(true);
+        SymbolicExpression first = symbolicExpression();
+        SymbolicExpression second = symbolicExpression();
+
+        assertSame(first, second);
+        assertNotEquals(first, SymbolicExpression.variable("y"));
+    }
+
+    @Test
+    public void testConcurrentInterningAgreesAcrossThreads() throws Exception {
+        SymbolicExpression.setInterning(true);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<SymbolicExpression>>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                results.add(pool.submit(() -> {
+                    List<SymbolicExpression> built = new ArrayList<>();
+                    for (int i = 1; i <= 500; i++) {
+                        SymbolicExpression w = SymbolicExpression.term(BigInteger.ONE, BigInteger.valueOf(i), BigInteger.TEN);
+                        built.add(SymbolicExpression.multiply(w, SymbolicExpression.variable("x")));
+                    }
+                    return built;
+                }));
+            }
+            List<SymbolicExpression> first = results.get(0).get();
+            for (Future<List<SymbolicExpression>> r : results) {
+                List<SymbolicExpression> other = r.get();
+                for (int i = 0; i < first.size(); i++) {
+                    assertSame(first.get(i), other.get(i));
+                    assertEquals(first.get(i), other.get(i));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testStructuralEqualityWithoutInterning() {
+        ArbitraryNumberV2 first = v2Expression();
+        ArbitraryNumberV2 second = v2Expression();
+        assertNotSame(first, second);
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+
+        SymbolicExpression s1 = symbolicExpression();
+        SymbolicExpression s2 = symbolicExpression();
+        assertNotSame(s1, s2);
+        assertEquals(s1, s2);
+        assertEquals(s1.hashCode(), s2.hashCode());
+    }
+
+    @Test
+    public void testCanonicalAndPlainNodesCompareStructurally() {
+        ArbitraryNumberV2 plain = v2Expression();
+        ArbitraryNumberV2.setInterning(true);
+        ArbitraryNumberV2 canonical = v2Expression();
+
+        assertEquals(plain, canonical);
+        assertEquals(canonical, plain);
+        assertFalse(canonical.equals(ArbitraryNumberV2.log(canonical)));
+    }
+
+    @Test
+    public void testNodesBuiltBeforeInterningAreNotCanonicalized() {
+        SymbolicExpression x = SymbolicExpression.variable("x");
+        SymbolicExpression.setInterning(true);
+        SymbolicExpression first = SymbolicExpression.log(x);
+        SymbolicExpression second = SymbolicExpression.log(x);
+
+        // Equal, but the plain child keeps its parents out of the table
+        assertNotSame(first, second);
+        assertEquals(first, second);
+    }
+
+    @Test
+    public void testDeepChainHashesWithoutRecursion() {
+        SymbolicExpression.setInterning(true);
+        SymbolicExpression x = SymbolicExpression.variable("x");
+        SymbolicExpression e1 = x;
+        SymbolicExpression e2 = x;
+        for (int i = 0; i < 100_000; i++) {
+            e1 = SymbolicExpression.add(e1, x);
+            e2 = SymbolicExpression.add(e2, x);
+        }
+        assertSame(e1, e2);
+        assertTrue(SymbolicExpression.internedNodeCount() > 0);
+    }
+}
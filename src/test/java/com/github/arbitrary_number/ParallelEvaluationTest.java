@@ -0,0 +1,85 @@
+package com.github.arbitrary_number;
+
+import static com.github.arbitrary_number.ExpressionFixtures.numberTerm;
+import static com.github.arbitrary_number.ExpressionFixtures.symbolicTerm;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class ParallelEvaluationTest {
+
+    // softmax(x)_0 = e^x0 / sum e^xi over many logits
+    private static ArbitraryNumberV2 softmaxHead(int width) {
+        ArbitraryNumberV2 e = numberTerm(1, 271828, 100000);
+        List<ArbitraryNumberV2> exps = new ArrayList<>();
+        for (int i = 0; i < width; i++) exps.add(ArbitraryNumberV2.power(e, numberTerm(i % 7 - 3, 1, i + 2)));
+        return ArbitraryNumberV2.divide(exps.get(0), ArbitraryNumberV2.sum(exps));
+    }
+
+    @Test
+    public void testMatchesSequentialExactly() {
+        ArbitraryNumberV2 head = softmaxHead(200);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertEquals(head.evaluate(40), head.evaluateParallel(40, pool));
+        } finally {
+            pool.shutdown();
+        }
+
+        List<SymbolicExpression> logs = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) logs.add(SymbolicExpression.log(symbolicTerm(i, 1, 3)));
+        SymbolicExpression sum = SymbolicExpression.sum(logs);
+        assertEquals(sum.evaluate(30), sum.evaluateParallel(30));
+    }
+
+    @Test
+    public void testSharedNodeEvaluatedOnce() {
+        AtomicInteger evaluations = new AtomicInteger();
+        ArbitraryNumberV2 shared = new ArbitraryNumberV2() {
+            @Override
+            public BigDecimal evaluate(int precision) {
+                evaluations.incrementAndGet();
+                return BigDecimal.valueOf(3);
+            }
+        };
+        List<ArbitraryNumberV2> uses = new ArrayList<>();
+        for (int i = 1; i <= 64; i++) uses.add(ArbitraryNumberV2.power(shared, numberTerm(1, 1, i)));
+        ArbitraryNumberV2 e = ArbitraryNumberV2.multiply(ArbitraryNumberV2.sum(uses), shared);
+
+        BigDecimal parallel = e.evaluateParallel(25);
+        assertEquals(1, evaluations.get());
+        assertEquals(e.evaluate(25), parallel);
+    }
+
+    @Test
+    public void testDeepChainKeepsStacksFlat() {
+        // Deep enough that a recursive evaluator would overflow; the logs make it parallel
+        ArbitraryNumberV2 e = ArbitraryNumberV2.log(numberTerm(2, 1, 1));
+        for (int i = 0; i < 200_000; i++) e = ArbitraryNumberV2.add(e, i % 1000 == 0 ? ArbitraryNumberV2.log(numberTerm(i + 3, 1, 1)) : numberTerm(1, 1, 2));
+        assertEquals(e.evaluate(20), e.evaluateParallel(20));
+    }
+
+    @Test
+    public void testDeepChainOfExpensiveNodes() {
+        // Every node is released alone and is worth forking; it must run on the releasing worker
+        ArbitraryNumberV2 e = numberTerm(7, 1, 1);
+        for (int i = 0; i < 2000; i++) e = ArbitraryNumberV2.power(e, numberTerm(1, 1, 2));
+        assertEquals(e.evaluate(10), e.evaluateParallel(10));
+    }
+
+    @Test
+    public void testErrorsPropagate() {
+        List<ArbitraryNumberV2> parts = new ArrayList<>();
+        for (int i = 0; i < 50; i++) parts.add(ArbitraryNumberV2.log(numberTerm(i + 2, 1, 1)));
+        parts.add(ArbitraryNumberV2.divide(numberTerm(1, 1, 1), numberTerm(0, 1, 1)));
+        ArbitraryNumberV2 e = ArbitraryNumberV2.sum(parts);
+        assertThrows(ArithmeticException.class, () -> e.evaluateParallel(20));
+    }
+}
@@ -0,0 +1,106 @@
+package com.github.arbitrary_number;
+
+import static com.github.arbitrary_number.ExpressionFixtures.numberTerm;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+
+import org.junit.jupiter.api.Test;
+
+public class ProgressiveEvaluationTest {
+
+    // ln(1/3 + 2/7) + (5/6)^3 = ln(13/21) + 125/216
+    private static ArbitraryNumberV2 mixed() {
+        ArbitraryNumberV2 log = ArbitraryNumberV2.log(ArbitraryNumberV2.add(numberTerm(1, 1, 3), numberTerm(2, 1, 7)));
+        return ArbitraryNumberV2.add(log, ArbitraryNumberV2.power(numberTerm(1, 5, 6), numberTerm(3, 1, 1)));
+    }
+
+    private static BigDecimal reference(int precision) {
+        MathContext wide = new MathContext(precision + 20);
+        BigDecimal log = BigDecimalMath.ln(new BigDecimal(13).divide(new BigDecimal(21), wide), wide);
+        return log.add(new BigDecimal(125).divide(new BigDecimal(216), wide), wide);
+    }
+
+    private static void assertClose(BigDecimal expected, BigDecimal actual, int precision) {
+        BigDecimal error = expected.subtract(actual).abs();
+        BigDecimal ulp = expected.round(new MathContext(precision)).ulp();
+        assertTrue(error.compareTo(ulp) <= 0, actual + " vs " + expected);
+    }
+
+    @Test
+    public void testRefinementsMatchDirectEvaluation() {
+        ProgressiveEvaluation p = ProgressiveEvaluation.of(mixed());
+        for (int precision : new int[] {20, 50, 200}) {
+            ProgressiveEvaluation.Refinement r = p.refine(precision);
+            assertEquals(precision, r.precision);
+            assertClose(reference(precision), r.value, precision);
+        }
+        assertEquals(200, p.precision());
+        assertEquals(3, p.history().size());
+    }
+
+    @Test
+    public void testRationalSubtreesAreNotReevaluated() {
+        ProgressiveEvaluation p = ProgressiveEvaluation.of(mixed());
+        // 1/3, 2/7, their sum, 5/6, 3 and the power are rational; the log and the root are not
+        assertEquals(8, p.nodeCount());
+        assertEquals(6, p.exactNodeCount());
+
+        ProgressiveEvaluation.Refinement r = p.refine(30);
+        assertEquals(2, r.nodesEvaluated);
+        // The sum under the log and the power under the root
+        assertEquals(2, r.exactValuesConverted);
+        assertEquals(2, p.refine(90).nodesEvaluated);
+    }
+
+    @Test
+    public void testLowerPrecisionRoundsWithoutEvaluating() {
+        ProgressiveEvaluation p = ProgressiveEvaluation.of(mixed());
+        BigDecimal high = p.refine(60).value;
+        ProgressiveEvaluation.Refinement low = p.refine(10);
+        assertEquals(0, low.nodesEvaluated);
+        assertEquals(high.round(new MathContext(10)), low.value);
+        assertEquals(60, p.precision());
+    }
+
+    @Test
+    public void testExactRootIsExactAtEveryPrecision() {
+        // (1/3)^-2 * 2/7 - 1/9 = 18/7 - 1/9 = 155/63
+        ArbitraryNumberV2 e = ArbitraryNumberV2.subtract(
+                ArbitraryNumberV2.multiply(ArbitraryNumberV2.power(numberTerm(1, 1, 3), numberTerm(-2, 1, 1)), numberTerm(2, 1, 7)),
+                numberTerm(1, 1, 9));
+        ProgressiveEvaluation p = ProgressiveEvaluation.of(e);
+        for (int precision : new int[] {5, 40, 400}) {
+            ProgressiveEvaluation.Refinement r = p.refine(precision);
+            assertEquals(new BigDecimal(155).divide(new BigDecimal(63), new MathContext(precision)), r.value);
+            assertEquals(0, r.nodesEvaluated);
+        }
+    }
+
+    @Test
+    public void testSymbolicExpression() {
+        SymbolicExpression e = SymbolicExpression.power(
+                SymbolicExpression.term(BigInteger.TWO, BigInteger.ONE, BigInteger.ONE),
+                SymbolicExpression.term(BigInteger.ONE, BigInteger.ONE, BigInteger.TWO));
+        ProgressiveEvaluation p = ProgressiveEvaluation.of(e);
+        MathContext mc = new MathContext(100);
+        assertClose(BigDecimal.valueOf(2).sqrt(mc), p.refine(100).value, 100);
+
+        ProgressiveEvaluation withVariable = ProgressiveEvaluation.of(SymbolicExpression.log(SymbolicExpression.variable("x")));
+        assertThrows(UnsupportedOperationException.class, () -> withVariable.refine(10));
+        assertThrows(IllegalArgumentException.class, () -> p.refine(0));
+    }
+
+    @Test
+    public void testLogContinuesFromPreviousValue() {
+        BigDecimal x = new BigDecimal("7.25");
+        MathContext low = new MathContext(60);
+        MathContext high = new MathContext(500);
+        BigDecimal previous = BigDecimalMath.ln(x, low);
+        assertEquals(BigDecimalMath.ln(x, high), BigDecimalMath.ln(x, high, previous, 60));
+    }
+}
@@ -0,0 +1,104 @@
+package com.github.arbitrary_number;
+
+import static com.github.arbitrary_number.ExpressionFixtures.smoothExpression;
+import static com.github.arbitrary_number.ExpressionFixtures.symbolicTerm;
+import static com.github.arbitrary_number.ExpressionFixtures.variable;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+public class ReverseModeGradientTest {
+
+    private static double central(SymbolicExpression e, Map<String, Double> at, String name) {
+        double step = 1e-6;
+        Map<String, Double> up = new HashMap<>(at);
+        Map<String, Double> down = new HashMap<>(at);
+        up.put(name, at.get(name) + step);
+        down.put(name, at.get(name) - step);
+        return (e.evaluate(up) - e.evaluate(down)) / (2 * step);
+    }
+
+    @Test
+    public void testAllPartialsInOneSweep() {
+        SymbolicExpression e = smoothExpression();
+        Map<String, Double> at = Map.of("x", 1.5, "y", 0.25, "z", 1.75);
+        Map<String, Double> gradient = e.gradient(at);
+        assertEquals(List.of("x", "y", "z"), List.copyOf(gradient.keySet()));
+        for (String name : gradient.keySet()) {
+            assertEquals(central(e, at, name), gradient.get(name), 1e-6, name);
+        }
+    }
+
+    @Test
+    public void testMatchesSymbolicDerivative() {
+        SymbolicExpression e = smoothExpression();
+        Map<String, Double> at = Map.of("x", 3.0, "y", 0.5, "z", 1.25);
+        Map<String, Double> gradient = e.gradient(at);
+        for (String name : List.of("x", "y", "z")) {
+            assertEquals(e.differentiate(name).evaluate(at), gradient.get(name), 1e-10, name);
+        }
+    }
+
+    @Test
+    public void testSlotArrayFormReturnsValue() {
+        SymbolicExpression x = variable("x");
+        SymbolicExpression e = x;
+        for (int i = 0; i < 5; i++) e = SymbolicExpression.multiply(e, e);
+        CompiledExpression program = e.compile();
+        double[] partials = new double[1];
+        double value = program.gradient(new double[] {1.1}, partials);
+        assertEquals(Math.pow(1.1, 32), value, 1e-9);
+        assertEquals(32 * Math.pow(1.1, 31), partials[0], 1e-9);
+        assertThrows(IllegalArgumentException.class, () -> program.gradient(new double[] {1.1}, new double[2]));
+    }
+
+    @Test
+    public void testIntegerPowerAndUnusedVariablePath() {
+        // x^3 - x^-2; constants never receive adjoints
+        SymbolicExpression e = SymbolicExpression.subtract(
+                SymbolicExpression.power(variable("x"), symbolicTerm(3, 1, 1)),
+                SymbolicExpression.power(variable("x"), symbolicTerm(-2, 1, 1)));
+        double x = 1.3;
+        assertEquals(3 * x * x + 2 / (x * x * x), e.gradient(Map.of("x", x)).get("x"), 1e-12);
+    }
+
+    @Test
+    public void testSmallIntegerPowersAtZero() {
+        // x^0 * y and x^1 * y at the origin of x: no 0^-1 may reach the partials
+        Map<String, Double> at = Map.of("x", 0.0, "y", 1.0);
+        Map<String, BigDecimal> decimalAt = Map.of("x", BigDecimal.ZERO, "y", BigDecimal.ONE);
+        for (int k = 0; k <= 1; k++) {
+            SymbolicExpression e = SymbolicExpression.multiply(
+                    SymbolicExpression.power(variable("x"), symbolicTerm(k, 1, 1)), variable("y"));
+            Map<String, Double> gradient = e.gradient(at);
+            assertEquals(k, gradient.get("x"), 0.0, "x^" + k);
+            assertEquals(1 - k, gradient.get("y"), 0.0, "x^" + k);
+            Map<String, BigDecimal> decimal = e.compile().gradient(decimalAt, 20);
+            assertEquals(k, decimal.get("x").intValueExact(), "x^" + k);
+            assertEquals(1 - k, decimal.get("y").intValueExact(), "x^" + k);
+        }
+    }
+
+    @Test
+    public void testDecimalGradient() {
+        SymbolicExpression e = SymbolicExpression.add(
+                SymbolicExpression.divide(SymbolicExpression.multiply(variable("x"), variable("x")), variable("y")),
+                SymbolicExpression.log(variable("y")));
+        Map<String, BigDecimal> at = Map.of("x", new BigDecimal("3"), "y", new BigDecimal("7"));
+        Map<String, BigDecimal> gradient = e.compile().gradient(at, 30);
+        // d/dx = 2x/y = 6/7, d/dy = -x^2/y^2 + 1/y = -9/49 + 7/49 = -2/49
+        BigDecimal dx = new BigDecimal(6).divide(new BigDecimal(7), new MathContext(25));
+        BigDecimal dy = new BigDecimal(-2).divide(new BigDecimal(49), new MathContext(25));
+        BigDecimal tolerance = new BigDecimal("1e-24");
+        assertTrue(dx.subtract(gradient.get("x")).abs().compareTo(tolerance) <= 0, gradient.get("x").toString());
+        assertTrue(dy.subtract(gradient.get("y")).abs().compareTo(tolerance) <= 0, gradient.get("y").toString());
+    }
+}
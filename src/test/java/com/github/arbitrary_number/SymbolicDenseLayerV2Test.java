@@ -65,9 +65,9 @@ public class SymbolicDenseLayerV2Test {
             // Check output in [0, 1] due to sigmoid
             assertTrue(outVal >= 0 && outVal <= 1, "Output should be in [0,1]");
 
-            // Derivatives of sigmoid layer should be non-negative (rough check)
-            assertTrue(dVal_dx1 >= 0, "Derivative wrt x1 should be >= 0");
-            assertTrue(dVal_dx2 >= 0, "Derivative wrt x2 should be >= 0");
+            // Sigmoid is increasing, so each derivative has the sign of its weight
+            assertEquals(weights[i][0].evaluate(10).signum(), (int) Math.signum(dVal_dx1), "Sign of derivative wrt x1");
+            assertEquals(weights[i][1].evaluate(10).signum(), (int) Math.signum(dVal_dx2), "Sign of derivative wrt x2");
         }
     }
 }
@@ -1,9 +1,11 @@
 package com.github.arbitrary_number;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.Map;
 
 import org.junit.jupiter.api.Test;
 
@@ -33,11 +35,10 @@ public class SymbolicExpressionTest {
         // Compute gradient
         SymbolicExpression grad = fx.symbolicGrad(x).simplify();
 
-        // Expected result: 1
-        SymbolicExpression expected = SymbolicExpression.term(BigInteger.ONE, BigInteger.ONE, BigInteger.ONE);
-
-        // Compare simplified gradient to expected
-        assertEquals(expected, grad, "Gradient should be 1");
+        // simplify is not a CAS, so check that the gradient is 1 where f is defined
+        for (double at : new double[] {-3.5, 0.0, 0.5, 2.0, 17.25}) {
+            assertEquals(1.0, grad.evaluate(Map.of("x", at)), 1e-12, "Gradient should be 1 at x = " + at);
+        }
     }
 
     @Test
@@ -74,7 +75,7 @@ public class SymbolicExpressionTest {
         BigDecimal expected = new BigDecimal("0.2231435513142097");
 
         // Assert result is close
-        assertEquals(0, result.subtract(expected).abs().compareTo(new BigDecimal("0.00000001")),
+        assertTrue(result.subtract(expected).abs().compareTo(new BigDecimal("0.00000001")) < 0,
             "Cross-entropy loss should match expected value");
     }
 
@@ -0,0 +1,61 @@
+package com.github.arbitrary_number;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class TermBlockTest {
+
+    @Test
+    public void testSmallValuesArePacked() {
+        TermBlock block = new TermBlock.Builder(4).add(1, 2, 3).add(-4, 5, 6).build();
+
+        assertTrue(block.isPacked());
+        assertEquals(2, block.size);
+        assertEquals("-4*(5/6)", block.term(1).toString());
+    }
+
+    @Test
+    public void testWideValueWidensWholeBlock() {
+        BigInteger huge = BigInteger.TWO.pow(100);
+        TermBlock block = new TermBlock.Builder(2).add(1, 2, 3).add(huge, BigInteger.ONE, BigInteger.TEN).add(7, 8, 9).build();
+
+        assertFalse(block.isPacked());
+        assertEquals("1*(2/3)", block.term(0).toString());
+        assertEquals(huge, block.term(1).c);
+        assertEquals("7*(8/9)", block.term(2).toString());
+    }
+
+    @Test
+    public void testLargeProductStreamsOverColumns() {
+        ArbitraryNumber x = new ArbitraryNumber();
+        ArbitraryNumber y = new ArbitraryNumber();
+        for (int i = 1; i <= 500; i++) x.addTerm(1, i, 1000);
+        for (int j = 1; j <= 400; j++) y.addTerm(1, 1, j);
+
+        ArbitraryNumber product = x.multiply(y);
+        assertEquals(200_000, product.getTerms().size());
+
+        // (sum i/1000) * (sum 1/j) evaluated exactly on both sides
+        BigDecimal expected = x.evaluateToDecimalExact(40).multiply(y.evaluateToDecimalExact(60))
+                .setScale(30, java.math.RoundingMode.HALF_UP);
+        assertEquals(expected, product.evaluateToDecimalExact(30));
+    }
+
+    @Test
+    public void testOverflowInsidePackedBlockPromotes() {
+        ArbitraryNumber x = new ArbitraryNumber();
+        x.addTerm(Long.MAX_VALUE, 2, 3);
+        x.addTerm(1, 1, 2);
+
+        ArbitraryNumber square = x.multiply(x);
+        BigInteger max = BigInteger.valueOf(Long.MAX_VALUE);
+        assertEquals(max.multiply(max), square.getTerms().get(0).c);
+        assertEquals("1*(1/4)", square.getTerms().get(3).toString());
+    }
+}
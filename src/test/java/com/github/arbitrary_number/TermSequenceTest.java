@@ -0,0 +1,75 @@
+package com.github.arbitrary_number;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class TermSequenceTest {
+
+    private static ArbitraryNumber single(long a) {
+        ArbitraryNumber n = new ArbitraryNumber();
+        n.addTerm(1, a, 1);
+        return n;
+    }
+
+    @Test
+    public void testRunningSumKeepsOldValues() {
+        ArbitraryNumber sum = new ArbitraryNumber();
+        List<ArbitraryNumber> history = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            sum = sum.add(single(i));
+            if (i % 10_000 == 0) history.add(sum);
+        }
+
+        assertEquals(100_000, sum.getTerms().size());
+        for (int k = 0; k < history.size(); k++) {
+            List<ArbitraryNumber.Term> terms = history.get(k).getTerms();
+            assertEquals(k * 10_000 + 1, terms.size());
+            assertEquals(BigInteger.valueOf(k * 10_000), terms.get(terms.size() - 1).a);
+        }
+    }
+
+    @Test
+    public void testConcatStaysBalanced() {
+        TermSequence seq = TermSequence.EMPTY;
+        for (int i = 0; i < 50_000; i++) {
+            seq = seq.append(new ArbitraryNumber.Term(1, i, 1));
+        }
+        // Full 32-term chunks give at most ~1563 leaves, so an AVL tree stays below 2 log2 of that
+        assertTrue(seq.height() <= 22, "height was " + seq.height());
+
+        int expected = 0;
+        for (ArbitraryNumber.Term t : seq) {
+            assertEquals(expected++, t.a.intValue());
+        }
+        assertEquals(50_000, expected);
+        assertEquals(BigInteger.valueOf(31_337), seq.get(31_337).a);
+    }
+
+    @Test
+    public void testConcatOfUnevenSequencesPreservesOrder() {
+        ArbitraryNumber big = new ArbitraryNumber();
+        for (int i = 0; i < 5_000; i++) big.addTerm(1, i, 1);
+        ArbitraryNumber small = single(-1);
+
+        List<ArbitraryNumber.Term> front = small.add(big).getTerms();
+        List<ArbitraryNumber.Term> back = big.add(small).getTerms();
+        assertEquals(BigInteger.valueOf(-1), front.get(0).a);
+        assertEquals(BigInteger.valueOf(4_999), front.get(5_000).a);
+        assertEquals(BigInteger.ZERO, back.get(0).a);
+        assertEquals(BigInteger.valueOf(-1), back.get(5_000).a);
+    }
+
+    @Test
+    public void testTermsViewIsReadOnly() {
+        ArbitraryNumber n = single(3);
+        assertThrows(UnsupportedOperationException.class,
+                () -> n.getTerms().add(new ArbitraryNumber.Term(1, 1, 1)));
+    }
+}